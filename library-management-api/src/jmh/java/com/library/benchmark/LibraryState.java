@@ -0,0 +1,126 @@
+package com.library.benchmark;
+
+import com.library.LibraryManagementApplication;
+import com.library.dto.IssueRequest;
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.service.ImportService;
+import com.library.service.TransactionService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Boots the application without a web server against a fresh in-memory H2
+ * database in MySQL mode and seeds it through the regular import and batch
+ * issue paths. Data sizes are JMH parameters, e.g. {@code -p books=100000}.
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+    
+    static final String[] WORDS = {
+        "history", "garden", "winter", "ocean", "silent", "empire", "river", "shadow",
+        "machine", "crime", "punishment", "journey", "stone", "light", "code", "clean"
+    };
+    
+    static final String[] AUTHORS = {
+        "Fyodor Dostoevsky", "Jane Austen", "Robert Martin", "Ursula Le Guin",
+        "Gabriel Garcia Marquez", "Toni Morrison", "Haruki Murakami", "Leo Tolstoy"
+    };
+    
+    @Param({"10000"})
+    public int books;
+    
+    @Param({"1000"})
+    public int members;
+    
+    @Param({"5000"})
+    public int transactions;
+    
+    public ConfigurableApplicationContext context;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        start(WebApplicationType.NONE);
+    }
+    
+    /**
+     * Boots and seeds the application; extra properties override the defaults.
+     */
+    public void start(WebApplicationType webApplicationType, String... properties) {
+        String database = "bench" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        context = new SpringApplicationBuilder(LibraryManagementApplication.class)
+            .web(webApplicationType)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:" + database,
+                "spring.r2dbc.url=r2dbc:h2:mem:///" + database,
+                "spring.r2dbc.username=sa",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "library.overdue.initial-delay=P1D",
+                "library.loans.limit.standard=1000000",
+                "library.journal.dir=target/journal/" + database.substring(0, database.indexOf(';')))
+            .properties(properties)
+            .run();
+        seed(new Random(42));
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+    
+    private void seed(Random random) {
+        ImportService importService = bean(ImportService.class);
+        
+        List<Book> bookRows = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            Book book = new Book();
+            book.setTitle(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i);
+            book.setAuthor(AUTHORS[random.nextInt(AUTHORS.length)]);
+            book.setIsbn(String.format("978%010d", i));
+            book.setTotalCopies(10);
+            book.setAvailableCopies(10);
+            book.setCategory(WORDS[i % 4]);
+            bookRows.add(book);
+        }
+        importService.importBooks(bookRows);
+        
+        List<Member> memberRows = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            Member member = new Member();
+            member.setName("Member " + i);
+            member.setEmail("member" + i + "@example.com");
+            member.setPhone(String.format("%010d", i));
+            member.setMembershipDate(LocalDate.of(2024, 1, 1));
+            member.setMembershipType("STANDARD");
+            memberRows.add(member);
+        }
+        importService.importMembers(memberRows);
+        
+        TransactionService transactionService = bean(TransactionService.class);
+        List<IssueRequest> batch = new ArrayList<>();
+        for (int i = 0; i < transactions; i++) {
+            batch.add(new IssueRequest((long) random.nextInt(books) + 1, (long) random.nextInt(members) + 1));
+            if (batch.size() == 100 || i == transactions - 1) {
+                transactionService.issueBooks(batch);
+                batch = new ArrayList<>();
+            }
+        }
+    }
+}
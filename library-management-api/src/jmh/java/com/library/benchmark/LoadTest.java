@@ -0,0 +1,243 @@
+package com.library.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load test of /api/transactions/issue and /api/books/search,
+ * run once per request execution mode against a freshly seeded in-memory
+ * database. Each client thread alternates between a search and a write as fast
+ * as responses come back; the writes check a book out as the client's own
+ * member and return it again on the next one, so copies and loan limits stay
+ * as seeded however long the test runs. Throughput and p50/p99/p99.9 latency
+ * are printed per endpoint and mode.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec@load-test -Dload.args="--clients=400 --duration=30"
+ * </pre>
+ *
+ * Options: {@code --modes=platform,virtual}, {@code --clients}, {@code --warmup},
+ * {@code --duration} (seconds), {@code --pool-size}, and {@code --search} to point
+ * the read half at another endpoint such as {@code /api/catalog/books/search}.
+ * The virtual mode needs Java 21 and is skipped otherwise.
+ */
+public class LoadTest {
+    
+    private static final String ISSUE = "POST /api/transactions/issue";
+    private static final String RETURN = "PUT /api/transactions/{id}/return";
+    private static final String SEARCH = "GET search";
+    private static final Pattern ID = Pattern.compile("^\\{\"id\":(\\d+)");
+    
+    private final int clients;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final int poolSize;
+    private final String searchPath;
+    
+    private LoadTest(Map<String, String> options) {
+        this.clients = Integer.parseInt(options.getOrDefault("clients", "400"));
+        this.warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        this.poolSize = Integer.parseInt(options.getOrDefault("pool-size", "10"));
+        this.searchPath = options.getOrDefault("search", "/api/books/search");
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(pair[0], pair.length > 1 ? pair[1] : "true");
+        }
+        LoadTest loadTest = new LoadTest(options);
+        for (String mode : options.getOrDefault("modes", "platform,virtual").split(",")) {
+            if ("virtual".equals(mode) && Runtime.version().feature() < 21) {
+                System.out.printf("Skipping virtual mode: Java %d has no virtual threads%n", Runtime.version().feature());
+                continue;
+            }
+            loadTest.run(mode);
+        }
+    }
+    
+    private void run(String mode) throws Exception {
+        LibraryState library = new LibraryState();
+        library.books = 10000;
+        library.members = 1000;
+        library.transactions = 0;
+        List<String> properties = new ArrayList<>(List.of(
+            "server.port=0",
+            "spring.datasource.hikari.maximum-pool-size=" + poolSize));
+        if ("virtual".equals(mode)) {
+            properties.add("spring.profiles.active=virtual-threads");
+        }
+        library.start(WebApplicationType.SERVLET, properties.toArray(String[]::new));
+        try {
+            int port = ((WebServerApplicationContext) library.context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port;
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+            
+            drive(client, baseUrl, library, warmupSeconds);
+            Map<String, Stats> results = drive(client, baseUrl, library, durationSeconds);
+            
+            System.out.printf("%n== %s threads, %d clients, pool %d, %d s, search %s ==%n",
+                mode, clients, poolSize, durationSeconds, searchPath);
+            System.out.printf("%-34s %10s %10s %10s %10s %10s %8s%n",
+                "endpoint", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+            for (Map.Entry<String, Stats> entry : results.entrySet()) {
+                entry.getValue().print(entry.getKey(), durationSeconds);
+            }
+        } finally {
+            library.tearDown();
+        }
+    }
+    
+    private Map<String, Stats> drive(HttpClient client, String baseUrl, LibraryState library, int seconds)
+            throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<Map<String, Stats>>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            long seed = i;
+            long memberId = i % library.members + 1;
+            futures.add(executor.submit(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                Map<String, Stats> stats = Map.of(ISSUE, new Stats(), RETURN, new Stats(), SEARCH, new Stats());
+                start.await();
+                boolean write = random.nextBoolean();
+                Long loanId = null;
+                while (System.nanoTime() < deadline) {
+                    long started = System.nanoTime();
+                    if (!write) {
+                        HttpResponse<?> response = send(client, searchRequest(baseUrl + searchPath, random));
+                        stats.get(SEARCH).record(System.nanoTime() - started, statusOf(response));
+                    } else if (loanId == null) {
+                        HttpResponse<String> response = send(client, issueRequest(baseUrl, library, memberId, random));
+                        stats.get(ISSUE).record(System.nanoTime() - started, statusOf(response));
+                        loanId = statusOf(response) == 201 ? idOf(response.body()) : null;
+                    } else {
+                        HttpResponse<?> response = send(client, returnRequest(baseUrl, loanId));
+                        stats.get(RETURN).record(System.nanoTime() - started, statusOf(response));
+                        loanId = null;
+                    }
+                    write = !write;
+                }
+                // Leave the library as seeded for the next phase
+                if (loanId != null) {
+                    send(client, returnRequest(baseUrl, loanId));
+                }
+                return stats;
+            }));
+        }
+        start.countDown();
+        
+        Map<String, Stats> merged = Map.of(ISSUE, new Stats(), RETURN, new Stats(), SEARCH, new Stats());
+        for (Future<Map<String, Stats>> future : futures) {
+            future.get().forEach((endpoint, stats) -> merged.get(endpoint).merge(stats));
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        return merged;
+    }
+    
+    private static HttpResponse<String> send(HttpClient client, HttpRequest request) throws InterruptedException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+    
+    private static int statusOf(HttpResponse<?> response) {
+        return response == null ? -1 : response.statusCode();
+    }
+    
+    private static Long idOf(String transaction) {
+        Matcher matcher = ID.matcher(transaction);
+        return matcher.find() ? Long.valueOf(matcher.group(1)) : null;
+    }
+    
+    private static HttpRequest issueRequest(String baseUrl, LibraryState library, long memberId,
+                                            SplittableRandom random) {
+        long bookId = random.nextInt(library.books) + 1;
+        return HttpRequest.newBuilder(
+                URI.create(baseUrl + "/api/transactions/issue?bookId=" + bookId + "&memberId=" + memberId))
+            .POST(HttpRequest.BodyPublishers.noBody())
+            .build();
+    }
+    
+    private static HttpRequest returnRequest(String baseUrl, long transactionId) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions/" + transactionId + "/return"))
+            .PUT(HttpRequest.BodyPublishers.noBody())
+            .build();
+    }
+    
+    private static HttpRequest searchRequest(String searchUrl, SplittableRandom random) {
+        String title = LibraryState.WORDS[random.nextInt(LibraryState.WORDS.length)];
+        return HttpRequest.newBuilder(URI.create(searchUrl + "?title=" + title))
+            .GET()
+            .build();
+    }
+    
+    private static class Stats {
+        
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+        
+        void record(long nanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (status < 200 || status >= 300) {
+                errors++;
+            }
+        }
+        
+        void merge(Stats other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], 200);
+            }
+            errors += other.errors;
+        }
+        
+        void print(String endpoint, int seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            System.out.printf("%-34s %10.0f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                endpoint, (double) count / seconds,
+                millis(sorted, 0.5), millis(sorted, 0.99), millis(sorted, 0.999),
+                count == 0 ? 0.0 : sorted[count - 1] / 1e6, errors);
+        }
+        
+        private static double millis(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.library.benchmark;
+
+import com.library.entity.Book;
+import com.library.dto.TransactionSummary;
+import com.library.repository.BookRepository;
+import com.library.repository.TransactionRepository;
+import com.library.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read hot paths, each next to the baseline it replaced: the LIKE scan against
+ * the in-memory search index, and a repository lookup against the entity cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class RepositoryBenchmark {
+    
+    private BookRepository bookRepository;
+    private TransactionRepository transactionRepository;
+    private BookService bookService;
+    private SplittableRandom random;
+    
+    @Setup
+    public void setUp(LibraryState library) {
+        bookRepository = library.bean(BookRepository.class);
+        transactionRepository = library.bean(TransactionRepository.class);
+        bookService = library.bean(BookService.class);
+        random = new SplittableRandom();
+    }
+    
+    private String keyword() {
+        return LibraryState.WORDS[random.nextInt(LibraryState.WORDS.length)];
+    }
+    
+    @Benchmark
+    public List<Book> searchBooksLikeScan() {
+        return bookRepository.searchBooks(keyword());
+    }
+    
+    @Benchmark
+    public List<Book> searchBooksIndexed() {
+        return bookService.searchBooksByKeyword(keyword(), 0, 20);
+    }
+    
+    @Benchmark
+    public List<TransactionSummary> findActiveSummariesByMember(LibraryState library) {
+        List<Long> ids = transactionRepository.findActiveIdsByMember((long) random.nextInt(library.members) + 1);
+        return ids.isEmpty() ? List.of() : transactionRepository.findSummariesByIds(ids);
+    }
+    
+    @Benchmark
+    public Optional<Book> findBookByIdRepository(LibraryState library) {
+        return bookRepository.findById((long) random.nextInt(library.books) + 1);
+    }
+    
+    @Benchmark
+    public Book getBookByIdCached(LibraryState library) {
+        return bookService.getBookById((long) random.nextInt(library.books) + 1);
+    }
+}
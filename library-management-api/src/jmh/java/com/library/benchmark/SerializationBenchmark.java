@@ -0,0 +1,100 @@
+package com.library.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.TransactionSummary;
+import com.library.entity.Book;
+import com.library.entity.Transaction;
+import com.library.repository.BookRepository;
+import com.library.repository.TransactionRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes a page of transactions with their nested book and member, the
+ * same page as listing summaries, and a page of books, with the application's
+ * JSON and CBOR mappers. The encoded size of each page is printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    
+    @Param({"100"})
+    public int pageSize;
+    
+    private ObjectMapper objectMapper;
+    private ObjectMapper cborMapper;
+    private List<Transaction> transactions;
+    private List<TransactionSummary> summaries;
+    private List<Book> books;
+    
+    @Setup
+    public void setUp(LibraryState library) throws JsonProcessingException {
+        objectMapper = library.bean(ObjectMapper.class);
+        cborMapper = library.bean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+        TransactionRepository transactionRepository = library.bean(TransactionRepository.class);
+        summaries = transactionRepository.findSummariesByIdsOrderByDueDate(
+            transactionRepository.findIdsOrderByDueDate(PageRequest.of(0, pageSize)));
+        transactions = transactionRepository.findAllByIdWithBookAndMember(
+            summaries.stream().map(TransactionSummary::getId).toList());
+        books = library.bean(BookRepository.class).findAll(PageRequest.of(0, pageSize)).getContent();
+        
+        System.out.printf("%nBytes per page of %d: transaction graph JSON %d, CBOR %d, summaries JSON %d, "
+                + "summaries CBOR %d, books JSON %d, books CBOR %d%n", pageSize,
+            objectMapper.writeValueAsBytes(transactions).length,
+            cborMapper.writeValueAsBytes(transactions).length,
+            objectMapper.writeValueAsBytes(summaries).length,
+            cborMapper.writeValueAsBytes(summaries).length,
+            objectMapper.writeValueAsBytes(books).length,
+            cborMapper.writeValueAsBytes(books).length);
+    }
+    
+    @Benchmark
+    public byte[] serializeTransactionGraph() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(transactions);
+    }
+    
+    // The CBOR mapper writes each transaction as its flat summary
+    @Benchmark
+    public byte[] serializeTransactionGraphCbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(transactions);
+    }
+    
+    @Benchmark
+    public byte[] serializeTransactionSummaries() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+    
+    @Benchmark
+    public byte[] serializeTransactionSummariesCbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(summaries);
+    }
+    
+    @Benchmark
+    public byte[] serializeBooks() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(books);
+    }
+    
+    @Benchmark
+    public byte[] serializeBooksCbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(books);
+    }
+}
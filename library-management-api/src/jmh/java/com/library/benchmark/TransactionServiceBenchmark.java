@@ -0,0 +1,47 @@
+package com.library.benchmark;
+
+import com.library.entity.Transaction;
+import com.library.service.TransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout round trip: issue a copy and return it again, so copy counts stay
+ * stable however long the benchmark runs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class TransactionServiceBenchmark {
+    
+    private TransactionService transactionService;
+    private SplittableRandom random;
+    
+    @Setup
+    public void setUp(LibraryState library) {
+        transactionService = library.bean(TransactionService.class);
+        random = new SplittableRandom();
+    }
+    
+    @Benchmark
+    public Transaction issueAndReturnBook(LibraryState library) {
+        long bookId = random.nextInt(library.books) + 1;
+        long memberId = random.nextInt(library.members) + 1;
+        Transaction issued = transactionService.issueBook(bookId, memberId);
+        return transactionService.returnBook(issued.getId());
+    }
+}
@@ -2,8 +2,10 @@ package com.library;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+// R2DBC only serves non-transactional reads; a second transaction manager would make @Transactional ambiguous
+@SpringBootApplication(exclude = R2dbcTransactionManagerAutoConfiguration.class)
 public class LibraryManagementApplication {
     
     public static void main(String[] args) {
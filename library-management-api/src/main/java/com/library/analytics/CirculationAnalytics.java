@@ -0,0 +1,404 @@
+package com.library.analytics;
+
+import com.library.dto.LoanRow;
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.exception.BadRequestException;
+import com.library.journal.JournalRecord;
+import com.library.journal.TransactionJournal;
+import com.library.repository.ArchivedTransactionRepository;
+import com.library.repository.BookRepository;
+import com.library.repository.MemberRepository;
+import com.library.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Circulation reports computed from a {@link CirculationStore} instead of
+ * GROUP BYs over the live transactions table. The store is loaded once at
+ * startup and kept current from the transaction journal, which carries the
+ * after-image of every issue and return; with the journal disabled only new
+ * transactions are picked up between the periodic full rebuilds.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CirculationAnalytics {
+    
+    private static final int LOAD_BATCH_SIZE = 10_000;
+    private static final int MAX_LIMIT = 100;
+    
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final TransactionJournal transactionJournal;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private CirculationStore store = new CirculationStore(0, 0, 0);
+    private long journalSequence;
+    private LocalDateTime builtAt;
+    private LocalDateTime refreshedAt;
+    private long lastBuildMillis;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        rebuild();
+    }
+    
+    /**
+     * Loads a fresh store from the database and swaps it in, which also picks
+     * up changes the journal does not carry (renamed books, overdue marks).
+     */
+    @Scheduled(initialDelayString = "${library.reports.rebuild-interval:PT6H}",
+               fixedDelayString = "${library.reports.rebuild-interval:PT6H}")
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        // Taken before reading the table; replaying from here again is harmless because records are after-images
+        long sequence = transactionJournal.flushedSequence();
+        CirculationStore fresh = load();
+        List<JournalRecord> records = readJournal(sequence);
+        loadDimensions(fresh, records.stream().map(JournalRecord::bookId).toList(),
+            records.stream().map(JournalRecord::memberId).toList());
+        applyRecords(fresh, records);
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        
+        lock.writeLock().lock();
+        try {
+            store = fresh;
+            journalSequence = records.isEmpty() ? sequence : records.get(records.size() - 1).sequence();
+            builtAt = LocalDateTime.now();
+            refreshedAt = builtAt;
+            lastBuildMillis = buildMillis;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Circulation store built with {} loans, {} books and {} members in {} ms",
+            fresh.loanCount(), fresh.bookCount(), fresh.memberCount(), buildMillis);
+    }
+    
+    /**
+     * Applies what changed since the last refresh: journal records when the
+     * journal is on, otherwise transactions with a higher id than any loaded.
+     */
+    @Scheduled(initialDelayString = "${library.reports.refresh-interval:PT1M}",
+               fixedDelayString = "${library.reports.refresh-interval:PT1M}")
+    public synchronized void refresh() {
+        if (builtAt == null) {
+            return;
+        }
+        // Only this thread writes the store, so it may be read here without the lock
+        if (transactionJournal.isEnabled()) {
+            List<JournalRecord> records = readJournal(journalSequence);
+            loadDimensions(store, records.stream().map(JournalRecord::bookId).toList(),
+                records.stream().map(JournalRecord::memberId).toList());
+            lock.writeLock().lock();
+            try {
+                applyRecords(store, records);
+                if (!records.isEmpty()) {
+                    journalSequence = records.get(records.size() - 1).sequence();
+                }
+                refreshedAt = LocalDateTime.now();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } else {
+            List<LoanRow> rows = transactionRepository.findLoanRowsAfter(store.maxLoanId(),
+                PageRequest.of(0, LOAD_BATCH_SIZE));
+            while (!rows.isEmpty()) {
+                loadDimensions(store, rows.stream().map(LoanRow::getBookId).toList(),
+                    rows.stream().map(LoanRow::getMemberId).toList());
+                lock.writeLock().lock();
+                try {
+                    applyRows(store, rows);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                rows = transactionRepository.findLoanRowsAfter(store.maxLoanId(), PageRequest.of(0, LOAD_BATCH_SIZE));
+            }
+            refreshedAt = LocalDateTime.now();
+        }
+    }
+    
+    /**
+     * The most borrowed books of each category, or of one category, by loans
+     * issued between {@code from} and {@code to} inclusive.
+     */
+    public Map<String, Object> getTopBooksByCategory(String category, LocalDate from, LocalDate to, int limit) {
+        validate(from, to, limit);
+        lock.readLock().lock();
+        try {
+            long[] loans = store.loansPerBook(fromDay(from), toDay(to));
+            Dictionary categories = store.categories();
+            int only = category == null ? -1 : categories.find(category);
+            List<PriorityQueue<Integer>> tops = new ArrayList<>();
+            for (int code = 0; code < categories.size(); code++) {
+                tops.add(new PriorityQueue<>(Comparator.<Integer>comparingLong(slot -> loans[slot])
+                    .thenComparing(slot -> -store.bookId(slot))));
+            }
+            for (int slot = 0; slot < loans.length; slot++) {
+                int code = store.bookCategory(slot);
+                if (loans[slot] > 0 && (category == null || code == only)) {
+                    offer(tops.get(code), slot, limit);
+                }
+            }
+            
+            Map<String, Object> report = new TreeMap<>();
+            for (int code = 0; code < categories.size(); code++) {
+                if (!tops.get(code).isEmpty()) {
+                    List<Map<String, Object>> books = new ArrayList<>();
+                    for (Integer slot : drain(tops.get(code))) {
+                        Map<String, Object> book = new LinkedHashMap<>();
+                        book.put("bookId", store.bookId(slot));
+                        book.put("title", store.bookTitle(slot));
+                        book.put("loans", loans[slot]);
+                        books.add(book);
+                    }
+                    report.put(categories.decode(code), books);
+                }
+            }
+            return report;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Members with the most loans issued between {@code from} and {@code to} inclusive.
+     */
+    public List<Map<String, Object>> getBusiestMembers(LocalDate from, LocalDate to, int limit) {
+        validate(from, to, limit);
+        lock.readLock().lock();
+        try {
+            long[] loans = store.loansPerMember(fromDay(from), toDay(to));
+            PriorityQueue<Integer> top = new PriorityQueue<>(Comparator.<Integer>comparingLong(slot -> loans[slot])
+                .thenComparing(slot -> -store.memberId(slot)));
+            for (int slot = 0; slot < loans.length; slot++) {
+                if (loans[slot] > 0) {
+                    offer(top, slot, limit);
+                }
+            }
+            List<Map<String, Object>> members = new ArrayList<>();
+            for (Integer slot : drain(top)) {
+                Map<String, Object> member = new LinkedHashMap<>();
+                member.put("memberId", store.memberId(slot));
+                member.put("name", store.memberName(slot));
+                member.put("membershipType", store.membershipTypes().decode(store.memberType(slot)));
+                member.put("loans", loans[slot]);
+                members.add(member);
+            }
+            return members;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Fines assessed on returns between {@code from} and {@code to} inclusive, per month.
+     */
+    public List<Map<String, Object>> getFinesByMonth(LocalDate from, LocalDate to) {
+        validate(from, to, 1);
+        lock.readLock().lock();
+        try {
+            int fromDay = fromDay(from);
+            int toDay = toDay(to);
+            int[] range = store.returnDayRange(fromDay, toDay);
+            if (range == null) {
+                return List.of();
+            }
+            int firstMonth = CirculationStore.monthOf(range[0]);
+            double[] totals = store.finesPerMonth(fromDay, toDay, firstMonth, CirculationStore.monthOf(range[1]));
+            List<Map<String, Object>> months = new ArrayList<>();
+            for (int i = 0; i < totals.length / 2; i++) {
+                int month = firstMonth + i;
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("month", YearMonth.of(month / 12, month % 12 + 1).toString());
+                row.put("returns", (long) totals[i * 2]);
+                row.put("fines", Math.round(totals[i * 2 + 1] * 100) / 100.0);
+                months.add(row);
+            }
+            return months;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Average days from issue to return per membership type, for loans returned
+     * between {@code from} and {@code to} inclusive.
+     */
+    public Map<String, Object> getLoanLengthByMembershipType(LocalDate from, LocalDate to) {
+        validate(from, to, 1);
+        lock.readLock().lock();
+        try {
+            long[] totals = store.loanDaysPerMembershipType(fromDay(from), toDay(to));
+            Map<String, Object> report = new TreeMap<>();
+            for (int code = 0; code < totals.length / 2; code++) {
+                long returned = totals[code * 2];
+                if (returned > 0) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("returnedLoans", returned);
+                    row.put("averageDays", Math.round(totals[code * 2 + 1] * 100.0 / returned) / 100.0);
+                    report.put(store.membershipTypes().decode(code), row);
+                }
+            }
+            return report;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Map<String, Object> status() {
+        lock.readLock().lock();
+        try {
+            long[] open = store.openLoans((int) LocalDate.now().toEpochDay());
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("loans", store.loanCount());
+            status.put("onLoan", open[0]);
+            status.put("pastDue", open[1]);
+            status.put("books", store.bookCount());
+            status.put("members", store.memberCount());
+            status.put("source", transactionJournal.isEnabled() ? "journal" : "table");
+            status.put("journalSequence", journalSequence);
+            status.put("builtAt", builtAt);
+            status.put("buildMillis", lastBuildMillis);
+            status.put("refreshedAt", refreshedAt);
+            return status;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private CirculationStore load() {
+        PageRequest batchSize = PageRequest.of(0, LOAD_BATCH_SIZE);
+        CirculationStore fresh = new CirculationStore((int) bookRepository.count(), (int) memberRepository.count(),
+            (int) (transactionRepository.count() + archivedTransactionRepository.count()));
+        List<Book> books = bookRepository.findByIdGreaterThanOrderByIdAsc(0L, batchSize);
+        while (!books.isEmpty()) {
+            books.forEach(book -> fresh.putBook(book.getId(), book.getTitle(), book.getCategory()));
+            books = bookRepository.findByIdGreaterThanOrderByIdAsc(books.get(books.size() - 1).getId(), batchSize);
+        }
+        List<Member> members = memberRepository.findByIdGreaterThanOrderByIdAsc(0L, batchSize);
+        while (!members.isEmpty()) {
+            members.forEach(member -> fresh.putMember(member.getId(), member.getName(), member.getMembershipType()));
+            members = memberRepository.findByIdGreaterThanOrderByIdAsc(members.get(members.size() - 1).getId(),
+                batchSize);
+        }
+        List<LoanRow> rows = transactionRepository.findLoanRowsAfter(0L, batchSize);
+        while (!rows.isEmpty()) {
+            applyRows(fresh, rows);
+            rows = transactionRepository.findLoanRowsAfter(rows.get(rows.size() - 1).getId(), batchSize);
+        }
+        // Read after the live table, so a loan archived during the load is still found in one of the two
+        rows = archivedTransactionRepository.findLoanRowsAfter(0L, batchSize);
+        while (!rows.isEmpty()) {
+            applyRows(fresh, rows);
+            rows = archivedTransactionRepository.findLoanRowsAfter(rows.get(rows.size() - 1).getId(), batchSize);
+        }
+        return fresh;
+    }
+    
+    private List<JournalRecord> readJournal(long afterSequence) {
+        List<JournalRecord> records = new ArrayList<>();
+        if (transactionJournal.isEnabled()) {
+            transactionJournal.scanAfter(afterSequence, records::add);
+        }
+        return records;
+    }
+    
+    /**
+     * Looks up books and members the store has not seen yet, before the write lock is taken.
+     */
+    private void loadDimensions(CirculationStore target, List<Long> bookIds, List<Long> memberIds) {
+        Set<Long> newBooks = new HashSet<>();
+        bookIds.stream().filter(id -> !target.hasBook(id)).forEach(newBooks::add);
+        Set<Long> newMembers = new HashSet<>();
+        memberIds.stream().filter(id -> !target.hasMember(id)).forEach(newMembers::add);
+        if (newBooks.isEmpty() && newMembers.isEmpty()) {
+            return;
+        }
+        List<Book> books = newBooks.isEmpty() ? List.of() : bookRepository.findAllById(newBooks);
+        List<Member> members = newMembers.isEmpty() ? List.of() : memberRepository.findAllById(newMembers);
+        lock.writeLock().lock();
+        try {
+            books.forEach(book -> target.putBook(book.getId(), book.getTitle(), book.getCategory()));
+            members.forEach(member -> target.putMember(member.getId(), member.getName(), member.getMembershipType()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private static void applyRecords(CirculationStore target, List<JournalRecord> records) {
+        for (JournalRecord record : records) {
+            target.putLoan(record.transactionId(), record.bookId(), record.memberId(), record.issueDate(),
+                record.dueDate(), record.returnDate(), record.status(), record.fine());
+        }
+    }
+    
+    private static void applyRows(CirculationStore target, List<LoanRow> rows) {
+        for (LoanRow row : rows) {
+            target.putLoan(row.getId(), row.getBookId(), row.getMemberId(), row.getIssueDate(), row.getDueDate(),
+                row.getReturnDate(), row.getStatus(), row.getFine() == null ? 0.0 : row.getFine());
+        }
+    }
+    
+    /**
+     * Keeps the {@code limit} largest slots in a min-heap.
+     */
+    private static void offer(PriorityQueue<Integer> top, int slot, int limit) {
+        top.offer(slot);
+        if (top.size() > limit) {
+            top.poll();
+        }
+    }
+    
+    /**
+     * Empties the heap, largest first.
+     */
+    private static List<Integer> drain(PriorityQueue<Integer> top) {
+        List<Integer> slots = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            slots.add(0, top.poll());
+        }
+        return slots;
+    }
+    
+    private static void validate(LocalDate from, LocalDate to, int limit) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BadRequestException("from must not be after to");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+    
+    private static int fromDay(LocalDate from) {
+        return from == null ? Integer.MIN_VALUE + 1 : CirculationStore.toDay(from);
+    }
+    
+    private static int toDay(LocalDate to) {
+        return to == null ? Integer.MAX_VALUE : CirculationStore.toDay(to);
+    }
+}
@@ -0,0 +1,339 @@
+package com.library.analytics;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar copy of the circulation data: one primitive array per column, books
+ * and members as dimension slots, and one row per transaction that refers to
+ * them by slot. Categories, membership types and statuses are dictionary
+ * encoded and dates are epoch days, so a row costs about 40 bytes and an
+ * aggregation is a scan over a few arrays.
+ * <p>
+ * Not thread-safe: writers are serialised by {@link CirculationAnalytics},
+ * which also keeps readers out while a batch is applied. Large scans run in
+ * parallel on the common fork-join pool, each worker summing into its own
+ * array before the partial results are merged.
+ */
+final class CirculationStore {
+    
+    static final int NO_DATE = Integer.MIN_VALUE;
+    static final String UNKNOWN = "Unknown";
+    
+    private static final int PARALLEL_THRESHOLD = 10_000;
+    private static final String RETURNED = "RETURNED";
+    
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary membershipTypes = new Dictionary();
+    private final Dictionary statuses = new Dictionary();
+    private final byte returnedStatus = (byte) statuses.encode(RETURNED);
+    
+    // Book dimension, one slot per book
+    private final LongIntMap bookSlots;
+    private long[] bookIds;
+    private String[] bookTitles;
+    private int[] bookCategories;
+    private int bookCount;
+    
+    // Member dimension, one slot per member
+    private final LongIntMap memberSlots;
+    private long[] memberIds;
+    private String[] memberNames;
+    private int[] memberTypes;
+    private int memberCount;
+    
+    // Loan facts, one row per transaction
+    private final LongIntMap loanRows;
+    private long[] loanIds;
+    private int[] loanBooks;
+    private int[] loanMembers;
+    private int[] issueDays;
+    private int[] dueDays;
+    private int[] returnDays;
+    private byte[] loanStatuses;
+    private double[] fines;
+    private int loanCount;
+    private long maxLoanId;
+    
+    CirculationStore(int expectedBooks, int expectedMembers, int expectedLoans) {
+        int books = Math.max(16, expectedBooks);
+        int members = Math.max(16, expectedMembers);
+        int loans = Math.max(16, expectedLoans);
+        bookSlots = new LongIntMap(books);
+        bookIds = new long[books];
+        bookTitles = new String[books];
+        bookCategories = new int[books];
+        memberSlots = new LongIntMap(members);
+        memberIds = new long[members];
+        memberNames = new String[members];
+        memberTypes = new int[members];
+        loanRows = new LongIntMap(loans);
+        loanIds = new long[loans];
+        loanBooks = new int[loans];
+        loanMembers = new int[loans];
+        issueDays = new int[loans];
+        dueDays = new int[loans];
+        returnDays = new int[loans];
+        loanStatuses = new byte[loans];
+        fines = new double[loans];
+    }
+    
+    boolean hasBook(long id) {
+        return bookSlots.get(id) >= 0;
+    }
+    
+    boolean hasMember(long id) {
+        return memberSlots.get(id) >= 0;
+    }
+    
+    void putBook(long id, String title, String category) {
+        int slot = bookSlots.get(id);
+        if (slot < 0) {
+            if (bookCount == bookIds.length) {
+                int capacity = bookCount * 2;
+                bookIds = Arrays.copyOf(bookIds, capacity);
+                bookTitles = Arrays.copyOf(bookTitles, capacity);
+                bookCategories = Arrays.copyOf(bookCategories, capacity);
+            }
+            slot = bookCount++;
+            bookSlots.put(id, slot);
+            bookIds[slot] = id;
+        }
+        bookTitles[slot] = title;
+        bookCategories[slot] = categories.encode(category == null || category.isBlank() ? UNKNOWN : category);
+    }
+    
+    void putMember(long id, String name, String membershipType) {
+        int slot = memberSlots.get(id);
+        if (slot < 0) {
+            if (memberCount == memberIds.length) {
+                int capacity = memberCount * 2;
+                memberIds = Arrays.copyOf(memberIds, capacity);
+                memberNames = Arrays.copyOf(memberNames, capacity);
+                memberTypes = Arrays.copyOf(memberTypes, capacity);
+            }
+            slot = memberCount++;
+            memberSlots.put(id, slot);
+            memberIds[slot] = id;
+        }
+        memberNames[slot] = name;
+        memberTypes[slot] = membershipTypes.encode(membershipType == null ? UNKNOWN : membershipType);
+    }
+    
+    /**
+     * Inserts or replaces the row of one transaction. A returned loan is final,
+     * so an older image of it arriving late is ignored.
+     */
+    void putLoan(long id, long bookId, long memberId, LocalDate issueDate, LocalDate dueDate,
+                 LocalDate returnDate, String status, double fine) {
+        int row = loanRows.get(id);
+        if (row < 0) {
+            if (loanCount == loanIds.length) {
+                growLoans();
+            }
+            row = loanCount++;
+            loanRows.put(id, row);
+            loanIds[row] = id;
+            maxLoanId = Math.max(maxLoanId, id);
+        } else if (loanStatuses[row] == returnedStatus && !RETURNED.equals(status)) {
+            return;
+        }
+        if (!hasBook(bookId)) {
+            putBook(bookId, null, UNKNOWN);
+        }
+        if (!hasMember(memberId)) {
+            putMember(memberId, null, UNKNOWN);
+        }
+        loanBooks[row] = bookSlots.get(bookId);
+        loanMembers[row] = memberSlots.get(memberId);
+        issueDays[row] = toDay(issueDate);
+        dueDays[row] = toDay(dueDate);
+        returnDays[row] = toDay(returnDate);
+        loanStatuses[row] = (byte) statuses.encode(status);
+        fines[row] = fine;
+    }
+    
+    /**
+     * Loans issued in {@code [fromDay, toDay]}, per book slot.
+     */
+    long[] loansPerBook(int fromDay, int toDay) {
+        int[] issued = issueDays;
+        int[] books = loanBooks;
+        return rows().collect(() -> new long[bookCount], (counts, row) -> {
+            int day = issued[row];
+            if (day >= fromDay && day <= toDay) {
+                counts[books[row]]++;
+            }
+        }, CirculationStore::merge);
+    }
+    
+    /**
+     * Loans issued in {@code [fromDay, toDay]}, per member slot.
+     */
+    long[] loansPerMember(int fromDay, int toDay) {
+        int[] issued = issueDays;
+        int[] members = loanMembers;
+        return rows().collect(() -> new long[memberCount], (counts, row) -> {
+            int day = issued[row];
+            if (day >= fromDay && day <= toDay) {
+                counts[members[row]]++;
+            }
+        }, CirculationStore::merge);
+    }
+    
+    /**
+     * Returns in {@code [fromDay, toDay]} per membership type code, as pairs of
+     * {@code [returned loans, total loan days]}.
+     */
+    long[] loanDaysPerMembershipType(int fromDay, int toDay) {
+        int[] issued = issueDays;
+        int[] returned = returnDays;
+        int[] members = loanMembers;
+        int[] types = memberTypes;
+        return rows().collect(() -> new long[membershipTypes.size() * 2], (totals, row) -> {
+            int day = returned[row];
+            if (day != NO_DATE && day >= fromDay && day <= toDay) {
+                int type = types[members[row]];
+                totals[type * 2]++;
+                totals[type * 2 + 1] += day - issued[row];
+            }
+        }, CirculationStore::merge);
+    }
+    
+    /**
+     * Fines assessed on returns in {@code [fromDay, toDay]} per calendar month,
+     * as pairs of {@code [returned loans, fines]} indexed from {@code firstMonth}
+     * (months counted as {@code year * 12 + month - 1}). Empty when nothing was returned.
+     */
+    double[] finesPerMonth(int fromDay, int toDay, int firstMonth, int lastMonth) {
+        int[] returned = returnDays;
+        double[] assessed = fines;
+        int months = lastMonth - firstMonth + 1;
+        return rows().collect(() -> new double[months * 2], (totals, row) -> {
+            int day = returned[row];
+            if (day != NO_DATE && day >= fromDay && day <= toDay) {
+                int month = monthOf(day) - firstMonth;
+                totals[month * 2]++;
+                totals[month * 2 + 1] += assessed[row];
+            }
+        }, (left, right) -> {
+            for (int i = 0; i < left.length; i++) {
+                left[i] += right[i];
+            }
+        });
+    }
+    
+    /**
+     * Loans not yet returned, as {@code [on loan, past their due date on today]}.
+     */
+    long[] openLoans(int today) {
+        int[] returned = returnDays;
+        int[] due = dueDays;
+        return rows().collect(() -> new long[2], (counts, row) -> {
+            if (returned[row] == NO_DATE) {
+                counts[0]++;
+                if (due[row] < today) {
+                    counts[1]++;
+                }
+            }
+        }, CirculationStore::merge);
+    }
+    
+    /**
+     * Smallest and largest return day in {@code [fromDay, toDay]}, or null when there is none.
+     */
+    int[] returnDayRange(int fromDay, int toDay) {
+        int[] returned = returnDays;
+        int[] range = rows().map(row -> returned[row])
+            .filter(day -> day != NO_DATE && day >= fromDay && day <= toDay)
+            .collect(() -> new int[] {Integer.MAX_VALUE, Integer.MIN_VALUE}, (bounds, day) -> {
+                bounds[0] = Math.min(bounds[0], day);
+                bounds[1] = Math.max(bounds[1], day);
+            }, (left, right) -> {
+                left[0] = Math.min(left[0], right[0]);
+                left[1] = Math.max(left[1], right[1]);
+            });
+        return range[0] > range[1] ? null : range;
+    }
+    
+    static int monthOf(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+    
+    static int toDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+    
+    long bookId(int slot) {
+        return bookIds[slot];
+    }
+    
+    String bookTitle(int slot) {
+        return bookTitles[slot];
+    }
+    
+    int bookCategory(int slot) {
+        return bookCategories[slot];
+    }
+    
+    long memberId(int slot) {
+        return memberIds[slot];
+    }
+    
+    String memberName(int slot) {
+        return memberNames[slot];
+    }
+    
+    int memberType(int slot) {
+        return memberTypes[slot];
+    }
+    
+    Dictionary categories() {
+        return categories;
+    }
+    
+    Dictionary membershipTypes() {
+        return membershipTypes;
+    }
+    
+    int bookCount() {
+        return bookCount;
+    }
+    
+    int memberCount() {
+        return memberCount;
+    }
+    
+    int loanCount() {
+        return loanCount;
+    }
+    
+    long maxLoanId() {
+        return maxLoanId;
+    }
+    
+    private IntStream rows() {
+        IntStream rows = IntStream.range(0, loanCount);
+        return loanCount >= PARALLEL_THRESHOLD ? rows.parallel() : rows;
+    }
+    
+    private void growLoans() {
+        int capacity = loanCount * 2;
+        loanIds = Arrays.copyOf(loanIds, capacity);
+        loanBooks = Arrays.copyOf(loanBooks, capacity);
+        loanMembers = Arrays.copyOf(loanMembers, capacity);
+        issueDays = Arrays.copyOf(issueDays, capacity);
+        dueDays = Arrays.copyOf(dueDays, capacity);
+        returnDays = Arrays.copyOf(returnDays, capacity);
+        loanStatuses = Arrays.copyOf(loanStatuses, capacity);
+        fines = Arrays.copyOf(fines, capacity);
+    }
+    
+    private static void merge(long[] left, long[] right) {
+        for (int i = 0; i < left.length; i++) {
+            left[i] += right[i];
+        }
+    }
+}
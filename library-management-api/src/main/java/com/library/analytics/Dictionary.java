@@ -0,0 +1,41 @@
+package com.library.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding for a low-cardinality string column: each distinct value
+ * is stored once and rows hold its int code.
+ */
+final class Dictionary {
+    
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    
+    int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+    
+    /**
+     * Code of a value already in the dictionary, -1 otherwise.
+     */
+    int find(String value) {
+        return codes.getOrDefault(value, -1);
+    }
+    
+    String decode(int code) {
+        return values.get(code);
+    }
+    
+    int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,35 @@
+package com.library.config;
+
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.service.EntityCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+    
+    @Value("${library.cache.maximum-size:10000}")
+    private long maximumSize;
+    
+    @Value("${library.cache.expire-after-write:10m}")
+    private Duration expireAfterWrite;
+    
+    @Bean
+    public EntityCache<Book> bookCache(MeterRegistry meterRegistry) {
+        EntityCache<Book> cache = new EntityCache<>(maximumSize, expireAfterWrite, Book::getId, Book::getIsbn);
+        cache.bindTo(meterRegistry, "books");
+        return cache;
+    }
+    
+    @Bean
+    public EntityCache<Member> memberCache(MeterRegistry meterRegistry) {
+        EntityCache<Member> cache = new EntityCache<>(maximumSize, expireAfterWrite, Member::getId, Member::getEmail);
+        cache.bindTo(meterRegistry, "members");
+        return cache;
+    }
+}
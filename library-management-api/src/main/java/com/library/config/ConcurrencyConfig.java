@@ -0,0 +1,91 @@
+package com.library.config;
+
+import com.library.concurrency.BulkheadDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Request execution mode. Virtual threads are switched on with Spring Boot's
+ * {@code spring.threads.virtual.enabled} (Java 21+); the {@code virtual-threads}
+ * profile also turns on the database bulkhead.
+ */
+@Configuration
+@Slf4j
+public class ConcurrencyConfig {
+    
+    private static final int DEFAULT_POOL_SIZE = 10;
+    
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+    
+    /**
+     * Puts a {@link BulkheadDataSource} in front of the pool. Permits default to
+     * the pool's maximum size. Static so the post-processor is registered before
+     * the DataSource is created.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "library.db.bulkhead.enabled", havingValue = "true")
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor(
+            @Value("${library.db.bulkhead.permits:0}") int permits,
+            @Value("${library.db.bulkhead.max-wait:5s}") Duration maxWait,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+                    int size = permits > 0 ? permits : poolSize(dataSource);
+                    BulkheadDataSource bulkhead = new BulkheadDataSource(dataSource, size, maxWait);
+                    bindMetrics(bulkhead, meterRegistry.getObject());
+                    log.info("Database bulkhead enabled with {} permits, max wait {}", size, maxWait);
+                    return bulkhead;
+                }
+                return bean;
+            }
+        };
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void logExecutionMode() {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; " +
+                "requests run on platform threads", Runtime.version().feature());
+        } else {
+            log.info("Handling requests on {} threads", virtualThreads ? "virtual" : "platform");
+        }
+    }
+    
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                int size = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                return size > 0 ? size : DEFAULT_POOL_SIZE;
+            }
+        } catch (SQLException ex) {
+            log.warn("Could not read the pool size, using {}", DEFAULT_POOL_SIZE, ex);
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+    
+    private static void bindMetrics(BulkheadDataSource bulkhead, MeterRegistry meterRegistry) {
+        Gauge.builder("library.db.bulkhead.available", bulkhead, BulkheadDataSource::getAvailablePermits)
+            .description("Database permits not currently in use")
+            .register(meterRegistry);
+        Gauge.builder("library.db.bulkhead.waiting", bulkhead, BulkheadDataSource::getQueueLength)
+            .description("Threads waiting for a database permit")
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,31 @@
+package com.library.config;
+
+import com.library.metrics.MeteredDataSource;
+import com.library.metrics.QueryMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class MetricsConfig {
+    
+    /**
+     * Wraps the pooled DataSource so JDBC statements are timed. Static so the
+     * post-processor is registered before the DataSource is created.
+     */
+    @Bean
+    public static BeanPostProcessor meteredDataSourcePostProcessor(ObjectProvider<QueryMetrics> queryMetrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof MeteredDataSource)) {
+                    return new MeteredDataSource(dataSource, queryMetrics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.library.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.std.StdDelegatingSerializer;
+import com.fasterxml.jackson.databind.util.StdConverter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.library.dto.TransactionSummary;
+import com.library.entity.Transaction;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    
+    /**
+     * Serves {@code application/cbor} next to JSON. Built from the same builder
+     * as the JSON mapper so modules and features match, except that dates go
+     * out as numeric arrays rather than ISO strings and a transaction goes out
+     * as its flat summary instead of with the nested book and member.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper cborMapper = builder.createXmlMapper(false)
+            .factory(new CBORFactory())
+            .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .serializerByType(Transaction.class, new StdDelegatingSerializer(
+                new StdConverter<Transaction, TransactionSummary>() {
+                    @Override
+                    public TransactionSummary convert(Transaction transaction) {
+                        return TransactionSummary.of(transaction);
+                    }
+                }))
+            .build();
+        return new MappingJackson2CborHttpMessageConverter(cborMapper);
+    }
+    
+    /**
+     * The same URL answers in JSON or CBOR, so caches must key on Accept too.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                return true;
+            }
+        }).addPathPatterns("/api/books/**", "/api/members/**", "/api/transactions/**");
+    }
+}
@@ -1,19 +1,34 @@
 package com.library.controller;
 
+import com.library.dto.CursorPage;
+import com.library.dto.ImportResult;
 import com.library.entity.Book;
 import com.library.service.BookService;
+import com.library.service.BookSnapshots;
+import com.library.service.ExportService;
+import com.library.service.ImportService;
+import com.library.service.ResourceVersions;
+import com.library.support.Representations;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/books")
@@ -21,6 +36,10 @@ import java.util.Map;
 public class BookController {
     
     private final BookService bookService;
+    private final ExportService exportService;
+    private final ImportService importService;
+    private final ResourceVersions resourceVersions;
+    private final BookSnapshots bookSnapshots;
     
     @PostMapping
     public ResponseEntity<Book> createBook(@Valid @RequestBody Book book) {
@@ -28,8 +47,32 @@ public class BookController {
         return new ResponseEntity<>(createdBook, HttpStatus.CREATED);
     }
     
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportResult> importBooks(@RequestBody List<Book> books) {
+        ImportResult result = importService.importBooks(books);
+        return ResponseEntity.ok(result);
+    }
+    
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportResult> importBooksCsv(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream csv = file.getInputStream()) {
+            ImportResult result = importService.importBooksCsv(csv);
+            return ResponseEntity.ok(result);
+        }
+    }
+    
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
+    public ResponseEntity<?> getAllBooks(@RequestHeader HttpHeaders headers, WebRequest request) {
+        ResourceVersions.Version version = resourceVersions.books();
+        // A snapshot is tagged per format and coding and answers conditional requests itself
+        ResponseEntity<byte[]> snapshot = bookSnapshots.find(BookSnapshots.Collection.ALL, version, headers);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        ResourceVersions.Version tagged = version.in(Representations.negotiate(headers.getAccept()));
+        if (request.checkNotModified(tagged.etag(), tagged.lastModified())) {
+            return null;
+        }
         List<Book> books = bookService.getAllBooks();
         return ResponseEntity.ok(books);
     }
@@ -51,8 +94,43 @@ public class BookController {
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<Book>> getAllBooksWithCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<Book> books = bookService.getBooksAfter(cursor, size, includeTotal);
+        return ResponseEntity.ok(books);
+    }
+    
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out);
+                exportService.exportBooks(gzipOut);
+                gzipOut.finish();
+            } else {
+                exportService.exportBooks(out);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
+    public ResponseEntity<Book> getBookById(@PathVariable Long id, @RequestHeader HttpHeaders headers,
+                                            WebRequest request) {
+        MediaType format = Representations.negotiate(headers.getAccept());
+        // Versions are read before the row, so a change in between only costs the client a refetch
+        ResourceVersions.Version version = resourceVersions.book(id).in(format);
+        if (request.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
         Book book = bookService.getBookById(id);
         return ResponseEntity.ok(book);
     }
@@ -82,20 +160,50 @@ public class BookController {
     @GetMapping("/search")
     public ResponseEntity<List<Book>> searchBooks(
             @RequestParam(required = false) String title,
-            @RequestParam(required = false) String author) {
-        List<Book> books = bookService.searchBooks(title, author);
+            @RequestParam(required = false) String author,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        List<Book> books = bookService.searchBooks(title, author, page, size);
         return ResponseEntity.ok(books);
     }
     
     @GetMapping("/search/keyword")
-    public ResponseEntity<List<Book>> searchBooksByKeyword(@RequestParam String keyword) {
-        List<Book> books = bookService.searchBooksByKeyword(keyword);
+    public ResponseEntity<List<Book>> searchBooksByKeyword(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        List<Book> books = bookService.searchBooksByKeyword(keyword, page, size);
         return ResponseEntity.ok(books);
     }
     
     @GetMapping("/available")
-    public ResponseEntity<List<Book>> getAvailableBooks() {
+    public ResponseEntity<?> getAvailableBooks(@RequestHeader HttpHeaders headers, WebRequest request) {
+        ResourceVersions.Version version = resourceVersions.books();
+        ResponseEntity<byte[]> snapshot = bookSnapshots.find(BookSnapshots.Collection.AVAILABLE, version, headers);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        ResourceVersions.Version tagged = version.in(Representations.negotiate(headers.getAccept()));
+        if (request.checkNotModified(tagged.etag(), tagged.lastModified())) {
+            return null;
+        }
         List<Book> books = bookService.getAvailableBooks();
         return ResponseEntity.ok(books);
     }
+    
+    @GetMapping("/browse")
+    public ResponseEntity<CursorPage<Book>> browseBooks(
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "false") boolean availableOnly,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<Book> books = bookService.browseBooks(category, availableOnly, cursor, size, includeTotal);
+        return ResponseEntity.ok(books);
+    }
+    
+    @GetMapping("/facets")
+    public ResponseEntity<Map<String, Object>> getFacets() {
+        return ResponseEntity.ok(bookService.getFacetCounts());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.library.controller;
+
+import com.library.service.BookService;
+import com.library.service.MemberService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+public class CacheController {
+    
+    private final BookService bookService;
+    private final MemberService memberService;
+    
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("books", bookService.getCacheStats());
+        response.put("members", memberService.getCacheStats());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,66 @@
+package com.library.controller;
+
+import com.library.entity.Book;
+import com.library.service.CatalogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Read-only catalog browsing on the non-blocking stack. Lists are a JSON array
+ * by default; with {@code Accept: application/x-ndjson} books are written one
+ * per line as they arrive, with backpressure from the client connection.
+ */
+@RestController
+@RequestMapping("/api/catalog/books")
+@RequiredArgsConstructor
+public class CatalogController {
+    
+    private final CatalogService catalogService;
+    
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<List<Book>> getAllBooks() {
+        return catalogService.getAllBooks().collectList();
+    }
+    
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Book> streamAllBooks() {
+        return catalogService.getAllBooks();
+    }
+    
+    @GetMapping("/{id}")
+    public Mono<Book> getBookById(@PathVariable Long id) {
+        return catalogService.getBookById(id);
+    }
+    
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<List<Book>> searchBooks(
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) String author,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return catalogService.searchBooks(title, author, page, size).collectList();
+    }
+    
+    @GetMapping(value = "/search/keyword", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<List<Book>> searchBooksByKeyword(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return catalogService.searchBooksByKeyword(keyword, page, size).collectList();
+    }
+    
+    @GetMapping(value = "/available", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<List<Book>> getAvailableBooks() {
+        return catalogService.getAvailableBooks().collectList();
+    }
+    
+    @GetMapping(value = "/available", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Book> streamAvailableBooks() {
+        return catalogService.getAvailableBooks();
+    }
+}
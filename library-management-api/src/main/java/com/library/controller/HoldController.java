@@ -0,0 +1,55 @@
+package com.library.controller;
+
+import com.library.dto.CursorPage;
+import com.library.dto.HoldSummary;
+import com.library.service.HoldService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/holds")
+@RequiredArgsConstructor
+public class HoldController {
+    
+    private final HoldService holdService;
+    
+    @PostMapping
+    public ResponseEntity<HoldSummary> placeHold(
+            @RequestParam Long bookId,
+            @RequestParam Long memberId) {
+        HoldSummary hold = holdService.placeHold(bookId, memberId);
+        return new ResponseEntity<>(hold, HttpStatus.CREATED);
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<HoldSummary> getHold(@PathVariable Long id) {
+        HoldSummary hold = holdService.getHold(id);
+        return ResponseEntity.ok(hold);
+    }
+    
+    @DeleteMapping("/{id}")
+    public ResponseEntity<HoldSummary> cancelHold(@PathVariable Long id) {
+        HoldSummary hold = holdService.cancelHold(id);
+        return ResponseEntity.ok(hold);
+    }
+    
+    @GetMapping("/member/{memberId}")
+    public ResponseEntity<List<HoldSummary>> getActiveHoldsByMember(@PathVariable Long memberId) {
+        List<HoldSummary> holds = holdService.getActiveHoldsByMember(memberId);
+        return ResponseEntity.ok(holds);
+    }
+    
+    @GetMapping("/book/{bookId}")
+    public ResponseEntity<CursorPage<HoldSummary>> getQueue(
+            @PathVariable Long bookId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<HoldSummary> holds = holdService.getQueue(bookId, cursor, size, includeTotal);
+        return ResponseEntity.ok(holds);
+    }
+}
@@ -0,0 +1,37 @@
+package com.library.controller;
+
+import com.library.service.LookupIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typo-tolerant lookup of books and members; {@code type} narrows the results
+ * to {@code book} or {@code member}.
+ */
+@RestController
+@RequestMapping("/api/lookup")
+@RequiredArgsConstructor
+public class LookupController {
+    
+    private final LookupIndex lookupIndex;
+    
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> suggest(
+            @RequestParam String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(lookupIndex.suggest(q, type, limit));
+    }
+    
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<Map<String, Object>>> autocomplete(
+            @RequestParam String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(lookupIndex.autocomplete(q, type, limit));
+    }
+}
@@ -1,13 +1,25 @@
 package com.library.controller;
 
+import com.library.dto.CursorPage;
+import com.library.dto.ImportResult;
 import com.library.entity.Member;
+import com.library.service.BorrowingService;
+import com.library.service.ImportService;
 import com.library.service.MemberService;
+import com.library.service.ResourceVersions;
+import com.library.support.Representations;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +30,9 @@ import java.util.Map;
 public class MemberController {
     
     private final MemberService memberService;
+    private final ImportService importService;
+    private final BorrowingService borrowingService;
+    private final ResourceVersions resourceVersions;
     
     @PostMapping
     public ResponseEntity<Member> createMember(@Valid @RequestBody Member member) {
@@ -25,14 +40,48 @@ public class MemberController {
         return new ResponseEntity<>(createdMember, HttpStatus.CREATED);
     }
     
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportResult> importMembers(@RequestBody List<Member> members) {
+        ImportResult result = importService.importMembers(members);
+        return ResponseEntity.ok(result);
+    }
+    
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportResult> importMembersCsv(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream csv = file.getInputStream()) {
+            ImportResult result = importService.importMembersCsv(csv);
+            return ResponseEntity.ok(result);
+        }
+    }
+    
     @GetMapping
-    public ResponseEntity<List<Member>> getAllMembers() {
+    public ResponseEntity<List<Member>> getAllMembers(@RequestHeader HttpHeaders headers, WebRequest request) {
+        MediaType format = Representations.negotiate(headers.getAccept());
+        ResourceVersions.Version version = resourceVersions.members().in(format);
+        if (request.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
         List<Member> members = memberService.getAllMembers();
         return ResponseEntity.ok(members);
     }
     
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<Member>> getAllMembersWithCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<Member> members = memberService.getMembersAfter(cursor, size, includeTotal);
+        return ResponseEntity.ok(members);
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<Member> getMemberById(@PathVariable Long id) {
+    public ResponseEntity<Member> getMemberById(@PathVariable Long id, @RequestHeader HttpHeaders headers,
+                                                WebRequest request) {
+        MediaType format = Representations.negotiate(headers.getAccept());
+        ResourceVersions.Version version = resourceVersions.member(id).in(format);
+        if (request.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
         Member member = memberService.getMemberById(id);
         return ResponseEntity.ok(member);
     }
@@ -43,6 +92,16 @@ public class MemberController {
         return ResponseEntity.ok(member);
     }
     
+    @GetMapping("/{id}/borrowing")
+    public ResponseEntity<Map<String, Object>> getBorrowingState(@PathVariable Long id) {
+        return ResponseEntity.ok(borrowingService.getBorrowingState(id));
+    }
+    
+    @PostMapping("/{id}/fines/payments")
+    public ResponseEntity<Map<String, Object>> payFines(@PathVariable Long id, @RequestParam double amount) {
+        return ResponseEntity.ok(borrowingService.payFines(id, amount));
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<Member> updateMember(
             @PathVariable Long id,
@@ -0,0 +1,65 @@
+package com.library.controller;
+
+import com.library.analytics.CirculationAnalytics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Circulation reports from the in-memory analytics store; date ranges are
+ * inclusive and optional on both ends.
+ */
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+public class ReportController {
+    
+    private final CirculationAnalytics circulationAnalytics;
+    
+    @GetMapping("/top-books")
+    public ResponseEntity<Map<String, Object>> getTopBooks(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(circulationAnalytics.getTopBooksByCategory(category, from, to, limit));
+    }
+    
+    @GetMapping("/busiest-members")
+    public ResponseEntity<List<Map<String, Object>>> getBusiestMembers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(circulationAnalytics.getBusiestMembers(from, to, limit));
+    }
+    
+    @GetMapping("/fines")
+    public ResponseEntity<List<Map<String, Object>>> getFinesByMonth(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(circulationAnalytics.getFinesByMonth(from, to));
+    }
+    
+    @GetMapping("/loan-length")
+    public ResponseEntity<Map<String, Object>> getLoanLength(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(circulationAnalytics.getLoanLengthByMembershipType(from, to));
+    }
+    
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(circulationAnalytics.status());
+    }
+    
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Object>> refresh() {
+        circulationAnalytics.refresh();
+        return ResponseEntity.ok(circulationAnalytics.status());
+    }
+}
@@ -1,43 +1,108 @@
 package com.library.controller;
 
+import com.library.dto.BatchResult;
+import com.library.dto.CursorPage;
+import com.library.dto.IssueRequest;
+import com.library.dto.TransactionSummary;
 import com.library.entity.Transaction;
+import com.library.service.ArchiveService;
+import com.library.service.ExportService;
+import com.library.service.IdempotencyKeys;
+import com.library.service.OverdueService;
 import com.library.service.TransactionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/transactions")
 @RequiredArgsConstructor
 public class TransactionController {
     
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    
     private final TransactionService transactionService;
+    private final ExportService exportService;
+    private final OverdueService overdueService;
+    private final ArchiveService archiveService;
+    private final IdempotencyKeys idempotencyKeys;
     
     @PostMapping("/issue")
     public ResponseEntity<Transaction> issueBook(
             @RequestParam Long bookId,
-            @RequestParam Long memberId) {
-        Transaction transaction = transactionService.issueBook(bookId, memberId);
-        return new ResponseEntity<>(transaction, HttpStatus.CREATED);
+            @RequestParam Long memberId,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        IdempotencyKeys.Result<Transaction> result = idempotencyKeys.execute(idempotencyKey,
+            "issue " + bookId + " " + memberId, () -> transactionService.issueBook(bookId, memberId));
+        return withReplayed(ResponseEntity.status(HttpStatus.CREATED), idempotencyKey, result).body(result.value());
+    }
+    
+    @PostMapping("/issue/batch")
+    public ResponseEntity<BatchResult> issueBooks(@RequestBody List<IssueRequest> requests) {
+        BatchResult result = transactionService.issueBooks(requests);
+        return ResponseEntity.ok(result);
+    }
+    
+    @PutMapping("/return/batch")
+    public ResponseEntity<BatchResult> returnBooks(@RequestBody List<Long> transactionIds) {
+        BatchResult result = transactionService.returnBooks(transactionIds);
+        return ResponseEntity.ok(result);
     }
     
     @PutMapping("/{id}/return")
-    public ResponseEntity<Transaction> returnBook(@PathVariable Long id) {
-        Transaction transaction = transactionService.returnBook(id);
-        return ResponseEntity.ok(transaction);
+    public ResponseEntity<Transaction> returnBook(
+            @PathVariable Long id,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        IdempotencyKeys.Result<Transaction> result = idempotencyKeys.execute(idempotencyKey,
+            "return " + id, () -> transactionService.returnBook(id));
+        return withReplayed(ResponseEntity.ok(), idempotencyKey, result).body(result.value());
     }
     
     @GetMapping
-    public ResponseEntity<List<Transaction>> getAllTransactions() {
-        List<Transaction> transactions = transactionService.getAllTransactions();
+    public ResponseEntity<List<TransactionSummary>> getAllTransactions() {
+        List<TransactionSummary> transactions = transactionService.getAllTransactions();
+        return ResponseEntity.ok(transactions);
+    }
+    
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<TransactionSummary>> getAllTransactionsWithCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<TransactionSummary> transactions =
+            transactionService.getTransactionsAfter(cursor, size, includeTotal);
         return ResponseEntity.ok(transactions);
     }
     
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out);
+                exportService.exportTransactions(gzipOut);
+                gzipOut.finish();
+            } else {
+                exportService.exportTransactions(out);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<Transaction> getTransactionById(@PathVariable Long id) {
         Transaction transaction = transactionService.getTransactionById(id);
@@ -45,32 +110,60 @@ public class TransactionController {
     }
     
     @GetMapping("/member/{memberId}")
-    public ResponseEntity<List<Transaction>> getTransactionsByMember(@PathVariable Long memberId) {
-        List<Transaction> transactions = transactionService.getTransactionsByMemberId(memberId);
+    public ResponseEntity<List<TransactionSummary>> getTransactionsByMember(
+            @PathVariable Long memberId,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        List<TransactionSummary> transactions =
+            transactionService.getTransactionsByMemberId(memberId, includeArchived);
         return ResponseEntity.ok(transactions);
     }
     
     @GetMapping("/book/{bookId}")
-    public ResponseEntity<List<Transaction>> getTransactionsByBook(@PathVariable Long bookId) {
-        List<Transaction> transactions = transactionService.getTransactionsByBookId(bookId);
+    public ResponseEntity<List<TransactionSummary>> getTransactionsByBook(
+            @PathVariable Long bookId,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        List<TransactionSummary> transactions =
+            transactionService.getTransactionsByBookId(bookId, includeArchived);
         return ResponseEntity.ok(transactions);
     }
     
     @GetMapping("/overdue")
-    public ResponseEntity<List<Transaction>> getOverdueTransactions() {
-        List<Transaction> transactions = transactionService.getOverdueTransactions();
+    public ResponseEntity<List<TransactionSummary>> getOverdueTransactions() {
+        List<TransactionSummary> transactions = transactionService.getOverdueTransactions();
         return ResponseEntity.ok(transactions);
     }
     
+    @GetMapping("/overdue/job")
+    public ResponseEntity<Map<String, Object>> getOverdueJobStatus() {
+        return ResponseEntity.ok(overdueService.getJobStatus());
+    }
+    
+    @GetMapping("/archive/job")
+    public ResponseEntity<Map<String, Object>> getArchiveJobStatus() {
+        return ResponseEntity.ok(archiveService.getJobStatus());
+    }
+    
     @GetMapping("/member/{memberId}/active")
-    public ResponseEntity<List<Transaction>> getActiveTransactionsByMember(@PathVariable Long memberId) {
-        List<Transaction> transactions = transactionService.getActiveTransactionsByMember(memberId);
+    public ResponseEntity<List<TransactionSummary>> getActiveTransactionsByMember(@PathVariable Long memberId) {
+        List<TransactionSummary> transactions = transactionService.getActiveTransactionsByMember(memberId);
         return ResponseEntity.ok(transactions);
     }
     
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Transaction>> getTransactionsByStatus(@PathVariable String status) {
-        List<Transaction> transactions = transactionService.getTransactionsByStatus(status);
+    public ResponseEntity<List<TransactionSummary>> getTransactionsByStatus(
+            @PathVariable String status,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        List<TransactionSummary> transactions =
+            transactionService.getTransactionsByStatus(status, includeArchived);
         return ResponseEntity.ok(transactions);
     }
+    
+    /**
+     * Tells a client that sent an Idempotency-Key whether this is the first response or a replay of it.
+     */
+    private static ResponseEntity.BodyBuilder withReplayed(ResponseEntity.BodyBuilder response, String idempotencyKey,
+                                                           IdempotencyKeys.Result<?> result) {
+        return idempotencyKey == null ? response
+            : response.header(IDEMPOTENT_REPLAYED, Boolean.toString(result.replayed()));
+    }
 }
\ No newline at end of file
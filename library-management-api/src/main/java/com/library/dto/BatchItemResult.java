@@ -0,0 +1,27 @@
+package com.library.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+    
+    private int row;
+    private Long transactionId;
+    private Long bookId;
+    private Long memberId;
+    private String status;
+    private LocalDate issueDate;
+    private LocalDate dueDate;
+    private Double fine;
+    private String message;
+    
+    public BatchItemResult(int row) {
+        this.row = row;
+    }
+}
@@ -0,0 +1,18 @@
+package com.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResult {
+    
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResult> items;
+}
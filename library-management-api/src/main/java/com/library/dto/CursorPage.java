@@ -0,0 +1,20 @@
+package com.library.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+    
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasNext;
+    private Long totalItems;
+}
@@ -0,0 +1,33 @@
+package com.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read model for holds, selected with the book title and member name in one
+ * query. The queue position is only filled in for single-hold lookups.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldSummary {
+    
+    private Long id;
+    private Long bookId;
+    private String bookTitle;
+    private Long memberId;
+    private String memberName;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime readyAt;
+    private LocalDateTime expiresAt;
+    private Long position;
+    
+    public HoldSummary(Long id, Long bookId, String bookTitle, Long memberId, String memberName, String status,
+                       LocalDateTime createdAt, LocalDateTime readyAt, LocalDateTime expiresAt) {
+        this(id, bookId, bookTitle, memberId, memberName, status, createdAt, readyAt, expiresAt, null);
+    }
+}
@@ -0,0 +1,18 @@
+package com.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResult {
+    
+    private int total;
+    private int created;
+    private int failed;
+    private List<ImportRowResult> rows;
+}
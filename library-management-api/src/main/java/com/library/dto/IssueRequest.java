@@ -0,0 +1,14 @@
+package com.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IssueRequest {
+    
+    private Long bookId;
+    private Long memberId;
+}
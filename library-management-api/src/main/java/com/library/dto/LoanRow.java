@@ -0,0 +1,26 @@
+package com.library.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Read model for bulk loads of transactions: the loan columns and foreign keys
+ * only, so no book or member row is joined.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanRow {
+    
+    private Long id;
+    private Long bookId;
+    private Long memberId;
+    private LocalDate issueDate;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+    private String status;
+    private Double fine;
+}
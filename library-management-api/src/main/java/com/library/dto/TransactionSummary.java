@@ -0,0 +1,57 @@
+package com.library.dto;
+
+import com.library.entity.Transaction;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Read model for transaction listings: the loan itself plus the book title and
+ * member name, selected in one query instead of loading both entities.
+ */
+@Data
+@NoArgsConstructor
+public class TransactionSummary {
+    
+    private Long id;
+    private Long bookId;
+    private String bookTitle;
+    private Long memberId;
+    private String memberName;
+    private LocalDate issueDate;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+    private String status;
+    private Double fine;
+    
+    /**
+     * Selected by the repository queries; an open loan carries the fine accrued
+     * so far rather than the stored one, which is only assessed at return.
+     */
+    public TransactionSummary(Long id, Long bookId, String bookTitle, Long memberId, String memberName,
+                              LocalDate issueDate, LocalDate dueDate, LocalDate returnDate, String status,
+                              Double fine) {
+        this.id = id;
+        this.bookId = bookId;
+        this.bookTitle = bookTitle;
+        this.memberId = memberId;
+        this.memberName = memberName;
+        this.issueDate = issueDate;
+        this.dueDate = dueDate;
+        this.returnDate = returnDate;
+        this.status = status;
+        this.fine = returnDate == null && dueDate != null ? Transaction.fineFor(dueDate, LocalDate.now()) : fine;
+    }
+    
+    /**
+     * Flattens a transaction whose book and member are already loaded.
+     */
+    public static TransactionSummary of(Transaction transaction) {
+        return new TransactionSummary(transaction.getId(),
+            transaction.getBook().getId(), transaction.getBook().getTitle(),
+            transaction.getMember().getId(), transaction.getMember().getName(),
+            transaction.getIssueDate(), transaction.getDueDate(), transaction.getReturnDate(),
+            transaction.getStatus(), transaction.getFine());
+    }
+}
@@ -0,0 +1,52 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A returned transaction moved to cold storage. Same columns and id as the
+ * {@link Transaction} it was, with book and member held as plain ids; rows
+ * only enter through a bulk copy and are read back as summaries.
+ */
+@Entity
+@Table(name = "transactions_archive", indexes = {
+    @Index(name = "idx_transactions_archive_member", columnList = "member_id, id"),
+    @Index(name = "idx_transactions_archive_book", columnList = "book_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedTransaction {
+    
+    @Id
+    private Long id;
+    
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+    
+    @Column(name = "member_id", nullable = false)
+    private Long memberId;
+    
+    @Column(name = "issue_date", nullable = false)
+    private LocalDate issueDate;
+    
+    @Column(name = "due_date", nullable = false)
+    private LocalDate dueDate;
+    
+    @Column(name = "return_date")
+    private LocalDate returnDate;
+    
+    @Column(nullable = false, length = 20)
+    private String status;
+    
+    @Column(nullable = false)
+    private Double fine;
+    
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -11,7 +11,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+    @Index(name = "idx_books_category", columnList = "category")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -64,6 +66,10 @@ public class Book {
     @JsonIgnore
     private List<Transaction> transactions = new ArrayList<>();
     
+    @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore
+    private List<Hold> holds = new ArrayList<>();
+    
     @PrePersist
     @PreUpdate
     private void validateCopies() {
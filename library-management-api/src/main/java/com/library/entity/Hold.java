@@ -0,0 +1,54 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A member's place in the queue for a book. WAITING holds are served in id
+ * order; a READY hold has a returned copy set aside until it expires.
+ */
+@Entity
+@Table(name = "holds", indexes = {
+    @Index(name = "idx_holds_book_status", columnList = "book_id, status, id"),
+    @Index(name = "idx_holds_status_expires_at", columnList = "status, expires_at"),
+    @Index(name = "idx_holds_member_status", columnList = "member_id, status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Hold {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    @NotNull(message = "Book is required")
+    private Book book;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "member_id", nullable = false)
+    @NotNull(message = "Member is required")
+    private Member member;
+    
+    @NotBlank(message = "Status is required")
+    @Pattern(regexp = "^(WAITING|READY|FULFILLED|CANCELLED|EXPIRED)$",
+             message = "Status must be WAITING, READY, FULFILLED, CANCELLED, or EXPIRED")
+    @Column(nullable = false, length = 20)
+    private String status;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "ready_at")
+    private LocalDateTime readyAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -12,7 +12,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "members")
+@Table(name = "members", indexes = {
+    @Index(name = "idx_members_phone", columnList = "phone")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -51,6 +53,10 @@ public class Member {
     @JsonIgnore
     private List<Transaction> transactions = new ArrayList<>();
     
+    @OneToMany(mappedBy = "member", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore
+    private List<Hold> holds = new ArrayList<>();
+    
     @PrePersist
     private void setDefaultMembershipDate() {
         if (membershipDate == null) {
@@ -0,0 +1,32 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running totals of a member's open loans and unpaid fines, one row per member.
+ * Kept in step with the transactions table by the issue, return and overdue
+ * paths, so checking whether a member may borrow never scans their loans.
+ */
+@Entity
+@Table(name = "member_borrowing_state")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberBorrowingState {
+    
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+    
+    @Column(name = "active_loans", nullable = false)
+    private Integer activeLoans;
+    
+    @Column(name = "overdue_loans", nullable = false)
+    private Integer overdueLoans;
+    
+    @Column(name = "fines_owed", nullable = false)
+    private Double finesOwed;
+}
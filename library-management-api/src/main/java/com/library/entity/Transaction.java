@@ -7,24 +7,32 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_status_due_date", columnList = "status, due_date"),
+    @Index(name = "idx_transactions_member_status", columnList = "member_id, status, id"),
+    @Index(name = "idx_transactions_book_status", columnList = "book_id, status, id"),
+    @Index(name = "idx_transactions_due_date_id", columnList = "due_date, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Transaction {
     
+    public static final double FINE_PER_DAY = 5.0;
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     @NotNull(message = "Book is required")
     private Book book;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "member_id", nullable = false)
     @NotNull(message = "Member is required")
     private Member member;
@@ -46,10 +54,28 @@ public class Transaction {
     @Column(nullable = false, length = 20)
     private String status;
     
+    // Assessed at return; until then it stays 0 and the accrued fine is derived from the due date
     @Min(value = 0, message = "Fine cannot be negative")
     @Column(nullable = false)
     private Double fine = 0.0;
     
+    /**
+     * The fine assessed at return or, while the loan is out, the fine it has accrued so far.
+     */
+    public Double getFine() {
+        return returnDate == null && dueDate != null ? fineFor(dueDate, LocalDate.now()) : fine;
+    }
+    
+    /**
+     * The fine for a loan due on {@code dueDate} that is returned, or still out, on {@code date}.
+     */
+    public static double fineFor(LocalDate dueDate, LocalDate date) {
+        if (!date.isAfter(dueDate)) {
+            return 0.0;
+        }
+        return ChronoUnit.DAYS.between(dueDate, date) * FINE_PER_DAY;
+    }
+    
     @PrePersist
     private void setDefaultValues() {
         if (issueDate == null) {
@@ -0,0 +1,7 @@
+package com.library.exception;
+
+public class BorrowingBlockedException extends RuntimeException {
+    public BorrowingBlockedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,35 @@
+package com.library.journal;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One committed state change of a transaction (issue, overdue mark or return),
+ * stored as the full after-image of the row. Replaying records in sequence order
+ * and keeping the last image per transaction id gives each loan's state as of
+ * any point in the journal.
+ */
+public record JournalRecord(long sequence,
+                            Instant timestamp,
+                            long transactionId,
+                            long bookId,
+                            long memberId,
+                            String status,
+                            LocalDate issueDate,
+                            LocalDate dueDate,
+                            LocalDate returnDate,
+                            double fine) {
+    
+    /**
+     * A record still waiting for the journal writer to assign its sequence and timestamp.
+     */
+    public static JournalRecord of(long transactionId, long bookId, long memberId, String status,
+                                   LocalDate issueDate, LocalDate dueDate, LocalDate returnDate, double fine) {
+        return new JournalRecord(0, null, transactionId, bookId, memberId, status, issueDate, dueDate, returnDate, fine);
+    }
+    
+    JournalRecord stamped(long sequence, Instant timestamp) {
+        return new JournalRecord(sequence, timestamp, transactionId, bookId, memberId, status,
+            issueDate, dueDate, returnDate, fine);
+    }
+}
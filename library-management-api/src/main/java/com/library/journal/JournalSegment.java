@@ -0,0 +1,269 @@
+package com.library.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * One fixed-size, memory-mapped journal file. Records are framed as
+ * {@code [length][crc32c][payload]} with a fixed-size payload; a frame whose
+ * length, checksum or sequence number does not follow on from the previous
+ * one marks the end of the segment, which is how a torn write after a crash
+ * is recognised and cut off on recovery.
+ */
+final class JournalSegment implements Closeable {
+    
+    static final String PREFIX = "journal-";
+    static final String SUFFIX = ".seg";
+    
+    // sequence, timestamp, transaction/book/member ids, status, issue/due/return days, fine
+    static final int PAYLOAD_SIZE = 8 + 8 + 8 + 8 + 8 + 1 + 4 + 4 + 4 + 8;
+    static final int FRAME_SIZE = 4 + 4 + PAYLOAD_SIZE;
+    
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long firstSequence;
+    
+    // Writer-owned; readers only look at the frames below the flushed limit
+    private int position;
+    private int forcedPosition;
+    private volatile int flushedLimit;
+    private volatile long firstTimestamp = -1;
+    private long lastSequence;
+    
+    private JournalSegment(Path path, FileChannel channel, MappedByteBuffer buffer, long firstSequence) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.firstSequence = firstSequence;
+        this.lastSequence = firstSequence - 1;
+    }
+    
+    static JournalSegment create(Path directory, long firstSequence, int size) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new JournalSegment(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size), firstSequence);
+        } catch (IOException | RuntimeException ex) {
+            // Leave no half-made file behind, so the rollover can be retried
+            channel.close();
+            Files.deleteIfExists(path);
+            throw ex;
+        }
+    }
+    
+    /**
+     * Maps an existing segment and finds the end of its valid frames.
+     */
+    static JournalSegment open(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        long firstSequence = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        JournalSegment segment = new JournalSegment(path, channel,
+            channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()), firstSequence);
+        segment.recover();
+        return segment;
+    }
+    
+    private void recover() {
+        ByteBuffer view = buffer.duplicate();
+        int offset = 0;
+        long expected = firstSequence;
+        while (offset + FRAME_SIZE <= view.capacity()) {
+            JournalRecord record = read(view, offset, expected);
+            if (record == null) {
+                break;
+            }
+            if (firstTimestamp < 0) {
+                firstTimestamp = record.timestamp().toEpochMilli();
+            }
+            lastSequence = expected++;
+            offset += FRAME_SIZE;
+        }
+        position = offset;
+        forcedPosition = offset;
+        flushedLimit = offset;
+    }
+    
+    /**
+     * Writes the record into the mapping; false when the segment is full.
+     */
+    boolean append(JournalRecord record) {
+        if (position + FRAME_SIZE > buffer.capacity()) {
+            return false;
+        }
+        int payload = position + 8;
+        buffer.putLong(payload, record.sequence());
+        buffer.putLong(payload + 8, record.timestamp().toEpochMilli());
+        buffer.putLong(payload + 16, record.transactionId());
+        buffer.putLong(payload + 24, record.bookId());
+        buffer.putLong(payload + 32, record.memberId());
+        buffer.put(payload + 40, encodeStatus(record.status()));
+        buffer.putInt(payload + 41, encodeDate(record.issueDate()));
+        buffer.putInt(payload + 45, encodeDate(record.dueDate()));
+        buffer.putInt(payload + 49, encodeDate(record.returnDate()));
+        buffer.putDouble(payload + 53, record.fine());
+        buffer.putInt(position + 4, checksum(buffer, payload));
+        // Length last, so a frame is never complete before its payload is
+        buffer.putInt(position, PAYLOAD_SIZE);
+        
+        if (firstTimestamp < 0) {
+            firstTimestamp = record.timestamp().toEpochMilli();
+        }
+        lastSequence = record.sequence();
+        position += FRAME_SIZE;
+        return true;
+    }
+    
+    /**
+     * Flushes the frames written since the last force to the file and makes them visible to readers.
+     */
+    void force() {
+        if (position > forcedPosition) {
+            buffer.force(forcedPosition, position - forcedPosition);
+            forcedPosition = position;
+        }
+        flushedLimit = position;
+    }
+    
+    /**
+     * Passes the flushed records with a timestamp in {@code [fromMillis, toMillis)} to the
+     * consumer in sequence order; false once a record at or past {@code toMillis} was seen.
+     */
+    boolean scan(long fromMillis, long toMillis, Consumer<JournalRecord> consumer) {
+        ByteBuffer view = buffer.duplicate();
+        int limit = flushedLimit;
+        long expected = firstSequence;
+        for (int offset = 0; offset + FRAME_SIZE <= limit; offset += FRAME_SIZE) {
+            JournalRecord record = read(view, offset, expected++);
+            if (record == null) {
+                return true;
+            }
+            long timestamp = record.timestamp().toEpochMilli();
+            if (timestamp >= toMillis) {
+                return false;
+            }
+            if (timestamp >= fromMillis) {
+                consumer.accept(record);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Passes the flushed records after {@code sequence} to the consumer in sequence order.
+     * Frames have a fixed size, so the scan starts right at the next record.
+     */
+    void scanAfter(long sequence, Consumer<JournalRecord> consumer) {
+        ByteBuffer view = buffer.duplicate();
+        int limit = flushedLimit;
+        long expected = Math.max(firstSequence, sequence + 1);
+        long start = (expected - firstSequence) * FRAME_SIZE;
+        for (long offset = start; offset + FRAME_SIZE <= limit; offset += FRAME_SIZE) {
+            JournalRecord record = read(view, (int) offset, expected++);
+            if (record == null) {
+                return;
+            }
+            consumer.accept(record);
+        }
+    }
+    
+    private static JournalRecord read(ByteBuffer view, int offset, long expectedSequence) {
+        if (view.getInt(offset) != PAYLOAD_SIZE) {
+            return null;
+        }
+        int payload = offset + 8;
+        if (view.getInt(offset + 4) != checksum(view, payload) || view.getLong(payload) != expectedSequence) {
+            return null;
+        }
+        return new JournalRecord(
+            view.getLong(payload),
+            Instant.ofEpochMilli(view.getLong(payload + 8)),
+            view.getLong(payload + 16),
+            view.getLong(payload + 24),
+            view.getLong(payload + 32),
+            decodeStatus(view.get(payload + 40)),
+            decodeDate(view.getInt(payload + 41)),
+            decodeDate(view.getInt(payload + 45)),
+            decodeDate(view.getInt(payload + 49)),
+            view.getDouble(payload + 53));
+    }
+    
+    private static int checksum(ByteBuffer source, int payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(source.slice(payload, PAYLOAD_SIZE));
+        return (int) crc.getValue();
+    }
+    
+    private static byte encodeStatus(String status) {
+        return switch (status) {
+            case "ISSUED" -> 'I';
+            case "OVERDUE" -> 'O';
+            case "RETURNED" -> 'R';
+            default -> throw new IllegalArgumentException("Unknown transaction status: " + status);
+        };
+    }
+    
+    private static String decodeStatus(byte code) {
+        return switch (code) {
+            case 'I' -> "ISSUED";
+            case 'O' -> "OVERDUE";
+            case 'R' -> "RETURNED";
+            default -> null;
+        };
+    }
+    
+    private static int encodeDate(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+    
+    private static LocalDate decodeDate(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+    
+    Path path() {
+        return path;
+    }
+    
+    long firstSequence() {
+        return firstSequence;
+    }
+    
+    long lastSequence() {
+        return lastSequence;
+    }
+    
+    /**
+     * Sequence of the last record readers can see; one before the first when there is none.
+     */
+    long flushedSequence() {
+        return firstSequence + flushedLimit / FRAME_SIZE - 1;
+    }
+    
+    long firstTimestamp() {
+        return firstTimestamp;
+    }
+    
+    int size() {
+        return flushedLimit;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
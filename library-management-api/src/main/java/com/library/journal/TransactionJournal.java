@@ -0,0 +1,323 @@
+package com.library.journal;
+
+import com.library.support.AfterTransaction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only audit journal of transaction state changes, written behind the
+ * database. Committed changes are queued in memory; a single writer thread
+ * drains the queue into memory-mapped segment files and forces each drained
+ * batch to disk at once (group commit), so a checkout only pays for a queue
+ * offer. Segments roll over at a fixed size and are never modified afterwards.
+ * A batch that fails to write is kept and retried, and {@link #status()}
+ * reports the journal as failing until a write succeeds again.
+ */
+@Component
+@Slf4j
+public class TransactionJournal {
+    
+    private static final long IDLE_POLL_MILLIS = 200;
+    private static final long RETRY_DELAY_MILLIS = 1000;
+    
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxBatch;
+    private final BlockingQueue<JournalRecord> queue;
+    private final List<JournalSegment> segments = new CopyOnWriteArrayList<>();
+    private final Counter recordsWritten;
+    private final Counter writerStalls;
+    private final Counter writeFailures;
+    private final Timer flushTimer;
+    
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile JournalSegment active;
+    private volatile Instant lastFlush;
+    private volatile Exception failure;
+    private long nextSequence = 1;
+    private long lastTimestamp;
+    
+    public TransactionJournal(MeterRegistry meterRegistry,
+                              @Value("${library.journal.enabled:true}") boolean enabled,
+                              @Value("${library.journal.dir:data/journal}") Path directory,
+                              @Value("${library.journal.segment-size:64MB}") DataSize segmentSize,
+                              @Value("${library.journal.queue-capacity:65536}") int queueCapacity,
+                              @Value("${library.journal.max-batch:4096}") int maxBatch) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = (int) Math.min(segmentSize.toBytes(), Integer.MAX_VALUE);
+        this.maxBatch = maxBatch;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.recordsWritten = meterRegistry.counter("library.journal.records");
+        this.writerStalls = meterRegistry.counter("library.journal.stalls");
+        this.writeFailures = meterRegistry.counter("library.journal.write-failures");
+        this.flushTimer = Timer.builder("library.journal.flush")
+            .description("Time to write and force one group of journal records")
+            .register(meterRegistry);
+        meterRegistry.gauge("library.journal.queue", queue, BlockingQueue::size);
+    }
+    
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve("journal.lock"),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        lock = lockChannel.tryLock();
+        if (lock == null) {
+            throw new IllegalStateException("Journal directory " + directory + " is in use by another process");
+        }
+        
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(this::isSegment).sorted().toList()) {
+                segments.add(JournalSegment.open(path));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(JournalSegment.create(directory, nextSequence, segmentSize));
+        }
+        active = segments.get(segments.size() - 1);
+        nextSequence = active.lastSequence() + 1;
+        
+        running = true;
+        writer = new Thread(this::writeLoop, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Transaction journal at {} with {} segments, next sequence {}",
+            directory.toAbsolutePath(), segments.size(), nextSequence);
+    }
+    
+    /**
+     * Drains what is still queued, then forces and closes the segments.
+     */
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        for (JournalSegment segment : segments) {
+            segment.close();
+        }
+        lock.release();
+        lockChannel.close();
+    }
+    
+    /**
+     * Queues the records once the surrounding database transaction commits, so
+     * the journal never holds a change that was rolled back.
+     */
+    public void appendAfterCommit(List<JournalRecord> records) {
+        if (!enabled || records.isEmpty()) {
+            return;
+        }
+        AfterTransaction.onCommit(() -> enqueue(records));
+    }
+    
+    /**
+     * Passes every record with a timestamp in {@code [from, to)} to the consumer in
+     * sequence order. Timestamps never decrease along the journal, so segments that
+     * end before {@code from} are skipped and the scan stops at the first record past {@code to}.
+     */
+    public void scan(Instant from, Instant to, Consumer<JournalRecord> consumer) {
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+        List<JournalSegment> snapshot = new ArrayList<>(segments);
+        for (int i = 0; i < snapshot.size(); i++) {
+            long nextStart = i + 1 < snapshot.size() ? snapshot.get(i + 1).firstTimestamp() : -1;
+            if (nextStart >= 0 && nextStart < fromMillis) {
+                continue;
+            }
+            if (!snapshot.get(i).scan(fromMillis, toMillis, consumer)) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Passes every record after {@code sequence} to the consumer in sequence order,
+     * for readers that follow the journal incrementally.
+     */
+    public void scanAfter(long sequence, Consumer<JournalRecord> consumer) {
+        List<JournalSegment> snapshot = new ArrayList<>(segments);
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (i + 1 < snapshot.size() && snapshot.get(i + 1).firstSequence() <= sequence + 1) {
+                continue;
+            }
+            snapshot.get(i).scanAfter(sequence, consumer);
+        }
+    }
+    
+    /**
+     * Sequence of the last record on disk, 0 when the journal is empty or disabled.
+     */
+    public long flushedSequence() {
+        JournalSegment current = active;
+        return current == null ? 0 : current.flushedSequence();
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Whether the last write failed; records keep queueing and are written once a retry succeeds.
+     */
+    public boolean isFailing() {
+        return failure != null;
+    }
+    
+    /**
+     * Replays the journal up to {@code upTo} and returns the last image of every
+     * transaction at that moment: issued, marked overdue by the overdue job, or
+     * returned with its assessed fine. An open loan's fine is derived from its
+     * due date and journaled as stored, i.e. 0. Loans deleted with their book or
+     * member, or moved to the archive, keep their last image.
+     */
+    public Map<Long, JournalRecord> rebuild(Instant upTo) {
+        Map<Long, JournalRecord> state = new LinkedHashMap<>();
+        scan(null, upTo, record -> state.put(record.transactionId(), record));
+        return state;
+    }
+    
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("directory", directory.toAbsolutePath().toString());
+        status.put("segments", segments.size());
+        JournalSegment current = active;
+        status.put("lastSequence", current == null ? null : current.lastSequence());
+        status.put("activeSegment", current == null ? null : current.path().getFileName().toString());
+        status.put("activeSegmentBytes", current == null ? null : current.size());
+        status.put("queued", queue.size());
+        status.put("lastFlush", lastFlush);
+        Exception lastFailure = failure;
+        status.put("failing", lastFailure != null);
+        status.put("lastError", lastFailure == null ? null : lastFailure.toString());
+        return status;
+    }
+    
+    private void enqueue(List<JournalRecord> records) {
+        for (JournalRecord record : records) {
+            if (!queue.offer(record)) {
+                // Only when the writer has fallen a whole queue behind; wait rather than lose audit records
+                writerStalls.increment();
+                try {
+                    queue.put(record);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    log.error("Interrupted while journaling transaction {}", record.transactionId());
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void writeLoop() {
+        List<JournalRecord> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            long firstSequence = nextSequence;
+            try {
+                if (batch.isEmpty()) {
+                    JournalRecord first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        if (failure != null) {
+                            // Frames appended before a failed force are still waiting to reach the disk
+                            active.force();
+                            failure = null;
+                        }
+                        continue;
+                    }
+                    batch.add(first);
+                }
+                queue.drainTo(batch, maxBatch - batch.size());
+                long started = System.nanoTime();
+                writeBatch(batch);
+                flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                recordsWritten.increment(batch.size());
+                lastFlush = Instant.now();
+                failure = null;
+                batch.clear();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException ex) {
+                // Appended records keep their sequence numbers and are forced with the next write;
+                // only the rest of the batch is written again
+                batch.subList(0, (int) (nextSequence - firstSequence)).clear();
+                writeFailures.increment();
+                if (failure == null) {
+                    log.error("Failed to write journal records, {} kept for retry", batch.size(), ex);
+                }
+                failure = ex;
+                if (!running) {
+                    log.error("Journal stopped with {} records unwritten", batch.size() + queue.size());
+                    return;
+                }
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void writeBatch(List<JournalRecord> batch) throws IOException {
+        for (JournalRecord record : batch) {
+            // Clamped so timestamps never go backwards, which the time-range scan relies on
+            lastTimestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+            JournalRecord stamped = record.stamped(nextSequence, Instant.ofEpochMilli(lastTimestamp));
+            if (!active.append(stamped)) {
+                active.force();
+                JournalSegment next = JournalSegment.create(directory, nextSequence, segmentSize);
+                segments.add(next);
+                active = next;
+                if (!active.append(stamped)) {
+                    throw new UncheckedIOException(new IOException("Journal segment size is smaller than one record"));
+                }
+            }
+            nextSequence++;
+        }
+        active.force();
+    }
+    
+    private boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(JournalSegment.PREFIX) && name.endsWith(JournalSegment.SUFFIX);
+    }
+}
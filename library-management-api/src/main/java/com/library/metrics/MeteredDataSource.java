@@ -0,0 +1,98 @@
+package com.library.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wraps the pool so every statement's execute call is timed and reported to
+ * {@link QueryMetrics}. Only interface proxies are involved; the pool itself
+ * stays reachable through {@link DelegatingDataSource#getTargetDataSource()}.
+ */
+public class MeteredDataSource extends DelegatingDataSource {
+    
+    private final QueryMetrics queryMetrics;
+    
+    public MeteredDataSource(DataSource targetDataSource, QueryMetrics queryMetrics) {
+        super(targetDataSource);
+        this.queryMetrics = queryMetrics;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+    
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(MeteredDataSource.class.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+    
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+    
+    private class ConnectionHandler implements InvocationHandler {
+        
+        private final Connection target;
+        
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = MeteredDataSource.invoke(target, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> proxy(Statement.class, new StatementHandler((Statement) result, null));
+                case "prepareStatement" ->
+                    proxy(PreparedStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                case "prepareCall" ->
+                    proxy(CallableStatement.class, new StatementHandler((Statement) result, (String) args[0]));
+                default -> result;
+            };
+        }
+    }
+    
+    private class StatementHandler implements InvocationHandler {
+        
+        private final Statement target;
+        private final String preparedSql;
+        
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return MeteredDataSource.invoke(target, method, args);
+            }
+            long started = System.nanoTime();
+            try {
+                return MeteredDataSource.invoke(target, method, args);
+            } finally {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                queryMetrics.record(sql, System.nanoTime() - started);
+            }
+        }
+    }
+}
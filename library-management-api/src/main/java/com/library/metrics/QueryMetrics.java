@@ -0,0 +1,62 @@
+package com.library.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every JDBC statement executed through {@link MeteredDataSource}:
+ * a global latency timer, per-request totals for {@link QueryMetricsFilter},
+ * and optionally a sampled SQL log line instead of Hibernate's per-statement logging.
+ */
+@Component
+@Slf4j
+public class QueryMetrics {
+    
+    private static final ThreadLocal<RequestQueries> CURRENT_REQUEST = new ThreadLocal<>();
+    
+    private final Timer statementTimer;
+    private final double sampleRate;
+    
+    public QueryMetrics(MeterRegistry meterRegistry,
+                        @Value("${library.sql-log.sample-rate:0.0}") double sampleRate) {
+        this.statementTimer = Timer.builder("library.db.statements")
+            .description("JDBC statement execution time")
+            .register(meterRegistry);
+        this.sampleRate = sampleRate;
+    }
+    
+    void record(String sql, long nanos) {
+        statementTimer.record(nanos, TimeUnit.NANOSECONDS);
+        
+        RequestQueries request = CURRENT_REQUEST.get();
+        if (request != null) {
+            request.count++;
+            request.nanos += nanos;
+        }
+        
+        if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            log.info("SQL ({} us): {}", TimeUnit.NANOSECONDS.toMicros(nanos), sql);
+        }
+    }
+    
+    RequestQueries beginRequest() {
+        RequestQueries request = new RequestQueries();
+        CURRENT_REQUEST.set(request);
+        return request;
+    }
+    
+    void endRequest() {
+        CURRENT_REQUEST.remove();
+    }
+    
+    static class RequestQueries {
+        int count;
+        long nanos;
+    }
+}
@@ -0,0 +1,53 @@
+package com.library.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes how many statements each request ran and how long they took,
+ * tagged with the matched URI template so it lines up with http.server.requests.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryMetricsFilter extends OncePerRequestFilter {
+    
+    private final QueryMetrics queryMetrics;
+    private final MeterRegistry meterRegistry;
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        QueryMetrics.RequestQueries queries = queryMetrics.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            queryMetrics.endRequest();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+            DistributionSummary.builder("library.db.queries.per.request")
+                .description("JDBC statements executed per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(queries.count);
+            Timer.builder("library.db.time.per.request")
+                .description("Time spent in JDBC statements per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(queries.nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
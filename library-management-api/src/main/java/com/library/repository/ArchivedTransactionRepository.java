@@ -0,0 +1,60 @@
+package com.library.repository;
+
+import com.library.dto.LoanRow;
+import com.library.dto.TransactionSummary;
+import com.library.entity.ArchivedTransaction;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, Long> {
+    
+    /**
+     * Same shape as {@link TransactionRepository#SELECT_SUMMARY}; outer joins, since
+     * nothing ties an archived row to a book or member that still exists.
+     */
+    String SELECT_SUMMARY = "SELECT new com.library.dto.TransactionSummary(a.id, a.bookId, b.title, a.memberId, " +
+                            "m.name, a.issueDate, a.dueDate, a.returnDate, a.status, a.fine) " +
+                            "FROM ArchivedTransaction a LEFT JOIN Book b ON b.id = a.bookId " +
+                            "LEFT JOIN Member m ON m.id = a.memberId ";
+    
+    @Query(SELECT_SUMMARY + "WHERE a.memberId = :memberId ORDER BY a.id")
+    List<TransactionSummary> findSummariesByMemberId(@Param("memberId") Long memberId);
+    
+    @Query(SELECT_SUMMARY + "WHERE a.bookId = :bookId ORDER BY a.id")
+    List<TransactionSummary> findSummariesByBookId(@Param("bookId") Long bookId);
+    
+    @Query(SELECT_SUMMARY + "WHERE a.status = :status ORDER BY a.id")
+    List<TransactionSummary> findSummariesByStatus(@Param("status") String status);
+    
+    @Query("SELECT new com.library.dto.LoanRow(a.id, a.bookId, a.memberId, a.issueDate, a.dueDate, " +
+           "a.returnDate, a.status, a.fine) FROM ArchivedTransaction a WHERE a.id > :afterId ORDER BY a.id")
+    List<LoanRow> findLoanRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * Copies the returned ones among the given live transactions into the archive.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO transactions_archive " +
+                   "(id, book_id, member_id, issue_date, due_date, return_date, status, fine, archived_at) " +
+                   "SELECT id, book_id, member_id, issue_date, due_date, return_date, status, fine, :archivedAt " +
+                   "FROM transactions WHERE id IN (:ids) AND status = 'RETURNED'",
+           nativeQuery = true)
+    int copyReturned(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+    
+    @Modifying
+    @Query("DELETE FROM ArchivedTransaction a WHERE a.bookId = :bookId")
+    int deleteByBookId(@Param("bookId") Long bookId);
+    
+    @Modifying
+    @Query("DELETE FROM ArchivedTransaction a WHERE a.memberId = :memberId")
+    int deleteByMemberId(@Param("memberId") Long memberId);
+}
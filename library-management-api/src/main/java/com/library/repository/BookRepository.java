@@ -1,19 +1,33 @@
 package com.library.repository;
 
 import com.library.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
     
     Optional<Book> findByIsbn(String isbn);
     
+    boolean existsByIsbn(String isbn);
+    
+    List<Book> findByIsbnIn(Collection<String> isbns);
+    
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+    
     List<Book> findByTitleContainingIgnoreCase(String title);
     
     List<Book> findByAuthorContainingIgnoreCase(String author);
@@ -27,4 +41,29 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     List<Book> searchBooks(@Param("keyword") String keyword);
     
     List<Book> findByAvailableCopiesGreaterThan(Integer copies);
+    
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+    
+    @Query("SELECT b.availableCopies FROM Book b WHERE b.id = :id")
+    Optional<Integer> findAvailableCopiesById(@Param("id") Long id);
+    
+    @Query("SELECT b.totalCopies - b.availableCopies FROM Book b WHERE b.id = :id")
+    Optional<Integer> findCopiesOffShelfById(@Param("id") Long id);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - :count " +
+           "WHERE b.id = :id AND b.availableCopies >= :count")
+    int decrementAvailableCopies(@Param("id") Long id, @Param("count") int count);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + :count " +
+           "WHERE b.id = :id AND b.availableCopies + :count <= b.totalCopies")
+    int incrementAvailableCopies(@Param("id") Long id, @Param("count") int count);
 }
\ No newline at end of file
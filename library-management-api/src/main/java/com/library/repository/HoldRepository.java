@@ -0,0 +1,86 @@
+package com.library.repository;
+
+import com.library.dto.HoldSummary;
+import com.library.entity.Hold;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+    
+    String SELECT_SUMMARY = "SELECT new com.library.dto.HoldSummary(h.id, b.id, b.title, m.id, m.name, " +
+                            "h.status, h.createdAt, h.readyAt, h.expiresAt) FROM Hold h JOIN h.book b JOIN h.member m ";
+    
+    @Query(SELECT_SUMMARY + "WHERE h.id = :id")
+    List<HoldSummary> findSummaryById(@Param("id") Long id);
+    
+    @Query(SELECT_SUMMARY + "WHERE h.id IN :ids ORDER BY h.id")
+    List<HoldSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+    
+    @Query(SELECT_SUMMARY + "WHERE m.id = :memberId AND h.status IN ('WAITING', 'READY') ORDER BY h.id")
+    List<HoldSummary> findActiveSummariesByMember(@Param("memberId") Long memberId);
+    
+    @Query(SELECT_SUMMARY + "WHERE b.id = :bookId AND h.status IN ('WAITING', 'READY') AND h.id > :afterId " +
+           "ORDER BY h.id")
+    List<HoldSummary> findActiveSummariesByBookAfter(@Param("bookId") Long bookId, @Param("afterId") Long afterId,
+                                                     Pageable pageable);
+    
+    @Query(SELECT_SUMMARY + "WHERE b.id IN :bookIds AND h.status = 'READY'")
+    List<HoldSummary> findReadySummariesByBookIds(@Param("bookIds") Collection<Long> bookIds);
+    
+    @Query("SELECT COUNT(h) > 0 FROM Hold h WHERE h.book.id = :bookId AND h.member.id = :memberId " +
+           "AND h.status IN ('WAITING', 'READY')")
+    boolean existsActive(@Param("bookId") Long bookId, @Param("memberId") Long memberId);
+    
+    @Query("SELECT COUNT(h) FROM Hold h WHERE h.book.id = :bookId AND h.status = 'WAITING' AND h.id < :id")
+    long countWaitingAhead(@Param("bookId") Long bookId, @Param("id") Long id);
+    
+    @Query("SELECT COUNT(h) FROM Hold h WHERE h.book.id = :bookId AND h.status IN ('WAITING', 'READY')")
+    long countActiveByBook(@Param("bookId") Long bookId);
+    
+    /**
+     * Next holds in line after the given id, walking the (book_id, status, id) index.
+     */
+    @Query("SELECT h.id FROM Hold h WHERE h.book.id = :bookId AND h.status = 'WAITING' AND h.id > :afterId " +
+           "ORDER BY h.id")
+    List<Long> findWaitingIds(@Param("bookId") Long bookId, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT h.id FROM Hold h WHERE h.status IN ('WAITING', 'READY') AND h.expiresAt < :now " +
+           "ORDER BY h.expiresAt")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    /**
+     * Books that have copies on the shelf while holds are still waiting for them.
+     */
+    @Query("SELECT DISTINCT h.book.id FROM Hold h WHERE h.status = 'WAITING' AND h.book.availableCopies > 0")
+    List<Long> findBookIdsWithWaitingHoldsAndCopies(Pageable pageable);
+    
+    /**
+     * Compare-and-set from WAITING to READY; a concurrent claim of the same hold updates nothing.
+     */
+    @Modifying
+    @Query("UPDATE Hold h SET h.status = 'READY', h.readyAt = :now, h.expiresAt = :expiresAt " +
+           "WHERE h.id = :id AND h.status = 'WAITING'")
+    int markReady(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Modifying
+    @Query("UPDATE Hold h SET h.status = 'FULFILLED' " +
+           "WHERE h.book.id = :bookId AND h.member.id = :memberId AND h.status = 'READY'")
+    int markFulfilled(@Param("bookId") Long bookId, @Param("memberId") Long memberId);
+    
+    @Modifying
+    @Query("UPDATE Hold h SET h.status = 'EXPIRED' WHERE h.id = :id AND h.status = :status AND h.expiresAt < :now")
+    int expire(@Param("id") Long id, @Param("status") String status, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Hold h SET h.status = :newStatus WHERE h.id = :id AND h.status = :status")
+    int updateStatus(@Param("id") Long id, @Param("status") String status, @Param("newStatus") String newStatus);
+}
@@ -0,0 +1,56 @@
+package com.library.repository;
+
+import com.library.entity.MemberBorrowingState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface MemberBorrowingStateRepository extends JpaRepository<MemberBorrowingState, Long> {
+    
+    /**
+     * Adds loans only while the member stays within the limit and is not blocked;
+     * the row lock serialises concurrent checkouts by the same member.
+     */
+    @Modifying
+    @Query("UPDATE MemberBorrowingState s SET s.activeLoans = s.activeLoans + :count " +
+           "WHERE s.memberId = :memberId AND s.activeLoans + :count <= :loanLimit " +
+           "AND s.overdueLoans <= :maxOverdue AND s.finesOwed < :fineBlock")
+    int addLoans(@Param("memberId") Long memberId, @Param("count") int count, @Param("loanLimit") int loanLimit,
+                 @Param("maxOverdue") int maxOverdue, @Param("fineBlock") double fineBlock);
+    
+    // Native because Hibernate's typed cast of a double parameter in arithmetic is not valid on every database
+    @Modifying
+    @Query(value = "UPDATE member_borrowing_state SET active_loans = active_loans - :loans, " +
+                   "overdue_loans = overdue_loans - :overdueLoans, fines_owed = fines_owed + :fines " +
+                   "WHERE member_id = :memberId",
+           nativeQuery = true)
+    int releaseLoans(@Param("memberId") Long memberId, @Param("loans") int loans,
+                     @Param("overdueLoans") int overdueLoans, @Param("fines") double fines);
+    
+    /**
+     * Counts loans that have just been marked overdue; must run in the same
+     * database transaction as the status change so no return slips in between.
+     */
+    @Modifying
+    @Query(value = "UPDATE member_borrowing_state s SET overdue_loans = overdue_loans + " +
+                   "(SELECT COUNT(*) FROM transactions t WHERE t.member_id = s.member_id " +
+                   "AND t.id IN (:ids) AND t.status = 'OVERDUE') " +
+                   "WHERE s.member_id IN (SELECT t.member_id FROM transactions t WHERE t.id IN (:ids))",
+           nativeQuery = true)
+    int addOverdueLoans(@Param("ids") Collection<Long> transactionIds);
+    
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE member_borrowing_state SET fines_owed = fines_owed - :amount " +
+                   "WHERE member_id = :memberId AND fines_owed >= :amount",
+           nativeQuery = true)
+    int payFines(@Param("memberId") Long memberId, @Param("amount") double amount);
+    
+    @Modifying
+    @Query("DELETE FROM MemberBorrowingState s WHERE s.memberId = :memberId")
+    int deleteByMemberId(@Param("memberId") Long memberId);
+}
@@ -1,9 +1,13 @@
 package com.library.repository;
 
 import com.library.entity.Member;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +25,14 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     boolean existsByEmail(String email);
     
     boolean existsByPhone(String phone);
+    
+    List<Member> findByEmailIn(Collection<String> emails);
+    
+    @Query("SELECT m.email FROM Member m WHERE m.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+    
+    @Query("SELECT m.phone FROM Member m WHERE m.phone IN :phones")
+    List<String> findExistingPhones(@Param("phones") Collection<String> phones);
+    
+    List<Member> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
\ No newline at end of file
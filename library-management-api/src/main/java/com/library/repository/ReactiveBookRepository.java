@@ -0,0 +1,68 @@
+package com.library.repository;
+
+import com.library.entity.Book;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Read-only book queries over R2DBC. Rows are mapped by hand onto the JPA
+ * entity class, so the reactive and blocking APIs return the same JSON.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveBookRepository {
+    
+    private static final String SELECT_BOOK = "SELECT id, title, author, isbn, publisher, published_year, " +
+                                              "total_copies, available_copies, category FROM books ";
+    
+    private final DatabaseClient databaseClient;
+    
+    public Flux<Book> findAll() {
+        return databaseClient.sql(SELECT_BOOK + "ORDER BY id")
+            .map(ReactiveBookRepository::toBook)
+            .all();
+    }
+    
+    public Flux<Book> findAvailable() {
+        return databaseClient.sql(SELECT_BOOK + "WHERE available_copies > 0 ORDER BY id")
+            .map(ReactiveBookRepository::toBook)
+            .all();
+    }
+    
+    public Mono<Book> findById(Long id) {
+        return databaseClient.sql(SELECT_BOOK + "WHERE id = :id")
+            .bind("id", id)
+            .map(ReactiveBookRepository::toBook)
+            .one();
+    }
+    
+    public Flux<Book> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql(SELECT_BOOK + "WHERE id IN (:ids)")
+            .bind("ids", ids)
+            .map(ReactiveBookRepository::toBook)
+            .all();
+    }
+    
+    private static Book toBook(Readable row) {
+        Book book = new Book();
+        book.setId(row.get("id", Long.class));
+        book.setTitle(row.get("title", String.class));
+        book.setAuthor(row.get("author", String.class));
+        book.setIsbn(row.get("isbn", String.class));
+        book.setPublisher(row.get("publisher", String.class));
+        book.setPublishedYear(row.get("published_year", Integer.class));
+        book.setTotalCopies(row.get("total_copies", Integer.class));
+        book.setAvailableCopies(row.get("available_copies", Integer.class));
+        book.setCategory(row.get("category", String.class));
+        return book;
+    }
+}
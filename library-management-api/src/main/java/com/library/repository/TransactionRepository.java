@@ -1,28 +1,131 @@
 package com.library.repository;
 
+import com.library.dto.LoanRow;
+import com.library.dto.TransactionSummary;
 import com.library.entity.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     
-    List<Transaction> findByMemberId(Long memberId);
+    /**
+     * Selects only the columns of {@link TransactionSummary}, joining book and member in the same statement.
+     * Filters name the foreign keys ({@code t.member.id}, {@code t.book.id}) rather than the joined ids,
+     * so the lookup goes straight to the transactions indexes.
+     */
+    String SELECT_SUMMARY = "SELECT new com.library.dto.TransactionSummary(t.id, b.id, b.title, m.id, m.name, " +
+                            "t.issueDate, t.dueDate, t.returnDate, t.status, t.fine) " +
+                            "FROM Transaction t JOIN t.book b JOIN t.member m ";
     
-    List<Transaction> findByBookId(Long bookId);
+    @EntityGraph(attributePaths = {"book", "member"})
+    Optional<Transaction> findWithBookAndMemberById(Long id);
     
-    List<Transaction> findByStatus(String status);
+    @Query(SELECT_SUMMARY + "ORDER BY t.id")
+    List<TransactionSummary> findAllSummaries();
     
-    @Query("SELECT t FROM Transaction t WHERE t.status = 'ISSUED' AND t.dueDate < :currentDate")
-    List<Transaction> findOverdueTransactions(LocalDate currentDate);
+    @Query(SELECT_SUMMARY + "WHERE t.member.id = :memberId ORDER BY t.id")
+    List<TransactionSummary> findSummariesByMemberId(@Param("memberId") Long memberId);
     
-    @Query("SELECT t FROM Transaction t WHERE t.member.id = :memberId AND t.status = 'ISSUED'")
-    List<Transaction> findActiveTransactionsByMember(Long memberId);
+    @Query(SELECT_SUMMARY + "WHERE t.book.id = :bookId ORDER BY t.id")
+    List<TransactionSummary> findSummariesByBookId(@Param("bookId") Long bookId);
     
-    @Query("SELECT t FROM Transaction t WHERE t.book.id = :bookId AND t.status = 'ISSUED'")
+    @Query(SELECT_SUMMARY + "WHERE t.status = :status ORDER BY t.id")
+    List<TransactionSummary> findSummariesByStatus(@Param("status") String status);
+    
+    @Query(SELECT_SUMMARY + "WHERE t.status IN ('ISSUED', 'OVERDUE') AND t.dueDate < :currentDate " +
+           "ORDER BY t.dueDate, t.id")
+    List<TransactionSummary> findOverdueSummaries(@Param("currentDate") LocalDate currentDate);
+    
+    /**
+     * Ids of the member's open loans, read from the (member_id, status, id) index alone. Selecting
+     * whole rows instead, a status IN list plans no better than the member's foreign key index.
+     */
+    @Query("SELECT t.id FROM Transaction t WHERE t.member.id = :memberId AND t.status IN ('ISSUED', 'OVERDUE') " +
+           "ORDER BY t.id")
+    List<Long> findActiveIdsByMember(@Param("memberId") Long memberId);
+    
+    @Query(SELECT_SUMMARY + "WHERE t.id IN :ids ORDER BY t.id")
+    List<TransactionSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT t FROM Transaction t WHERE t.book.id = :bookId AND t.status IN ('ISSUED', 'OVERDUE')")
     List<Transaction> findActiveTransactionsByBook(Long bookId);
-}
\ No newline at end of file
+    
+    /**
+     * Ids of the first page in due date order, read from the (due_date, id) index alone.
+     */
+    @Query("SELECT t.id FROM Transaction t ORDER BY t.dueDate, t.id")
+    List<Long> findIdsOrderByDueDate(Pageable pageable);
+    
+    /**
+     * Ids of the page after a (due date, id) position. The redundant {@code dueDate >= :dueDate}
+     * gives the index a start key; the OR alone would have it read from the first row.
+     */
+    @Query("SELECT t.id FROM Transaction t WHERE t.dueDate >= :dueDate AND (t.dueDate > :dueDate OR t.id > :id) " +
+           "ORDER BY t.dueDate, t.id")
+    List<Long> findIdPageAfter(@Param("dueDate") LocalDate dueDate, @Param("id") Long id, Pageable pageable);
+    
+    @Query(SELECT_SUMMARY + "WHERE t.id IN :ids ORDER BY t.dueDate, t.id")
+    List<TransactionSummary> findSummariesByIdsOrderByDueDate(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.book JOIN FETCH t.member WHERE t.id IN :ids")
+    List<Transaction> findAllByIdWithBookAndMember(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT new com.library.dto.LoanRow(t.id, t.book.id, t.member.id, t.issueDate, t.dueDate, " +
+           "t.returnDate, t.status, t.fine) FROM Transaction t WHERE t.id > :afterId ORDER BY t.id")
+    List<LoanRow> findLoanRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @QueryHints({
+        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.book JOIN FETCH t.member ORDER BY t.id")
+    Stream<Transaction> streamAllWithBookAndMember();
+    
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Transaction t SET t.status = 'RETURNED', t.returnDate = :returnDate, t.fine = :fine " +
+           "WHERE t.id = :id AND t.status = :status")
+    int markReturned(@Param("id") Long id, @Param("status") String status,
+                     @Param("returnDate") LocalDate returnDate, @Param("fine") Double fine);
+    
+    @Query("SELECT t.id FROM Transaction t WHERE t.status = 'ISSUED' AND t.dueDate >= :from AND t.dueDate < :to " +
+           "ORDER BY t.dueDate, t.id")
+    List<Long> findIssuedIdsDueBetween(@Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = 'OVERDUE' WHERE t.id IN :ids AND t.status = 'ISSUED'")
+    int markOverdue(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT new com.library.dto.LoanRow(t.id, t.book.id, t.member.id, t.issueDate, t.dueDate, " +
+           "t.returnDate, t.status, t.fine) FROM Transaction t WHERE t.id IN :ids AND t.status = 'OVERDUE'")
+    List<LoanRow> findOverdueLoanRowsByIds(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Returned loans that fell due and came back before the cutoff, oldest first, walking the
+     * (status, due_date) index; the due date bounds the scan, the return date decides.
+     */
+    @Query("SELECT t.id FROM Transaction t WHERE t.status = 'RETURNED' AND t.dueDate < :cutoff " +
+           "AND t.returnDate < :cutoff ORDER BY t.dueDate, t.id")
+    List<Long> findReturnedIdsBefore(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+    
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.id IN :ids AND t.status = 'RETURNED'")
+    int deleteReturned(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.status = 'ISSUED' AND t.dueDate < :currentDate")
+    long countIssuedDueBefore(@Param("currentDate") LocalDate currentDate);
+}
@@ -0,0 +1,134 @@
+package com.library.service;
+
+import com.library.repository.ArchivedTransactionRepository;
+import com.library.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background job that moves returned transactions older than the configured
+ * age from the live table to {@code transactions_archive}, so the indexes the
+ * day-to-day queries walk only hold recent and open loans. Each batch copies
+ * and deletes the same rows in one database transaction, and a run stops after
+ * a bounded number of batches so it never competes with checkouts for long.
+ */
+@Service
+@Slf4j
+public class ArchiveService {
+    
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Period minAge;
+    private final int batchSize;
+    private final int maxBatches;
+    
+    private volatile Instant lastRunStarted;
+    private volatile Instant lastRunFinished;
+    private volatile long lastRunMillis;
+    private volatile int lastRunArchived;
+    private volatile LocalDate lastCutoff;
+    private final AtomicLong totalArchived = new AtomicLong();
+    private final AtomicLong failedRuns = new AtomicLong();
+    
+    public ArchiveService(TransactionRepository transactionRepository,
+                          ArchivedTransactionRepository archivedTransactionRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${library.archive.enabled:true}") boolean enabled,
+                          @Value("${library.archive.min-age:P1Y}") Period minAge,
+                          @Value("${library.archive.batch-size:1000}") int batchSize,
+                          @Value("${library.archive.max-batches:50}") int maxBatches) {
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+    
+    @Scheduled(initialDelayString = "${library.archive.initial-delay:PT10M}",
+               fixedDelayString = "${library.archive.interval:PT1H}")
+    public void scheduledRun() {
+        if (enabled) {
+            archiveReturnedTransactions();
+        }
+    }
+    
+    /**
+     * Archives up to {@code max-batches} batches of returned loans and returns how many were moved.
+     */
+    public synchronized int archiveReturnedTransactions() {
+        Instant started = Instant.now();
+        lastRunStarted = started;
+        LocalDate cutoff = LocalDate.now().minus(minAge);
+        lastCutoff = cutoff;
+        int archived = 0;
+        try {
+            for (int batch = 0; batch < maxBatches; batch++) {
+                Integer moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+                if (moved == null || moved == 0) {
+                    break;
+                }
+                archived += moved;
+            }
+            if (archived > 0) {
+                log.info("Archived {} returned transactions due before {}", archived, cutoff);
+            }
+        } catch (RuntimeException ex) {
+            failedRuns.incrementAndGet();
+            log.error("Archiving returned transactions failed", ex);
+        } finally {
+            lastRunArchived = archived;
+            totalArchived.addAndGet(archived);
+            lastRunFinished = Instant.now();
+            lastRunMillis = Duration.between(started, lastRunFinished).toMillis();
+        }
+        return archived;
+    }
+    
+    public Map<String, Object> getJobStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("minAge", minAge.toString());
+        status.put("lastCutoff", lastCutoff);
+        status.put("lastRunStarted", lastRunStarted);
+        status.put("lastRunFinished", lastRunFinished);
+        status.put("lastRunMillis", lastRunMillis);
+        status.put("lastRunArchived", lastRunArchived);
+        status.put("totalArchived", totalArchived.get());
+        status.put("archivedRows", archivedTransactionRepository.count());
+        status.put("failedRuns", failedRuns.get());
+        return status;
+    }
+    
+    private int archiveBatch(LocalDate cutoff) {
+        List<Long> ids = transactionRepository.findReturnedIdsBefore(cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int copied = archivedTransactionRepository.copyReturned(ids, LocalDateTime.now());
+        int deleted = transactionRepository.deleteReturned(ids);
+        if (copied != deleted) {
+            // A row went away in between, e.g. with its book; roll back and pick the batch up again next run
+            throw new IllegalStateException("Archived " + copied + " transactions but removed " + deleted);
+        }
+        return deleted;
+    }
+}
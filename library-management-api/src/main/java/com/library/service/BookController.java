@@ -1,101 +0,0 @@
-package com.library.controller;
-
-import com.library.entity.Book;
-import com.library.service.BookService;
-import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.*;
-
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-@RestController
-@RequestMapping("/api/books")
-@RequiredArgsConstructor
-public class BookController {
-    
-    private final BookService bookService;
-    
-    @PostMapping
-    public ResponseEntity<Book> createBook(@Valid @RequestBody Book book) {
-        Book createdBook = bookService.createBook(book);
-        return new ResponseEntity<>(createdBook, HttpStatus.CREATED);
-    }
-    
-    @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
-        List<Book> books = bookService.getAllBooks();
-        return ResponseEntity.ok(books);
-    }
-    
-    @GetMapping("/paginated")
-    public ResponseEntity<Map<String, Object>> getAllBooksWithPagination(
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Book> bookPage = bookService.getAllBooksWithPagination(pageable);
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("books", bookPage.getContent());
-        response.put("currentPage", bookPage.getNumber());
-        response.put("totalItems", bookPage.getTotalElements());
-        response.put("totalPages", bookPage.getTotalPages());
-        
-        return ResponseEntity.ok(response);
-    }
-    
-    @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
-        Book book = bookService.getBookById(id);
-        return ResponseEntity.ok(book);
-    }
-    
-    @GetMapping("/isbn/{isbn}")
-    public ResponseEntity<Book> getBookByIsbn(@PathVariable String isbn) {
-        Book book = bookService.getBookByIsbn(isbn);
-        return ResponseEntity.ok(book);
-    }
-    
-    @PutMapping("/{id}")
-    public ResponseEntity<Book> updateBook(
-            @PathVariable Long id,
-            @Valid @RequestBody Book book) {
-        Book updatedBook = bookService.updateBook(id, book);
-        return ResponseEntity.ok(updatedBook);
-    }
-    
-    @DeleteMapping("/{id}")
-    public ResponseEntity<Map<String, String>> deleteBook(@PathVariable Long id) {
-        bookService.deleteBook(id);
-        Map<String, String> response = new HashMap<>();
-        response.put("message", "Book deleted successfully");
-        return ResponseEntity.ok(response);
-    }
-    
-    @GetMapping("/search")
-    public ResponseEntity<List<Book>> searchBooks(
-            @RequestParam(required = false) String title,
-            @RequestParam(required = false) String author) {
-        List<Book> books = bookService.searchBooks(title, author);
-        return ResponseEntity.ok(books);
-    }
-    
-    @GetMapping("/search/keyword")
-    public ResponseEntity<List<Book>> searchBooksByKeyword(@RequestParam String keyword) {
-        List<Book> books = bookService.searchBooksByKeyword(keyword);
-        return ResponseEntity.ok(books);
-    }
-    
-    @GetMapping("/available")
-    public ResponseEntity<List<Book>> getAvailableBooks() {
-        List<Book> books = bookService.getAvailableBooks();
-        return ResponseEntity.ok(books);
-    }
-}
\ No newline at end of file
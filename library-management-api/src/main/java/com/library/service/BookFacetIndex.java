@@ -0,0 +1,296 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import com.library.support.AfterTransaction;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory facets over the catalog: per category (and overall) the set of
+ * book ids, the subset with a copy on the shelf, and the number of copies on
+ * the shelf. Counts are set sizes and running sums, so they cost O(1); browse
+ * walks a sorted id set from a keyset cursor.
+ * <p>
+ * Changes are applied after the surrounding transaction commits, so a rolled
+ * back issue never moves a counter. A scheduled pass re-reads the books table
+ * and corrects any drift, skipping books that changed while it was reading.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookFacetIndex {
+    
+    static final String UNCATEGORIZED = "Uncategorized";
+    private static final int RECONCILE_BATCH_SIZE = 1000;
+    
+    private record Entry(String category, int availableCopies) {
+    }
+    
+    private static final class Facet {
+        
+        private final NavigableSet<Long> bookIds = new TreeSet<>();
+        private final NavigableSet<Long> availableIds = new TreeSet<>();
+        private long availableCopies;
+        
+        private void add(Long id, int copies) {
+            bookIds.add(id);
+            if (copies > 0) {
+                availableIds.add(id);
+            }
+            availableCopies += copies;
+        }
+        
+        private void remove(Long id, int copies) {
+            bookIds.remove(id);
+            availableIds.remove(id);
+            availableCopies -= copies;
+        }
+        
+        private Map<String, Object> counts() {
+            Map<String, Object> counts = new LinkedHashMap<>();
+            counts.put("books", bookIds.size());
+            counts.put("availableBooks", availableIds.size());
+            counts.put("availableCopies", availableCopies);
+            return counts;
+        }
+    }
+    
+    private final BookRepository bookRepository;
+    private final MeterRegistry meterRegistry;
+    
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<String, Facet> categories = new TreeMap<>();
+    private final Facet all = new Facet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Ids changed while a reconciliation pass is reading the table; null when no pass is running
+    private Set<Long> changedDuringReconcile;
+    private LocalDateTime reconciledAt;
+    private int lastDrift;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        reconcile();
+    }
+    
+    /**
+     * Compares every book in the table with its facet entry and fixes mismatches.
+     */
+    @Scheduled(initialDelayString = "${library.facets.reconcile-interval:PT10M}",
+               fixedDelayString = "${library.facets.reconcile-interval:PT10M}")
+    public synchronized void reconcile() {
+        setTracking(new HashSet<>());
+        try {
+            Map<Long, Entry> snapshot = readTable();
+            lock.writeLock().lock();
+            try {
+                correct(snapshot);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            setTracking(null);
+        }
+    }
+    
+    public void put(Book book) {
+        Long id = book.getId();
+        Entry entry = entryOf(book);
+        AfterTransaction.onCommit(() -> update(id, entry));
+    }
+    
+    public void remove(Long bookId) {
+        AfterTransaction.onCommit(() -> update(bookId, null));
+    }
+    
+    /**
+     * Moves the shelf count of one book by {@code delta} copies.
+     */
+    public void adjustAvailableCopies(Long bookId, int delta) {
+        AfterTransaction.onCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                Entry current = entries.get(bookId);
+                if (current != null) {
+                    markChanged(bookId);
+                    apply(bookId, new Entry(current.category(), Math.max(0, current.availableCopies() + delta)));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+    
+    /**
+     * Returns up to {@code limit} book ids after {@code afterId}, in id order,
+     * from one category (or all when null), optionally only those on the shelf.
+     */
+    public List<Long> browse(String category, boolean availableOnly, Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            Facet facet = category == null ? all : categories.get(category);
+            if (facet == null) {
+                return List.of();
+            }
+            NavigableSet<Long> ids = availableOnly ? facet.availableIds : facet.bookIds;
+            List<Long> page = new ArrayList<>(limit);
+            for (Long id : ids.tailSet(afterId, false)) {
+                if (page.size() == limit) {
+                    break;
+                }
+                page.add(id);
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public long count(String category, boolean availableOnly) {
+        lock.readLock().lock();
+        try {
+            Facet facet = category == null ? all : categories.get(category);
+            if (facet == null) {
+                return 0;
+            }
+            return availableOnly ? facet.availableIds.size() : facet.bookIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public Map<String, Object> counts() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> byCategory = new LinkedHashMap<>();
+            categories.forEach((category, facet) -> byCategory.put(category, facet.counts()));
+            
+            Map<String, Object> counts = new LinkedHashMap<>();
+            counts.put("total", all.counts());
+            counts.put("categories", byCategory);
+            counts.put("reconciledAt", reconciledAt);
+            counts.put("lastDrift", lastDrift);
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private Map<Long, Entry> readTable() {
+        PageRequest batchSize = PageRequest.of(0, RECONCILE_BATCH_SIZE);
+        Map<Long, Entry> snapshot = new HashMap<>();
+        List<Book> batch = bookRepository.findByIdGreaterThanOrderByIdAsc(0L, batchSize);
+        while (!batch.isEmpty()) {
+            for (Book book : batch) {
+                snapshot.put(book.getId(), entryOf(book));
+            }
+            batch = bookRepository.findByIdGreaterThanOrderByIdAsc(batch.get(batch.size() - 1).getId(), batchSize);
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Brings the facets in line with a table snapshot, leaving alone books that
+     * changed after the snapshot was taken. Caller holds the write lock.
+     */
+    private void correct(Map<Long, Entry> snapshot) {
+        boolean initial = reconciledAt == null;
+        int drift = 0;
+        for (Map.Entry<Long, Entry> row : snapshot.entrySet()) {
+            Long id = row.getKey();
+            if (!changedDuringReconcile.contains(id) && !row.getValue().equals(entries.get(id))) {
+                apply(id, row.getValue());
+                drift++;
+            }
+        }
+        for (Long id : new ArrayList<>(entries.keySet())) {
+            if (!snapshot.containsKey(id) && !changedDuringReconcile.contains(id)) {
+                apply(id, null);
+                drift++;
+            }
+        }
+        reconciledAt = LocalDateTime.now();
+        
+        if (initial) {
+            log.info("Book facets built for {} books in {} categories", entries.size(), categories.size());
+            return;
+        }
+        lastDrift = drift;
+        if (drift > 0) {
+            meterRegistry.counter("library.facets.drift").increment(drift);
+            log.warn("Book facets drifted from the database for {} books; corrected", drift);
+        }
+    }
+    
+    private void setTracking(Set<Long> changed) {
+        lock.writeLock().lock();
+        try {
+            changedDuringReconcile = changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void update(Long id, Entry entry) {
+        lock.writeLock().lock();
+        try {
+            markChanged(id);
+            apply(id, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    private void markChanged(Long id) {
+        if (changedDuringReconcile != null) {
+            changedDuringReconcile.add(id);
+        }
+    }
+    
+    /**
+     * Replaces the entry of one book; null removes it. Caller holds the write lock.
+     */
+    private void apply(Long id, Entry entry) {
+        Entry previous = entry == null ? entries.remove(id) : entries.put(id, entry);
+        if (previous != null) {
+            all.remove(id, previous.availableCopies());
+            Facet facet = categories.get(previous.category());
+            facet.remove(id, previous.availableCopies());
+            if (facet.bookIds.isEmpty()) {
+                categories.remove(previous.category());
+            }
+        }
+        if (entry != null) {
+            all.add(id, entry.availableCopies());
+            categories.computeIfAbsent(entry.category(), key -> new Facet()).add(id, entry.availableCopies());
+        }
+    }
+    
+    private static Entry entryOf(Book book) {
+        String category = book.getCategory() == null || book.getCategory().isBlank()
+            ? UNCATEGORIZED : book.getCategory();
+        return new Entry(category, Objects.requireNonNullElse(book.getAvailableCopies(), 0));
+    }
+}
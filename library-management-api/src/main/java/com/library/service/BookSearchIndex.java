@@ -0,0 +1,300 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.exception.BadRequestException;
+import com.library.repository.BookRepository;
+import com.library.support.AfterTransaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over book title, author, ISBN and category.
+ * Terms are case-folded tokens kept in a sorted map, so a query token matches
+ * every indexed term it is a prefix of (a token of one or two characters only
+ * matches itself). Results are ranked book ids; the
+ * caller loads the entities by primary key. Changes are applied once the
+ * surrounding transaction commits, so a rollback leaves the index untouched.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookSearchIndex {
+    
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    // Shorter query tokens only match whole terms; as prefixes they would match most of the index
+    static final int MIN_PREFIX_LENGTH = 3;
+    
+    // Best first: higher score, then lower id
+    private static final Comparator<Map.Entry<Long, Integer>> RANKING =
+        Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+    
+    enum Field {
+        TITLE(3), AUTHOR(2), ISBN(4), CATEGORY(1);
+        
+        private final int weight;
+        
+        Field(int weight) {
+            this.weight = weight;
+        }
+    }
+    
+    private record Clause(String token, Set<Field> fields) {
+    }
+    
+    private final BookRepository bookRepository;
+    
+    private final Map<Field, NavigableMap<String, Set<Long>>> postings = new EnumMap<>(Field.class);
+    private final NavigableMap<Long, Map<Field, Set<String>>> documents = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    {
+        for (Field field : Field.values()) {
+            postings.put(field, new TreeMap<>());
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.values().forEach(Map::clear);
+            documents.clear();
+            
+            Page<Book> page = bookRepository.findAll(PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("id")));
+            while (true) {
+                page.getContent().forEach(book -> addDocument(book.getId(), termsOf(book)));
+                if (!page.hasNext()) {
+                    break;
+                }
+                page = bookRepository.findAll(page.nextPageable());
+            }
+            log.info("Book search index built with {} books", documents.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void index(Book book) {
+        Long id = book.getId();
+        Map<Field, Set<String>> terms = termsOf(book);
+        AfterTransaction.onCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeDocument(id);
+                addDocument(id, terms);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+    
+    public void remove(Long bookId) {
+        AfterTransaction.onCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeDocument(bookId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+    
+    /**
+     * Matches the keyword against every indexed field; a blank keyword matches every book.
+     */
+    public List<Long> search(String keyword, int page, int size) {
+        List<Clause> clauses = new ArrayList<>();
+        for (String token : tokenize(keyword, Field.TITLE)) {
+            clauses.add(new Clause(token, EnumSet.allOf(Field.class)));
+        }
+        return search(clauses, page, size);
+    }
+    
+    /**
+     * Matches title and author against their own fields; both must match when
+     * both are given, and every book matches when neither is.
+     */
+    public List<Long> search(String title, String author, int page, int size) {
+        List<Clause> clauses = new ArrayList<>();
+        for (String token : tokenize(title, Field.TITLE)) {
+            clauses.add(new Clause(token, EnumSet.of(Field.TITLE)));
+        }
+        for (String token : tokenize(author, Field.AUTHOR)) {
+            clauses.add(new Clause(token, EnumSet.of(Field.AUTHOR)));
+        }
+        return search(clauses, page, size);
+    }
+    
+    /**
+     * Every clause must match a term in one of its fields. A clause scores the
+     * best field weight it hits, doubled for an exact term match, and a book's
+     * rank is the sum over all clauses. Without clauses all books are listed in id order.
+     * Only the best (page + 1) * size matches are kept and sorted, in a bounded heap.
+     */
+    private List<Long> search(List<Clause> clauses, int page, int size) {
+        if (page < 0 || size < 1 || size > CursorCodec.MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page must not be negative and size must be between 1 and "
+                + CursorCodec.MAX_PAGE_SIZE);
+        }
+        if (clauses.isEmpty()) {
+            return allIds(page, size);
+        }
+        
+        Map<Long, Integer> scores = null;
+        lock.readLock().lock();
+        try {
+            for (Clause clause : clauses) {
+                Map<Long, Integer> clauseScores = new HashMap<>();
+                for (Field field : clause.fields()) {
+                    scoreToken(field, clause.token(), clauseScores);
+                }
+                scores = intersect(scores, clauseScores);
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        long from = (long) page * size;
+        if (from >= scores.size()) {
+            return Collections.emptyList();
+        }
+        int kept = (int) Math.min(from + size, scores.size());
+        // Worst of the kept matches at the head, so a better one replaces it
+        PriorityQueue<Map.Entry<Long, Integer>> top = new PriorityQueue<>(kept, RANKING.reversed());
+        for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+            if (top.size() < kept) {
+                top.add(entry);
+            } else if (RANKING.compare(entry, top.peek()) < 0) {
+                top.poll();
+                top.add(entry);
+            }
+        }
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(top);
+        ranked.sort(RANKING);
+        List<Long> ids = new ArrayList<>(kept - (int) from);
+        for (Map.Entry<Long, Integer> entry : ranked.subList((int) from, kept)) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+    
+    private List<Long> allIds(int page, int size) {
+        lock.readLock().lock();
+        try {
+            return documents.keySet().stream()
+                .skip((long) page * size)
+                .limit(size)
+                .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void scoreToken(Field field, String token, Map<Long, Integer> tokenScores) {
+        NavigableMap<String, Set<Long>> matches = token.length() < MIN_PREFIX_LENGTH
+            ? postings.get(field).subMap(token, true, token, true)
+            : postings.get(field).subMap(token, true, token + Character.MAX_VALUE, false);
+        for (Map.Entry<String, Set<Long>> match : matches.entrySet()) {
+            int score = match.getKey().length() == token.length() ? field.weight * 2 : field.weight;
+            for (Long id : match.getValue()) {
+                tokenScores.merge(id, score, Math::max);
+            }
+        }
+    }
+    
+    private Map<Long, Integer> intersect(Map<Long, Integer> scores, Map<Long, Integer> tokenScores) {
+        if (scores == null) {
+            return tokenScores;
+        }
+        Map<Long, Integer> result = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+            Integer tokenScore = tokenScores.get(entry.getKey());
+            if (tokenScore != null) {
+                result.put(entry.getKey(), entry.getValue() + tokenScore);
+            }
+        }
+        return result;
+    }
+    
+    private static Map<Field, Set<String>> termsOf(Book book) {
+        Map<Field, Set<String>> terms = new EnumMap<>(Field.class);
+        terms.put(Field.TITLE, tokenize(book.getTitle(), Field.TITLE));
+        terms.put(Field.AUTHOR, tokenize(book.getAuthor(), Field.AUTHOR));
+        terms.put(Field.ISBN, tokenize(book.getIsbn(), Field.ISBN));
+        terms.put(Field.CATEGORY, tokenize(book.getCategory(), Field.CATEGORY));
+        return terms;
+    }
+    
+    private void addDocument(Long id, Map<Field, Set<String>> terms) {
+        terms.forEach((field, fieldTerms) -> fieldTerms.forEach(term ->
+            postings.get(field).computeIfAbsent(term, key -> new HashSet<>()).add(id)));
+        documents.put(id, terms);
+    }
+    
+    private void removeDocument(Long bookId) {
+        Map<Field, Set<String>> terms = documents.remove(bookId);
+        if (terms == null) {
+            return;
+        }
+        terms.forEach((field, fieldTerms) -> fieldTerms.forEach(term -> {
+            Set<Long> ids = postings.get(field).get(term);
+            if (ids != null) {
+                ids.remove(bookId);
+                if (ids.isEmpty()) {
+                    postings.get(field).remove(term);
+                }
+            }
+        }));
+    }
+    
+    /**
+     * Lower-cases and splits on anything that is not a letter or digit. ISBNs are
+     * additionally indexed with the hyphens stripped so "9780132350884" and
+     * "978-0132350884" both find the same book.
+     */
+    static Set<String> tokenize(String text, Field field) {
+        Set<String> tokens = new HashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        String folded = text.toLowerCase(Locale.ROOT);
+        for (String token : folded.split("[^\\p{L}\\p{Nd}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        if (field == Field.ISBN) {
+            String digits = folded.replaceAll("[^\\p{Nd}x]", "");
+            if (!digits.isEmpty()) {
+                tokens.add(digits);
+            }
+        }
+        return tokens;
+    }
+}
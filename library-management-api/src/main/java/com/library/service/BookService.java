@@ -0,0 +1,285 @@
+package com.library.service;
+
+import com.library.dto.CursorPage;
+import com.library.entity.Book;
+import com.library.entity.Transaction;
+import com.library.exception.BadRequestException;
+import com.library.exception.BookNotAvailableException;
+import com.library.exception.DuplicateResourceException;
+import com.library.exception.ResourceNotFoundException;
+import com.library.repository.ArchivedTransactionRepository;
+import com.library.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class BookService {
+    
+    private final BookRepository bookRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookFacetIndex bookFacetIndex;
+    private final LookupIndex lookupIndex;
+    private final BorrowingService borrowingService;
+    private final EntityCache<Book> bookCache;
+    private final ResourceVersions resourceVersions;
+    
+    public Book createBook(Book book) {
+        if (bookRepository.existsByIsbn(book.getIsbn())) {
+            throw new DuplicateResourceException("Book with ISBN " + book.getIsbn() + " already exists");
+        }
+        Book savedBook = bookRepository.save(book);
+        bookSearchIndex.index(savedBook);
+        bookFacetIndex.put(savedBook);
+        lookupIndex.indexBook(savedBook);
+        resourceVersions.bookChanged(savedBook.getId());
+        return savedBook;
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Book> getAllBooks() {
+        return bookRepository.findAll();
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<Book> getAllBooksWithPagination(Pageable pageable) {
+        return bookRepository.findAll(pageable);
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<Book> getBooksAfter(String cursor, int size, boolean includeTotal) {
+        CursorCodec.validateSize(size);
+        Long afterId = cursor == null ? 0L : CursorCodec.decodeId(cursor);
+        List<Book> rows = bookRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size + 1));
+        Long totalItems = includeTotal ? bookRepository.count() : null;
+        return CursorCodec.toPage(rows, size, book -> CursorCodec.encode(book.getId()), totalItems);
+    }
+    
+    @Transactional(readOnly = true)
+    public Book getBookById(Long id) {
+        Book book = bookCache.getById(id, key -> bookRepository.findById(key).orElse(null));
+        if (book == null) {
+            throw new ResourceNotFoundException("Book not found with id: " + id);
+        }
+        return book;
+    }
+    
+    @Transactional(readOnly = true)
+    public Book getBookByIsbn(String isbn) {
+        Book book = bookCache.getByKey(isbn, key -> bookRepository.findByIsbn(key).orElse(null));
+        if (book == null) {
+            throw new ResourceNotFoundException("Book not found with ISBN: " + isbn);
+        }
+        return book;
+    }
+    
+    public Book updateBook(Long id, Book bookDetails) {
+        Book book = findBook(id);
+        
+        // Check if ISBN is being changed and if the new ISBN already exists
+        if (!book.getIsbn().equals(bookDetails.getIsbn())) {
+            if (bookRepository.existsByIsbn(bookDetails.getIsbn())) {
+                throw new DuplicateResourceException("Book with ISBN " + bookDetails.getIsbn() + " already exists");
+            }
+        }
+        
+        book.setTitle(bookDetails.getTitle());
+        book.setAuthor(bookDetails.getAuthor());
+        book.setIsbn(bookDetails.getIsbn());
+        book.setPublisher(bookDetails.getPublisher());
+        book.setPublishedYear(bookDetails.getPublishedYear());
+        book.setTotalCopies(bookDetails.getTotalCopies());
+        book.setAvailableCopies(bookDetails.getAvailableCopies());
+        book.setCategory(bookDetails.getCategory());
+        
+        Book savedBook = bookRepository.save(book);
+        bookCache.invalidate(id);
+        resourceVersions.bookChanged(id);
+        bookSearchIndex.index(savedBook);
+        bookFacetIndex.put(savedBook);
+        lookupIndex.indexBook(savedBook);
+        return savedBook;
+    }
+    
+    /**
+     * Deletes the book with its loans and holds. Loans still open are written
+     * off: they stop counting against their members, without a fine.
+     */
+    public void deleteBook(Long id) {
+        Book book = findBook(id);
+        // Per member: open loans, and how many of them are overdue
+        Map<Long, int[]> openLoans = new LinkedHashMap<>();
+        for (Transaction transaction : book.getTransactions()) {
+            String status = transaction.getStatus();
+            if ("ISSUED".equals(status) || "OVERDUE".equals(status)) {
+                int[] loans = openLoans.computeIfAbsent(transaction.getMember().getId(), key -> new int[2]);
+                loans[0]++;
+                loans[1] += "OVERDUE".equals(status) ? 1 : 0;
+            }
+        }
+        openLoans.forEach((memberId, loans) -> borrowingService.checkIn(memberId, loans[0], loans[1], 0.0));
+        bookRepository.delete(book);
+        archivedTransactionRepository.deleteByBookId(id);
+        bookCache.invalidate(id);
+        resourceVersions.bookChanged(id);
+        bookSearchIndex.remove(id);
+        bookFacetIndex.remove(id);
+        lookupIndex.removeBook(id);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Book> searchBooks(String title, String author, int page, int size) {
+        return findAllInOrder(bookSearchIndex.search(title, author, page, size));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Book> searchBooksByKeyword(String keyword, int page, int size) {
+        return findAllInOrder(bookSearchIndex.search(keyword, page, size));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Book> getAvailableBooks() {
+        return bookRepository.findByAvailableCopiesGreaterThan(0);
+    }
+    
+    /**
+     * Pages through one category, or the whole catalog, in id order using the
+     * in-memory facets; only the page itself is loaded from the database.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Book> browseBooks(String category, boolean availableOnly, String cursor, int size,
+                                        boolean includeTotal) {
+        CursorCodec.validateSize(size);
+        Long afterId = cursor == null ? 0L : CursorCodec.decodeId(cursor);
+        List<Book> rows = findAllInOrder(bookFacetIndex.browse(category, availableOnly, afterId, size + 1));
+        Long totalItems = includeTotal ? bookFacetIndex.count(category, availableOnly) : null;
+        return CursorCodec.toPage(rows, size, book -> CursorCodec.encode(book.getId()), totalItems);
+    }
+    
+    public Map<String, Object> getFacetCounts() {
+        return bookFacetIndex.counts();
+    }
+    
+    /**
+     * Takes one copy off the shelf with a single conditional UPDATE, so two
+     * concurrent checkouts can never both claim the last copy.
+     */
+    public void decreaseAvailableCopies(Long id) {
+        bookCache.invalidate(id);
+        resourceVersions.bookChanged(id);
+        if (bookRepository.decrementAvailableCopies(id, 1) == 0) {
+            if (!bookRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Book not found with id: " + id);
+            }
+            throw new BookNotAvailableException("Book is not available for issuing");
+        }
+        bookFacetIndex.adjustAvailableCopies(id, -1);
+    }
+    
+    /**
+     * Puts one copy back on the shelf, never exceeding the total copy count.
+     */
+    public void increaseAvailableCopies(Long id) {
+        increaseAvailableCopies(id, 1);
+    }
+    
+    /**
+     * Takes as many of the requested copies as are left, at most two guarded
+     * UPDATEs, and returns how many were taken.
+     */
+    public int takeAvailableCopies(Long id, int requested) {
+        bookCache.invalidate(id);
+        resourceVersions.bookChanged(id);
+        if (bookRepository.decrementAvailableCopies(id, requested) > 0) {
+            bookFacetIndex.adjustAvailableCopies(id, -requested);
+            return requested;
+        }
+        int count = Math.min(requested, bookRepository.findAvailableCopiesById(id).orElse(0));
+        if (count > 0 && bookRepository.decrementAvailableCopies(id, count) > 0) {
+            bookFacetIndex.adjustAvailableCopies(id, -count);
+            return count;
+        }
+        return 0;
+    }
+    
+    /**
+     * Puts back as many of the copies as the total leaves room for, at most two
+     * guarded UPDATEs, and returns how many went back.
+     */
+    public int restoreAvailableCopies(Long id, int count) {
+        bookCache.invalidate(id);
+        resourceVersions.bookChanged(id);
+        if (bookRepository.incrementAvailableCopies(id, count) > 0) {
+            bookFacetIndex.adjustAvailableCopies(id, count);
+            return count;
+        }
+        int room = Math.min(count, bookRepository.findCopiesOffShelfById(id).orElse(0));
+        if (room > 0 && bookRepository.incrementAvailableCopies(id, room) > 0) {
+            bookFacetIndex.adjustAvailableCopies(id, room);
+            return room;
+        }
+        return 0;
+    }
+    
+    public void increaseAvailableCopies(Long id, int count) {
+        bookCache.invalidate(id);
+        resourceVersions.bookChanged(id);
+        if (bookRepository.incrementAvailableCopies(id, count) == 0) {
+            if (!bookRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Book not found with id: " + id);
+            }
+            throw new BadRequestException("All copies of this book are already available");
+        }
+        bookFacetIndex.adjustAvailableCopies(id, count);
+    }
+    
+    @Transactional(readOnly = true)
+    public Map<Long, Book> getBooksByIds(Collection<Long> ids) {
+        Map<Long, Book> books = new HashMap<>();
+        bookRepository.findAllById(ids).forEach(book -> books.put(book.getId(), book));
+        return books;
+    }
+    
+    public Map<String, Object> getCacheStats() {
+        return bookCache.stats();
+    }
+    
+    /**
+     * Loads the managed entity for write paths; cached instances are shared and must not be mutated.
+     */
+    private Book findBook(Long id) {
+        return bookRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
+    }
+    
+    /**
+     * Loads books by primary key, keeping the order of the ranked id list.
+     */
+    private List<Book> findAllInOrder(List<Long> ids) {
+        Map<Long, Book> booksById = new HashMap<>();
+        for (Book book : bookRepository.findAllById(ids)) {
+            booksById.put(book.getId(), book);
+        }
+        List<Book> books = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Book book = booksById.get(id);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+}
@@ -0,0 +1,210 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.Book;
+import com.library.support.Representations;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-serialized bodies of the book collections every kiosk polls, in JSON and
+ * CBOR, each kept plain and gzipped. A snapshot is tagged with the collection
+ * version it was built at, so a change to any book (which bumps the version)
+ * marks it dirty. Dirty snapshots are rebuilt in the background, and only for
+ * collections that were asked for since the last build. Until then the dirty
+ * snapshot is still served, under its own (older) tag, for less than
+ * {@code max-staleness} after it was found dirty (never, if that is zero); past
+ * that, requests take the regular path. Books change with every checkout, so a snapshot that was only
+ * served while current would hardly ever be served at all.
+ * <p>
+ * The bytes are shared by all requests and written as they are, with no
+ * per-request serialization or compression. Gzipping here rather than in the
+ * server also covers these responses, which Tomcat leaves uncompressed because
+ * they carry a strong ETag. Each of the four bodies of a version has its own
+ * tag: the format's tag, with {@code -gz} appended for the gzipped body.
+ */
+@Component
+@Slf4j
+public class BookSnapshots {
+    
+    public enum Collection { ALL, AVAILABLE }
+    
+    private record Snapshot(ResourceVersions.Version version, Map<MediaType, byte[]> plain,
+                            Map<MediaType, byte[]> gzipped) {
+    }
+    
+    private final BookService bookService;
+    private final ResourceVersions resourceVersions;
+    private final Map<MediaType, ObjectMapper> mappers;
+    private final boolean enabled;
+    private final long maxStalenessNanos;
+    
+    private final Map<Collection, Snapshot> snapshots = new EnumMap<>(Collection.class);
+    private final Set<Collection> wanted = EnumSet.noneOf(Collection.class);
+    // When each dirty snapshot was first found dirty, by a request or a refresh
+    private final Map<Collection, Long> dirtySince = new EnumMap<>(Collection.class);
+    
+    public BookSnapshots(BookService bookService,
+                         ResourceVersions resourceVersions,
+                         ObjectMapper objectMapper,
+                         MappingJackson2CborHttpMessageConverter cborHttpMessageConverter,
+                         @Value("${library.snapshots.enabled:true}") boolean enabled,
+                         @Value("${library.snapshots.max-staleness:${library.snapshots.refresh-interval:PT1S}}")
+                         Duration maxStaleness) {
+        this.bookService = bookService;
+        this.resourceVersions = resourceVersions;
+        this.mappers = Map.of(MediaType.APPLICATION_JSON, objectMapper,
+            MediaType.APPLICATION_CBOR, cborHttpMessageConverter.getObjectMapper());
+        this.enabled = enabled;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+    }
+    
+    /**
+     * The snapshot response for the collection, current at {@code version} or
+     * dirty for no longer than the maximum staleness, in the format and coding
+     * the request prefers, or null when there is none to serve. It carries the
+     * tag and last-modified time of the version it was built at, so a matching
+     * conditional request is answered with 304 when it is written.
+     */
+    public ResponseEntity<byte[]> find(Collection collection, ResourceVersions.Version version, HttpHeaders headers) {
+        if (!enabled) {
+            return null;
+        }
+        Snapshot snapshot;
+        synchronized (snapshots) {
+            snapshot = snapshots.get(collection);
+            if (snapshot == null) {
+                wanted.add(collection);
+                return null;
+            }
+            if (!snapshot.version().etag().equals(version.etag())) {
+                wanted.add(collection);
+                long now = System.nanoTime();
+                if (now - dirtySince.computeIfAbsent(collection, key -> now) >= maxStalenessNanos) {
+                    return null;
+                }
+            }
+        }
+        MediaType format = Representations.negotiate(headers.getAccept());
+        if (format == null) {
+            return null;
+        }
+        boolean gzip = acceptsGzip(headers.get(HttpHeaders.ACCEPT_ENCODING));
+        ResourceVersions.Version tagged = snapshot.version().in(format);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(format)
+            .eTag(gzip ? tagged.etag() + "-gz" : tagged.etag())
+            .lastModified(tagged.lastModified())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? snapshot.gzipped().get(format) : snapshot.plain().get(format));
+    }
+    
+    @Scheduled(initialDelayString = "${library.snapshots.refresh-interval:PT1S}",
+               fixedDelayString = "${library.snapshots.refresh-interval:PT1S}")
+    public void refresh() {
+        if (enabled) {
+            refresh(Collection.ALL, bookService::getAllBooks);
+            refresh(Collection.AVAILABLE, bookService::getAvailableBooks);
+        }
+    }
+    
+    /**
+     * Drops every snapshot, dirty or not; the next requests take the regular path.
+     */
+    void clear() {
+        synchronized (snapshots) {
+            snapshots.clear();
+            wanted.clear();
+            dirtySince.clear();
+        }
+    }
+    
+    private void refresh(Collection collection, Supplier<List<Book>> books) {
+        // Read before the rows, so a change in between only costs the clients a refetch
+        ResourceVersions.Version version = resourceVersions.books();
+        synchronized (snapshots) {
+            Snapshot current = snapshots.get(collection);
+            if (current != null && current.version().etag().equals(version.etag())) {
+                wanted.remove(collection);
+                return;
+            }
+            if (current != null) {
+                // Starts the clock of a snapshot nobody asked for since the change
+                dirtySince.putIfAbsent(collection, System.nanoTime());
+            }
+            if (!wanted.remove(collection)) {
+                return;
+            }
+        }
+        long started = System.nanoTime();
+        Snapshot snapshot = build(version, books.get());
+        synchronized (snapshots) {
+            snapshots.put(collection, snapshot);
+            // Changed again while building: the clock keeps running, so a newer version already served stays
+            if (resourceVersions.books().etag().equals(version.etag())) {
+                dirtySince.remove(collection);
+            }
+        }
+        log.debug("Rebuilt {} books snapshot in {} ms", collection, (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    private Snapshot build(ResourceVersions.Version version, List<Book> books) {
+        Map<MediaType, byte[]> plain = new HashMap<>();
+        Map<MediaType, byte[]> gzipped = new HashMap<>();
+        try {
+            for (MediaType format : Representations.FORMATS) {
+                byte[] body = mappers.get(format).writeValueAsBytes(books);
+                plain.put(format, body);
+                gzipped.put(format, gzip(body));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return new Snapshot(version, plain, gzipped);
+    }
+    
+    private static boolean acceptsGzip(List<String> acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String header : acceptEncoding) {
+            for (String coding : header.split(",")) {
+                String[] parts = coding.trim().split("\\s*;\\s*");
+                if (parts[0].equalsIgnoreCase("gzip")) {
+                    return parts.length == 1 || !parts[1].matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+    
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
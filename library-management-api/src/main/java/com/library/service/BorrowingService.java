@@ -0,0 +1,193 @@
+package com.library.service;
+
+import com.library.entity.Member;
+import com.library.entity.MemberBorrowingState;
+import com.library.exception.BadRequestException;
+import com.library.exception.BorrowingBlockedException;
+import com.library.repository.MemberBorrowingStateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Enforces loan limits and fine blocks against the per-member borrowing state.
+ * A checkout is one guarded UPDATE of the member's row, which both checks the
+ * rules and claims the loan, so eligibility never depends on counting loans.
+ */
+@Service
+@Slf4j
+@Transactional
+public class BorrowingService {
+    
+    // Derives a member's row from their loans; fines assessed before the row existed count as settled
+    private static final String INSERT_STATE_SQL =
+        "INSERT INTO member_borrowing_state (member_id, active_loans, overdue_loans, fines_owed) " +
+        "SELECT m.id, " +
+        "(SELECT COUNT(*) FROM transactions t WHERE t.member_id = m.id AND t.status IN ('ISSUED', 'OVERDUE')), " +
+        "(SELECT COUNT(*) FROM transactions t WHERE t.member_id = m.id AND t.status = 'OVERDUE'), 0 " +
+        "FROM members m WHERE NOT EXISTS (SELECT 1 FROM member_borrowing_state s WHERE s.member_id = m.id)";
+    
+    private final MemberBorrowingStateRepository stateRepository;
+    private final MemberService memberService;
+    private final JdbcTemplate jdbcTemplate;
+    private final int standardLimit;
+    private final int premiumLimit;
+    private final int studentLimit;
+    private final int maxOverdue;
+    private final double fineBlock;
+    
+    public BorrowingService(MemberBorrowingStateRepository stateRepository,
+                            MemberService memberService,
+                            JdbcTemplate jdbcTemplate,
+                            @Value("${library.loans.limit.standard:5}") int standardLimit,
+                            @Value("${library.loans.limit.premium:10}") int premiumLimit,
+                            @Value("${library.loans.limit.student:3}") int studentLimit,
+                            @Value("${library.loans.max-overdue:0}") int maxOverdue,
+                            @Value("${library.loans.fine-block:50.0}") double fineBlock) {
+        this.stateRepository = stateRepository;
+        this.memberService = memberService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.standardLimit = standardLimit;
+        this.premiumLimit = premiumLimit;
+        this.studentLimit = studentLimit;
+        this.maxOverdue = maxOverdue;
+        this.fineBlock = fineBlock;
+    }
+    
+    /**
+     * Creates the rows of members that have none yet, e.g. after an upgrade or a direct database load.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        int created = jdbcTemplate.update(INSERT_STATE_SQL);
+        if (created > 0) {
+            log.info("Initialized borrowing state for {} members", created);
+        }
+    }
+    
+    /**
+     * Claims one loan for the member or explains why they may not borrow.
+     */
+    public void checkOut(Member member) {
+        checkOut(member, 1);
+    }
+    
+    /**
+     * Claims up to the requested number of loans, at most what the loan limit
+     * leaves room for, and returns how many were claimed. Fails when not even
+     * one loan can be claimed. A refusal leaves the caller's transaction able
+     * to commit, so a batch can fail the member's items and issue the rest.
+     */
+    @Transactional(noRollbackFor = BorrowingBlockedException.class)
+    public int checkOut(Member member, int requested) {
+        int limit = loanLimit(member);
+        if (stateRepository.addLoans(member.getId(), requested, limit, maxOverdue, fineBlock) > 0) {
+            return requested;
+        }
+        MemberBorrowingState state = findOrCreateState(member.getId());
+        String refusal = refusal(state, limit);
+        if (refusal == null) {
+            int count = Math.min(requested, limit - state.getActiveLoans());
+            if (stateRepository.addLoans(member.getId(), count, limit, maxOverdue, fineBlock) > 0) {
+                return count;
+            }
+            // Another checkout by the same member took the room in between
+            refusal = "Member has reached the loan limit of " + limit;
+        }
+        throw new BorrowingBlockedException(refusal);
+    }
+    
+    /**
+     * Closes loans for a member: overdue loans among them stop blocking and the
+     * fines assessed at return become owed.
+     */
+    public void checkIn(Long memberId, int loans, int overdueLoans, double fines) {
+        stateRepository.releaseLoans(memberId, loans, overdueLoans, fines);
+    }
+    
+    public void recordOverdue(Collection<Long> transactionIds) {
+        stateRepository.addOverdueLoans(transactionIds);
+    }
+    
+    public Map<String, Object> payFines(Long memberId, double amount) {
+        if (amount <= 0) {
+            throw new BadRequestException("Payment amount must be positive");
+        }
+        Member member = memberService.getMemberById(memberId);
+        MemberBorrowingState state = findOrCreateState(memberId);
+        if (stateRepository.payFines(memberId, amount) == 0) {
+            throw new BadRequestException("Payment exceeds the fines owed (" + state.getFinesOwed() + ")");
+        }
+        return toMap(member, stateRepository.findById(memberId).orElseThrow());
+    }
+    
+    public Map<String, Object> getBorrowingState(Long memberId) {
+        Member member = memberService.getMemberById(memberId);
+        return toMap(member, findOrCreateState(memberId));
+    }
+    
+    int loanLimit(Member member) {
+        String type = member.getMembershipType();
+        if ("PREMIUM".equals(type)) {
+            return premiumLimit;
+        }
+        if ("STUDENT".equals(type)) {
+            return studentLimit;
+        }
+        return standardLimit;
+    }
+    
+    private MemberBorrowingState findOrCreateState(Long memberId) {
+        MemberBorrowingState state = stateRepository.findById(memberId).orElse(null);
+        if (state != null) {
+            return state;
+        }
+        // Plain JDBC so a concurrent first checkout losing the race does not mark the transaction rollback-only
+        try {
+            jdbcTemplate.update(INSERT_STATE_SQL + " AND m.id = ?", memberId);
+        } catch (DataIntegrityViolationException ex) {
+            log.debug("Borrowing state for member {} was created concurrently", memberId);
+        }
+        return stateRepository.findById(memberId)
+            .orElseGet(() -> new MemberBorrowingState(memberId, 0, 0, 0.0));
+    }
+    
+    private String refusal(MemberBorrowingState state, int limit) {
+        if (state.getFinesOwed() >= fineBlock) {
+            return "Member owes " + state.getFinesOwed() + " in fines; borrowing is blocked until they are below "
+                + fineBlock;
+        }
+        if (state.getOverdueLoans() > maxOverdue) {
+            return "Member has " + state.getOverdueLoans() + " overdue loans; return them before borrowing";
+        }
+        if (state.getActiveLoans() >= limit) {
+            return "Member has reached the loan limit of " + limit;
+        }
+        return null;
+    }
+    
+    private Map<String, Object> toMap(Member member, MemberBorrowingState state) {
+        int limit = loanLimit(member);
+        String refusal = refusal(state, limit);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("memberId", member.getId());
+        map.put("membershipType", member.getMembershipType());
+        map.put("activeLoans", state.getActiveLoans());
+        map.put("loanLimit", limit);
+        map.put("overdueLoans", state.getOverdueLoans());
+        map.put("finesOwed", state.getFinesOwed());
+        map.put("fineBlock", fineBlock);
+        map.put("canBorrow", refusal == null);
+        map.put("blockedReason", refusal);
+        return map;
+    }
+}
@@ -0,0 +1,61 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.exception.ResourceNotFoundException;
+import com.library.repository.ReactiveBookRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Non-blocking catalog reads. Queries run on the R2DBC pool, so a browsing
+ * request holds neither a servlet thread nor a JDBC connection while it waits.
+ * Search ranks ids in the in-memory index and loads them in one query.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogService {
+    
+    private final ReactiveBookRepository reactiveBookRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final EntityCache<Book> bookCache;
+    
+    public Flux<Book> getAllBooks() {
+        return reactiveBookRepository.findAll();
+    }
+    
+    public Flux<Book> getAvailableBooks() {
+        return reactiveBookRepository.findAvailable();
+    }
+    
+    public Mono<Book> getBookById(Long id) {
+        Book cached = bookCache.peek(id);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return reactiveBookRepository.findById(id)
+            .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Book not found with id: " + id)));
+    }
+    
+    public Flux<Book> searchBooks(String title, String author, int page, int size) {
+        return Flux.defer(() -> findAllInOrder(bookSearchIndex.search(title, author, page, size)));
+    }
+    
+    public Flux<Book> searchBooksByKeyword(String keyword, int page, int size) {
+        return Flux.defer(() -> findAllInOrder(bookSearchIndex.search(keyword, page, size)));
+    }
+    
+    private Flux<Book> findAllInOrder(List<Long> ids) {
+        return reactiveBookRepository.findAllById(ids)
+            .collectMap(Book::getId)
+            .flatMapIterable(booksById -> ids.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+}
@@ -0,0 +1,93 @@
+package com.library.service;
+
+import com.library.exception.BadRequestException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal RFC 4180 reader: a header row followed by records, with double-quoted
+ * fields that may contain commas, doubled quotes and line breaks.
+ */
+final class CsvReader {
+    
+    private CsvReader() {
+    }
+    
+    static List<Map<String, String>> read(Reader reader) throws IOException {
+        List<List<String>> records = parse(reader);
+        if (records.isEmpty()) {
+            throw new BadRequestException("CSV file is empty");
+        }
+        
+        List<String> header = records.get(0);
+        List<Map<String, String>> rows = new ArrayList<>(records.size() - 1);
+        for (int i = 1; i < records.size(); i++) {
+            List<String> record = records.get(i);
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue;
+            }
+            if (record.size() != header.size()) {
+                throw new BadRequestException("CSV row " + i + " has " + record.size()
+                    + " fields, expected " + header.size());
+            }
+            Map<String, String> row = new HashMap<>();
+            for (int j = 0; j < header.size(); j++) {
+                String value = record.get(j).trim();
+                row.put(header.get(j).trim(), value.isEmpty() ? null : value);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+    
+    private static List<List<String>> parse(Reader source) throws IOException {
+        Reader reader = source.markSupported() ? source : new BufferedReader(source);
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                record.add(field.toString());
+                field.setLength(0);
+                records.add(record);
+                record = new ArrayList<>();
+                any = false;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (any) {
+            record.add(field.toString());
+            records.add(record);
+        }
+        return records;
+    }
+}
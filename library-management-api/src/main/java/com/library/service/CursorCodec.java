@@ -0,0 +1,73 @@
+package com.library.service;
+
+import com.library.dto.CursorPage;
+import com.library.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Encodes keyset positions as opaque URL-safe page tokens. A token is the
+ * sort key values of the last row on the previous page, joined with '|'.
+ */
+final class CursorCodec {
+    
+    static final int MAX_PAGE_SIZE = 1000;
+    
+    private static final String SEPARATOR = "|";
+    
+    private CursorCodec() {
+    }
+    
+    static String encode(Object... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (Object key : keys) {
+            if (raw.length() > 0) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    static String[] decode(String cursor, int keyCount) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = raw.split("\\" + SEPARATOR, -1);
+            if (keys.length != keyCount) {
+                throw new BadRequestException("Invalid page cursor");
+            }
+            return keys;
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid page cursor");
+        }
+    }
+    
+    static Long decodeId(String cursor) {
+        try {
+            return Long.valueOf(decode(cursor, 1)[0]);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Invalid page cursor");
+        }
+    }
+    
+    static void validateSize(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+    
+    /**
+     * Builds a page from a query that fetched one row more than the page size;
+     * the extra row only signals that another page exists.
+     */
+    static <T> CursorPage<T> toPage(List<T> rows, int size, Function<T, String> cursorOf, Long totalItems) {
+        boolean hasNext = rows.size() > size;
+        List<T> items = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, nextCursor, hasNext, totalItems);
+    }
+}
@@ -0,0 +1,117 @@
+package com.library.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.library.support.AfterTransaction;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache for an entity, addressable by id and by one
+ * natural key (ISBN, email). The natural key only maps to an id, so a single
+ * invalidation by id drops every way of reaching the entity.
+ */
+public class EntityCache<V> {
+    
+    private final Cache<Long, V> byId;
+    private final Cache<String, Long> idsByKey;
+    private final Function<V, Long> idOf;
+    private final Function<V, String> keyOf;
+    
+    public EntityCache(long maximumSize, Duration expireAfterWrite,
+                       Function<V, Long> idOf, Function<V, String> keyOf) {
+        this.byId = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+        this.idsByKey = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(expireAfterWrite)
+            .recordStats()
+            .build();
+        this.idOf = idOf;
+        this.keyOf = keyOf;
+    }
+    
+    /**
+     * Returns the cached entity or loads it; a loader returning null caches nothing.
+     */
+    public V getById(Long id, Function<Long, V> loader) {
+        return byId.get(id, loader);
+    }
+    
+    /**
+     * Returns the cached entity without loading it.
+     */
+    public V peek(Long id) {
+        return byId.getIfPresent(id);
+    }
+    
+    /**
+     * Returns the entity with the natural key. Rows are only cached through a
+     * load by id, which an invalidation of that id waits for; a row loaded by
+     * key before its id was known could otherwise land in the cache just after
+     * a concurrent change invalidated it. So the first lookup of a key only
+     * caches which id it maps to, and later ones load through the id.
+     */
+    public V getByKey(String key, Function<String, V> loader) {
+        Long id = idsByKey.getIfPresent(key);
+        if (id != null) {
+            V cached = byId.get(id, ignored -> {
+                V loaded = loader.apply(key);
+                return loaded != null && id.equals(idOf.apply(loaded)) ? loaded : null;
+            });
+            // The natural key may have changed since the mapping was cached
+            if (cached != null && Objects.equals(keyOf.apply(cached), key)) {
+                return cached;
+            }
+            idsByKey.invalidate(key);
+        }
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            idsByKey.put(key, idOf.apply(loaded));
+        }
+        return loaded;
+    }
+    
+    /**
+     * Drops the entity now and again once the surrounding transaction completes,
+     * so a concurrent reader cannot keep a row it loaded before the commit.
+     */
+    public void invalidate(Long id) {
+        byId.invalidate(id);
+        AfterTransaction.onCompletion(() -> byId.invalidate(id));
+    }
+    
+    public void bindTo(MeterRegistry meterRegistry, String name) {
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, name + ".byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByKey, name + ".byKey");
+    }
+    
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("byId", toMap(byId.stats(), byId.estimatedSize()));
+        stats.put("byKey", toMap(idsByKey.stats(), idsByKey.estimatedSize()));
+        return stats;
+    }
+    
+    private static Map<String, Object> toMap(CacheStats stats, long size) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("size", size);
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("evictions", stats.evictionCount());
+        map.put("loads", stats.loadCount());
+        map.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return map;
+    }
+}
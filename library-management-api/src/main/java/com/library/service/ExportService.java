@@ -0,0 +1,72 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.library.entity.Book;
+import com.library.entity.Transaction;
+import com.library.repository.BookRepository;
+import com.library.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes full-table exports as newline-delimited JSON. Rows come from a
+ * forward-only cursor and are detached right after they are written, so
+ * memory stays flat however large the table is.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportService {
+    
+    private final BookRepository bookRepository;
+    private final TransactionRepository transactionRepository;
+    private final EntityManager entityManager;
+    private final ObjectWriter writer;
+    
+    public ExportService(BookRepository bookRepository,
+                         TransactionRepository transactionRepository,
+                         EntityManager entityManager,
+                         ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.transactionRepository = transactionRepository;
+        this.entityManager = entityManager;
+        this.writer = objectMapper.writer();
+    }
+    
+    public void exportBooks(OutputStream out) throws IOException {
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                Book book = iterator.next();
+                writeLine(out, book);
+                entityManager.detach(book);
+            }
+        }
+        out.flush();
+    }
+    
+    public void exportTransactions(OutputStream out) throws IOException {
+        try (Stream<Transaction> transactions = transactionRepository.streamAllWithBookAndMember()) {
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                Transaction transaction = iterator.next();
+                writeLine(out, transaction);
+                entityManager.detach(transaction);
+                entityManager.detach(transaction.getBook());
+                entityManager.detach(transaction.getMember());
+            }
+        }
+        out.flush();
+    }
+    
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(writer.writeValueAsBytes(value));
+        out.write('\n');
+    }
+}
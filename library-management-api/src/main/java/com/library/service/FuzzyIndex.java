@@ -0,0 +1,304 @@
+package com.library.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant index over short texts such as names and titles. Every
+ * distinct word is broken into trigrams once, when it enters the index; a
+ * query word is matched by collecting the words that share enough trigrams
+ * with it to be within the allowed edit distance, and only those few
+ * candidates are compared character by character. Words are also kept in a
+ * sorted map for prefix completion.
+ * <p>
+ * Each document's texts carry a weight, and a document scores the weighted
+ * similarity of its best matching word for every query word.
+ */
+final class FuzzyIndex {
+    
+    record Hit(Long id, double score) {
+    }
+    
+    private static final char PAD = '\u0000';
+    
+    // Similarity of an exact word, a completed prefix, and the most a word with typos can reach
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.9;
+    private static final double FUZZY = 0.8;
+    
+    private final Map<String, Set<String>> wordsByTrigram = new HashMap<>();
+    private final NavigableMap<String, Map<Long, Integer>> documentsByWord = new TreeMap<>();
+    private final Map<Long, Map<String, Integer>> wordsByDocument = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    /**
+     * Replaces the texts of one document; {@code weightedTexts} maps each text to its weight.
+     */
+    void put(Long id, Map<String, Integer> weightedTexts) {
+        Map<String, Integer> words = new HashMap<>();
+        weightedTexts.forEach((text, weight) -> {
+            for (String word : words(text)) {
+                words.merge(word, weight, Math::max);
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            words.forEach((word, weight) -> {
+                Map<Long, Integer> documents = documentsByWord.get(word);
+                if (documents == null) {
+                    documents = new HashMap<>();
+                    documentsByWord.put(word, documents);
+                    for (String trigram : trigrams(word, false)) {
+                        wordsByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(word);
+                    }
+                }
+                documents.put(id, weight);
+            });
+            wordsByDocument.put(id, words);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            wordsByTrigram.clear();
+            documentsByWord.clear();
+            wordsByDocument.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    int size() {
+        lock.readLock().lock();
+        try {
+            return wordsByDocument.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Ranks documents by how closely their words match the query words. With
+     * {@code completeLast} the last query word may also be the beginning of a
+     * word, as while it is still being typed.
+     */
+    List<Hit> search(String query, boolean completeLast, int limit) {
+        List<String> queryWords = new ArrayList<>(words(query));
+        if (queryWords.isEmpty()) {
+            return List.of();
+        }
+        // Per document: summed best score of the finished query words, words matched, best score for the current word
+        Map<Long, double[]> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < queryWords.size(); i++) {
+                boolean prefix = completeLast && i == queryWords.size() - 1;
+                int wordIndex = i;
+                matchWord(queryWords.get(i), prefix).forEach((word, similarity) ->
+                    documentsByWord.get(word).forEach((id, weight) -> {
+                        double[] score = scores.computeIfAbsent(id, key -> new double[] {0, 0, 0, -1});
+                        if (score[3] != wordIndex) {
+                            score[0] += score[2];
+                            score[1]++;
+                            score[2] = 0;
+                            score[3] = wordIndex;
+                        }
+                        score[2] = Math.max(score[2], similarity * weight);
+                    }));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        // Documents matching only some of the query words rank below those matching all of them
+        Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score).reversed().thenComparing(Hit::id);
+        PriorityQueue<Hit> top = new PriorityQueue<>(ranking.reversed());
+        scores.forEach((id, score) -> {
+            top.offer(new Hit(id, (score[0] + score[2]) * score[1] / queryWords.size()));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(ranking);
+        return hits;
+    }
+    
+    /**
+     * Indexed words close to the query word, with a similarity between 0 and 1.
+     * Caller holds the read lock.
+     */
+    private Map<String, Double> matchWord(String queryWord, boolean prefix) {
+        Map<String, Double> matches = new HashMap<>();
+        if (documentsByWord.containsKey(queryWord)) {
+            matches.put(queryWord, EXACT);
+        }
+        if (prefix) {
+            for (String word : documentsByWord.subMap(queryWord, false, queryWord + Character.MAX_VALUE, false)
+                    .keySet()) {
+                matches.put(word, PREFIX);
+            }
+        }
+        
+        // An unfinished word gets one letter less of tolerance, since so many words start alike
+        int maxEdits = maxEdits(prefix ? queryWord.length() - 1 : queryWord.length());
+        if (maxEdits == 0) {
+            return matches;
+        }
+        // An edit changes at most three trigrams and a swap of two letters four, so a close word
+        // shares at least this many. The leading trigram only holds the first letter and is skipped.
+        Set<String> queryTrigrams = trigrams(queryWord, prefix);
+        queryTrigrams.remove(queryTrigrams.iterator().next());
+        int required = Math.max(1, queryTrigrams.size() - 4 * maxEdits);
+        int minLength = queryWord.length() - maxEdits;
+        int maxLength = prefix ? Integer.MAX_VALUE : queryWord.length() + maxEdits;
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            Set<String> words = wordsByTrigram.get(trigram);
+            if (words != null) {
+                for (String word : words) {
+                    if (word.length() >= minLength && word.length() <= maxLength) {
+                        shared.merge(word, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        shared.forEach((word, count) -> {
+            if (count >= required && !matches.containsKey(word)) {
+                // A word being typed is compared with the start of each candidate
+                boolean truncated = prefix && word.length() > queryWord.length();
+                String compared = truncated ? word.substring(0, queryWord.length()) : word;
+                int distance = distance(queryWord, compared, maxEdits);
+                if (distance <= maxEdits) {
+                    int length = Math.max(queryWord.length(), compared.length());
+                    double similarity = FUZZY * (length - distance) / length;
+                    matches.put(word, truncated ? similarity * PREFIX : similarity);
+                }
+            }
+        });
+        return matches;
+    }
+    
+    private void removeDocument(Long id) {
+        Map<String, Integer> words = wordsByDocument.remove(id);
+        if (words == null) {
+            return;
+        }
+        for (String word : words.keySet()) {
+            Map<Long, Integer> documents = documentsByWord.get(word);
+            documents.remove(id);
+            if (documents.isEmpty()) {
+                documentsByWord.remove(word);
+                for (String trigram : trigrams(word, false)) {
+                    Set<String> trigramWords = wordsByTrigram.get(trigram);
+                    trigramWords.remove(word);
+                    if (trigramWords.isEmpty()) {
+                        wordsByTrigram.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Short words must match exactly; longer ones may be one or two edits away.
+     */
+    static int maxEdits(int length) {
+        if (length < 4) {
+            return 0;
+        }
+        return length < 8 ? 1 : 2;
+    }
+    
+    /**
+     * Restricted Damerau-Levenshtein distance, counting an adjacent swap as one
+     * edit; gives up with {@code max + 1} once every alignment is past {@code max}.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+    
+    /**
+     * Trigrams of the word padded with two marks in front and one behind, so
+     * short words and word boundaries count too. A word that may continue
+     * gets no end padding.
+     */
+    static Set<String> trigrams(String word, boolean open) {
+        String padded = "" + PAD + PAD + word + (open ? "" : String.valueOf(PAD));
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+    
+    /**
+     * Lower-cased words, split on anything that is not a letter or digit.
+     */
+    static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
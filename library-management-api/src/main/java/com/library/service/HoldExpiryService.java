@@ -0,0 +1,64 @@
+package com.library.service;
+
+import com.library.repository.HoldRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Background sweep over the hold queues: expires holds past their deadline,
+ * passing any copy set aside for them down the queue, and hands copies that
+ * reached the shelf while holds were waiting to those holds. Every hold and
+ * book is handled in its own short transaction.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HoldExpiryService {
+    
+    private final HoldRepository holdRepository;
+    private final HoldService holdService;
+    
+    @Value("${library.holds.sweep-batch-size:200}")
+    private int batchSize;
+    
+    @Scheduled(initialDelayString = "${library.holds.sweep-interval:PT1M}",
+               fixedDelayString = "${library.holds.sweep-interval:PT1M}")
+    public synchronized void sweep() {
+        try {
+            int expired = 0;
+            LocalDateTime now = LocalDateTime.now();
+            while (true) {
+                List<Long> ids = holdRepository.findExpiredIds(now, PageRequest.of(0, batchSize));
+                int batchExpired = 0;
+                for (Long id : ids) {
+                    if (holdService.expireHold(id)) {
+                        batchExpired++;
+                    }
+                }
+                expired += batchExpired;
+                // Holds that changed state meanwhile drop out of the query; stop if none could be expired
+                if (ids.size() < batchSize || batchExpired == 0) {
+                    break;
+                }
+            }
+            
+            int allocated = 0;
+            for (Long bookId : holdRepository.findBookIdsWithWaitingHoldsAndCopies(PageRequest.of(0, batchSize))) {
+                allocated += holdService.rebalance(bookId);
+            }
+            
+            if (expired > 0 || allocated > 0) {
+                log.info("Expired {} holds and allocated {} shelved copies to waiting holds", expired, allocated);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Hold sweep failed", ex);
+        }
+    }
+}
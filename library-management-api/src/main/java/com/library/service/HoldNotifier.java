@@ -0,0 +1,21 @@
+package com.library.service;
+
+import com.library.dto.HoldSummary;
+
+/**
+ * Hook for telling members about their holds, e.g. by email or SMS. Every
+ * bean implementing it is called once the change has been committed.
+ */
+public interface HoldNotifier {
+    
+    /**
+     * A copy has been set aside for the member until {@code hold.getExpiresAt()}.
+     */
+    void holdReady(HoldSummary hold);
+    
+    /**
+     * The hold lapsed before the member picked the book up, or waited too long.
+     */
+    default void holdExpired(HoldSummary hold) {
+    }
+}
@@ -0,0 +1,262 @@
+package com.library.service;
+
+import com.library.dto.CursorPage;
+import com.library.dto.HoldSummary;
+import com.library.entity.Book;
+import com.library.entity.Hold;
+import com.library.entity.Member;
+import com.library.exception.BadRequestException;
+import com.library.exception.DuplicateResourceException;
+import com.library.exception.ResourceNotFoundException;
+import com.library.repository.HoldRepository;
+import com.library.support.AfterTransaction;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * FIFO hold queues per book. Returned copies go to the head of the queue
+ * instead of the shelf: the head is found with an index seek and claimed with
+ * a compare-and-set UPDATE of that one hold, so concurrent returns never lock
+ * the queue and each claim stays cheap however long the queue grows.
+ */
+@Service
+@Slf4j
+@Transactional
+public class HoldService {
+    
+    private final HoldRepository holdRepository;
+    private final BookService bookService;
+    private final MemberService memberService;
+    private final List<HoldNotifier> notifiers;
+    private final MeterRegistry meterRegistry;
+    private final Duration pickupWindow;
+    private final Duration maxWait;
+    
+    public HoldService(HoldRepository holdRepository,
+                       BookService bookService,
+                       MemberService memberService,
+                       List<HoldNotifier> notifiers,
+                       MeterRegistry meterRegistry,
+                       @Value("${library.holds.pickup-window:P3D}") Duration pickupWindow,
+                       @Value("${library.holds.max-wait:P30D}") Duration maxWait) {
+        this.holdRepository = holdRepository;
+        this.bookService = bookService;
+        this.memberService = memberService;
+        this.notifiers = notifiers;
+        this.meterRegistry = meterRegistry;
+        this.pickupWindow = pickupWindow;
+        this.maxWait = maxWait;
+    }
+    
+    /**
+     * Queues the member for a book that has no copy on the shelf. A copy that
+     * comes back between the availability check and the insert is handed to the
+     * queue by {@link HoldExpiryService}.
+     */
+    public HoldSummary placeHold(Long bookId, Long memberId) {
+        Member member = memberService.getMemberById(memberId);
+        Book book = bookService.getBookById(bookId);
+        if (book.getAvailableCopies() > 0) {
+            throw new BadRequestException("Book is available for issuing; no hold is needed");
+        }
+        if (holdRepository.existsActive(bookId, memberId)) {
+            throw new DuplicateResourceException("Member already has a hold on this book");
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        Hold hold = new Hold();
+        hold.setBook(book);
+        hold.setMember(member);
+        hold.setStatus("WAITING");
+        hold.setCreatedAt(now);
+        hold.setExpiresAt(now.plus(maxWait));
+        Hold savedHold = holdRepository.save(hold);
+        meterRegistry.counter("library.holds.placed").increment();
+        return getHold(savedHold.getId());
+    }
+    
+    @Transactional(readOnly = true)
+    public HoldSummary getHold(Long id) {
+        HoldSummary hold = holdRepository.findSummaryById(id).stream().findFirst()
+            .orElseThrow(() -> new ResourceNotFoundException("Hold not found with id: " + id));
+        if ("WAITING".equals(hold.getStatus())) {
+            hold.setPosition(holdRepository.countWaitingAhead(hold.getBookId(), id) + 1);
+        }
+        return hold;
+    }
+    
+    @Transactional(readOnly = true)
+    public List<HoldSummary> getActiveHoldsByMember(Long memberId) {
+        return holdRepository.findActiveSummariesByMember(memberId);
+    }
+    
+    /**
+     * Pages through a book's queue in the order it will be served.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<HoldSummary> getQueue(Long bookId, String cursor, int size, boolean includeTotal) {
+        CursorCodec.validateSize(size);
+        Long afterId = cursor == null ? 0L : CursorCodec.decodeId(cursor);
+        List<HoldSummary> rows = holdRepository.findActiveSummariesByBookAfter(bookId, afterId,
+            PageRequest.of(0, size + 1));
+        Long totalItems = includeTotal ? holdRepository.countActiveByBook(bookId) : null;
+        return CursorCodec.toPage(rows, size, hold -> CursorCodec.encode(hold.getId()), totalItems);
+    }
+    
+    /**
+     * Cancels a waiting or ready hold; a copy set aside for it goes to the next in line.
+     */
+    public HoldSummary cancelHold(Long id) {
+        Hold hold = holdRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Hold not found with id: " + id));
+        String status = hold.getStatus();
+        Long bookId = hold.getBook().getId();
+        if (!"WAITING".equals(status) && !"READY".equals(status)) {
+            throw new BadRequestException("Hold is already " + status.toLowerCase());
+        }
+        
+        if (holdRepository.updateStatus(id, status, "CANCELLED") == 0) {
+            // A returned copy may have been allocated to it since it was read
+            if (!"WAITING".equals(status) || holdRepository.updateStatus(id, "READY", "CANCELLED") == 0) {
+                throw new BadRequestException("Hold is no longer active");
+            }
+            status = "READY";
+        }
+        if ("READY".equals(status)) {
+            releaseCopies(bookId, 1);
+        }
+        return getHold(id);
+    }
+    
+    /**
+     * Sets copies aside for the holds at the head of the book's queue and returns
+     * how many were allocated. Losing the compare-and-set on a hold means a
+     * concurrent return claimed it, so the walk simply moves on to the next one.
+     */
+    public int allocateCopies(Long bookId, int copies) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> readyIds = new ArrayList<>();
+        Long afterId = 0L;
+        while (readyIds.size() < copies) {
+            int wanted = copies - readyIds.size();
+            List<Long> ids = holdRepository.findWaitingIds(bookId, afterId, PageRequest.of(0, wanted));
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (Long id : ids) {
+                if (holdRepository.markReady(id, now, now.plus(pickupWindow)) > 0) {
+                    readyIds.add(id);
+                }
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (!readyIds.isEmpty()) {
+            meterRegistry.counter("library.holds.allocated").increment(readyIds.size());
+            notifyAfterCommit(holdRepository.findSummariesByIds(readyIds), HoldNotifier::holdReady);
+        }
+        return readyIds.size();
+    }
+    
+    /**
+     * Hands copies coming back into circulation to waiting holds first and puts the rest on the shelf.
+     */
+    public void releaseCopies(Long bookId, int copies) {
+        int remaining = copies - allocateCopies(bookId, copies);
+        if (remaining > 0) {
+            bookService.increaseAvailableCopies(bookId, remaining);
+        }
+    }
+    
+    /**
+     * Like {@link #releaseCopies}, but puts on the shelf only what the book's
+     * total leaves room for instead of failing, and returns how many copies did not fit.
+     */
+    public int releaseCopiesWithinTotal(Long bookId, int copies) {
+        int remaining = copies - allocateCopies(bookId, copies);
+        return remaining > 0 ? remaining - bookService.restoreAvailableCopies(bookId, remaining) : 0;
+    }
+    
+    /**
+     * Completes the member's ready hold on the book, if any, so the checkout uses the copy set aside for it.
+     */
+    public boolean fulfill(Long bookId, Long memberId) {
+        return holdRepository.markFulfilled(bookId, memberId) > 0;
+    }
+    
+    /**
+     * Members with a copy set aside, per book, for a whole batch of checkouts in one query.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Set<Long>> findReadyMembersByBook(Collection<Long> bookIds) {
+        Map<Long, Set<Long>> members = new HashMap<>();
+        if (!bookIds.isEmpty()) {
+            holdRepository.findReadySummariesByBookIds(bookIds).forEach(hold ->
+                members.computeIfAbsent(hold.getBookId(), id -> new HashSet<>()).add(hold.getMemberId()));
+        }
+        return members;
+    }
+    
+    /**
+     * Expires a hold past its deadline; a copy that was set aside for it moves on.
+     */
+    public boolean expireHold(Long id) {
+        Hold hold = holdRepository.findById(id).orElse(null);
+        LocalDateTime now = LocalDateTime.now();
+        if (hold == null || holdRepository.expire(id, hold.getStatus(), now) == 0) {
+            return false;
+        }
+        if ("READY".equals(hold.getStatus())) {
+            releaseCopies(hold.getBook().getId(), 1);
+        }
+        meterRegistry.counter("library.holds.expired").increment();
+        notifyAfterCommit(holdRepository.findSummaryById(id), HoldNotifier::holdExpired);
+        return true;
+    }
+    
+    /**
+     * Moves copies sitting on the shelf to holds that are still waiting for them.
+     */
+    public int rebalance(Long bookId) {
+        long waiting = holdRepository.countWaitingAhead(bookId, Long.MAX_VALUE);
+        if (waiting == 0) {
+            return 0;
+        }
+        int taken = bookService.takeAvailableCopies(bookId, (int) Math.min(waiting, Integer.MAX_VALUE));
+        int allocated = allocateCopies(bookId, taken);
+        if (taken > allocated) {
+            bookService.increaseAvailableCopies(bookId, taken - allocated);
+        }
+        return allocated;
+    }
+    
+    private void notifyAfterCommit(List<HoldSummary> holds, BiConsumer<HoldNotifier, HoldSummary> event) {
+        Runnable notify = () -> {
+            for (HoldSummary hold : holds) {
+                for (HoldNotifier notifier : notifiers) {
+                    try {
+                        event.accept(notifier, hold);
+                    } catch (RuntimeException ex) {
+                        log.warn("Hold notifier {} failed for hold {}",
+                            notifier.getClass().getSimpleName(), hold.getId(), ex);
+                    }
+                }
+            }
+        };
+        AfterTransaction.onCommit(notify);
+    }
+}
@@ -0,0 +1,99 @@
+package com.library.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.exception.BadRequestException;
+import com.library.exception.DuplicateResourceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Results of requests sent with an {@code Idempotency-Key}, so a client that
+ * timed out and retries gets the first result back instead of running the
+ * operation again. A key is claimed with a single insert-if-absent before the
+ * operation runs; a retry that arrives while the first attempt is still running
+ * waits for it. Failures are not kept: the operation rolled back, so the next
+ * retry runs it again. Entries expire after the configured time, and the store
+ * is bounded in size.
+ */
+@Component
+public class IdempotencyKeys {
+    
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    public record Result<T>(T value, boolean replayed) {
+    }
+    
+    private record Entry(String fingerprint, CompletableFuture<Object> result) {
+    }
+    
+    private final Cache<String, Entry> entries;
+    private final Duration inFlightWait;
+    
+    public IdempotencyKeys(@Value("${library.idempotency.maximum-size:50000}") long maximumSize,
+                           @Value("${library.idempotency.ttl:PT1H}") Duration ttl,
+                           @Value("${library.idempotency.in-flight-wait:PT5S}") Duration inFlightWait) {
+        this.entries = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .build();
+        this.inFlightWait = inFlightWait;
+    }
+    
+    /**
+     * Runs {@code operation} unless {@code key} was already used, in which case
+     * the first result is returned. {@code fingerprint} identifies the request
+     * the key was first sent with; the same key on a different request is rejected.
+     * Without a key the operation simply runs.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Result<T> execute(String key, String fingerprint, Supplier<T> operation) {
+        if (key == null) {
+            return new Result<>(operation.get(), false);
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        Entry claim = new Entry(fingerprint, new CompletableFuture<>());
+        Entry existing = entries.asMap().putIfAbsent(key, claim);
+        if (existing == null) {
+            try {
+                T value = operation.get();
+                claim.result().complete(value);
+                return new Result<>(value, false);
+            } catch (RuntimeException | Error ex) {
+                entries.asMap().remove(key, claim);
+                claim.result().completeExceptionally(ex);
+                throw ex;
+            }
+        }
+        if (!existing.fingerprint().equals(fingerprint)) {
+            throw new BadRequestException("Idempotency-Key " + key + " was already used for a different request");
+        }
+        return new Result<>((T) await(key, existing.result()), true);
+    }
+    
+    private Object await(String key, CompletableFuture<Object> result) {
+        try {
+            return result.get(inFlightWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            // The first attempt failed while this one waited; report the same error
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new DuplicateResourceException("A request with Idempotency-Key " + key + " is still in progress");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for Idempotency-Key " + key, ex);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.library.service;
+
+import com.library.dto.ImportResult;
+import com.library.dto.ImportRowResult;
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.exception.BadRequestException;
+import com.library.repository.BookRepository;
+import com.library.repository.MemberRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of books and members. Rows are validated and checked for
+ * duplicates chunk by chunk with one IN query per unique column, then written
+ * with a single JDBC batch insert per chunk. Each chunk commits on its own, so
+ * a failing chunk does not undo the ones before it, and a chunk the database
+ * rejects is retried row by row so only the offending rows fail.
+ */
+@Service
+@Slf4j
+public class ImportService {
+    
+    private static final String INSERT_BOOK_SQL =
+        "INSERT INTO books (title, author, isbn, publisher, published_year, total_copies, available_copies, category) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_MEMBER_SQL =
+        "INSERT INTO members (name, email, phone, membership_date, membership_type) VALUES (?, ?, ?, ?, ?)";
+    
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookFacetIndex bookFacetIndex;
+    private final LookupIndex lookupIndex;
+    private final ResourceVersions resourceVersions;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final int chunkSize;
+    
+    public ImportService(BookRepository bookRepository,
+                         MemberRepository memberRepository,
+                         BookSearchIndex bookSearchIndex,
+                         BookFacetIndex bookFacetIndex,
+                         LookupIndex lookupIndex,
+                         ResourceVersions resourceVersions,
+                         JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         Validator validator,
+                         @Value("${library.import.chunk-size:500}") int chunkSize) {
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookFacetIndex = bookFacetIndex;
+        this.lookupIndex = lookupIndex;
+        this.resourceVersions = resourceVersions;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+    
+    public ImportResult importBooks(List<Book> books) {
+        List<ImportRowResult> results = new ArrayList<>(books.size());
+        Set<String> seenIsbns = new HashSet<>();
+        
+        for (int from = 0; from < books.size(); from += chunkSize) {
+            List<Book> chunk = books.subList(from, Math.min(from + chunkSize, books.size()));
+            Set<String> existingIsbns = findExisting(chunk, Book::getIsbn, bookRepository::findExistingIsbns);
+            
+            List<Book> accepted = new ArrayList<>();
+            List<ImportRowResult> acceptedResults = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                Book book = chunk.get(i);
+                if (book == null) {
+                    results.add(new ImportRowResult(from + i + 1, null, "FAILED", null, "Row is empty"));
+                    continue;
+                }
+                ImportRowResult result = new ImportRowResult(from + i + 1, book.getIsbn(), "CREATED", null, null);
+                String error = validate(book);
+                if (error == null && book.getAvailableCopies() > book.getTotalCopies()) {
+                    error = "Available copies cannot exceed total copies";
+                }
+                if (error == null && (existingIsbns.contains(book.getIsbn()) || !seenIsbns.add(book.getIsbn()))) {
+                    error = "Book with ISBN " + book.getIsbn() + " already exists";
+                }
+                if (error != null) {
+                    result.setStatus("FAILED");
+                    result.setMessage(error);
+                } else {
+                    accepted.add(book);
+                    acceptedResults.add(result);
+                }
+                results.add(result);
+            }
+            
+            insertBooks(accepted, acceptedResults);
+        }
+        return summarize(results);
+    }
+    
+    public ImportResult importMembers(List<Member> members) {
+        List<ImportRowResult> results = new ArrayList<>(members.size());
+        Set<String> seenEmails = new HashSet<>();
+        Set<String> seenPhones = new HashSet<>();
+        
+        for (int from = 0; from < members.size(); from += chunkSize) {
+            List<Member> chunk = members.subList(from, Math.min(from + chunkSize, members.size()));
+            Set<String> existingEmails = findExisting(chunk, Member::getEmail, memberRepository::findExistingEmails);
+            Set<String> existingPhones = findExisting(chunk, Member::getPhone, memberRepository::findExistingPhones);
+            
+            List<Member> accepted = new ArrayList<>();
+            List<ImportRowResult> acceptedResults = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                Member member = chunk.get(i);
+                if (member == null) {
+                    results.add(new ImportRowResult(from + i + 1, null, "FAILED", null, "Row is empty"));
+                    continue;
+                }
+                ImportRowResult result = new ImportRowResult(from + i + 1, member.getEmail(), "CREATED", null, null);
+                String error = validate(member);
+                if (error == null && (existingEmails.contains(member.getEmail()) || seenEmails.contains(member.getEmail()))) {
+                    error = "Member with email " + member.getEmail() + " already exists";
+                }
+                if (error == null && (existingPhones.contains(member.getPhone()) || seenPhones.contains(member.getPhone()))) {
+                    error = "Member with phone " + member.getPhone() + " already exists";
+                }
+                if (error != null) {
+                    result.setStatus("FAILED");
+                    result.setMessage(error);
+                } else {
+                    seenEmails.add(member.getEmail());
+                    seenPhones.add(member.getPhone());
+                    accepted.add(member);
+                    acceptedResults.add(result);
+                }
+                results.add(result);
+            }
+            
+            insertMembers(accepted, acceptedResults);
+        }
+        return summarize(results);
+    }
+    
+    public ImportResult importBooksCsv(InputStream csv) throws IOException {
+        List<Map<String, String>> rows = CsvReader.read(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        List<Book> books = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, String> row = rows.get(i);
+            Book book = new Book();
+            book.setTitle(row.get("title"));
+            book.setAuthor(row.get("author"));
+            book.setIsbn(row.get("isbn"));
+            book.setPublisher(row.get("publisher"));
+            book.setPublishedYear(parseInteger(row, "publishedYear", i + 1));
+            book.setTotalCopies(parseInteger(row, "totalCopies", i + 1));
+            book.setAvailableCopies(parseInteger(row, "availableCopies", i + 1));
+            book.setCategory(row.get("category"));
+            books.add(book);
+        }
+        return importBooks(books);
+    }
+    
+    public ImportResult importMembersCsv(InputStream csv) throws IOException {
+        List<Map<String, String>> rows = CsvReader.read(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        List<Member> members = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, String> row = rows.get(i);
+            Member member = new Member();
+            member.setName(row.get("name"));
+            member.setEmail(row.get("email"));
+            member.setPhone(row.get("phone"));
+            member.setMembershipDate(parseDate(row, "membershipDate", i + 1));
+            member.setMembershipType(row.get("membershipType"));
+            members.add(member);
+        }
+        return importMembers(members);
+    }
+    
+    /**
+     * Writes the chunk with one batch insert. A row the database rejects fails
+     * the whole batch, so the chunk is then written again one row at a time and
+     * only the rows that fail on their own are reported as failed.
+     */
+    private void insertBooks(List<Book> books, List<ImportRowResult> results) {
+        if (books.isEmpty()) {
+            return;
+        }
+        try {
+            indexBooks(writeBooks(books), results);
+        } catch (DataAccessException ex) {
+            if (books.size() == 1) {
+                markFailed(results, ex);
+                return;
+            }
+            log.warn("Book import chunk of {} rows failed, retrying row by row", books.size(), ex);
+            for (int i = 0; i < books.size(); i++) {
+                insertBooks(List.of(books.get(i)), List.of(results.get(i)));
+            }
+        }
+    }
+    
+    private List<Book> writeBooks(List<Book> books) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(INSERT_BOOK_SQL, books, books.size(), (ps, book) -> {
+                ps.setString(1, book.getTitle());
+                ps.setString(2, book.getAuthor());
+                ps.setString(3, book.getIsbn());
+                ps.setString(4, book.getPublisher());
+                ps.setObject(5, book.getPublishedYear());
+                ps.setInt(6, book.getTotalCopies());
+                ps.setInt(7, book.getAvailableCopies());
+                ps.setString(8, book.getCategory());
+            });
+            return bookRepository.findByIsbnIn(books.stream().map(Book::getIsbn).toList());
+        });
+    }
+    
+    private void indexBooks(List<Book> saved, List<ImportRowResult> results) {
+        Map<String, Book> byIsbn = saved.stream().collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+        for (ImportRowResult result : results) {
+            Book book = byIsbn.get(result.getKey());
+            result.setId(book.getId());
+            bookSearchIndex.index(book);
+            lookupIndex.indexBook(book);
+            bookFacetIndex.put(book);
+            resourceVersions.bookChanged(book.getId());
+        }
+    }
+    
+    /**
+     * Same as {@link #insertBooks}: one batch per chunk, row by row if the batch fails.
+     */
+    private void insertMembers(List<Member> members, List<ImportRowResult> results) {
+        if (members.isEmpty()) {
+            return;
+        }
+        try {
+            indexMembers(writeMembers(members), results);
+        } catch (DataAccessException ex) {
+            if (members.size() == 1) {
+                markFailed(results, ex);
+                return;
+            }
+            log.warn("Member import chunk of {} rows failed, retrying row by row", members.size(), ex);
+            for (int i = 0; i < members.size(); i++) {
+                insertMembers(List.of(members.get(i)), List.of(results.get(i)));
+            }
+        }
+    }
+    
+    private List<Member> writeMembers(List<Member> members) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(INSERT_MEMBER_SQL, members, members.size(), (ps, member) -> {
+                ps.setString(1, member.getName());
+                ps.setString(2, member.getEmail());
+                ps.setString(3, member.getPhone());
+                ps.setDate(4, Date.valueOf(member.getMembershipDate()));
+                ps.setString(5, member.getMembershipType());
+            });
+            return memberRepository.findByEmailIn(members.stream().map(Member::getEmail).toList());
+        });
+    }
+    
+    private void indexMembers(List<Member> saved, List<ImportRowResult> results) {
+        Map<String, Long> idsByEmail = new HashMap<>();
+        saved.forEach(member -> {
+            idsByEmail.put(member.getEmail(), member.getId());
+            lookupIndex.indexMember(member);
+            resourceVersions.memberChanged(member.getId());
+        });
+        results.forEach(result -> result.setId(idsByEmail.get(result.getKey())));
+    }
+    
+    /**
+     * Looks up which of the chunk's keys are already taken, in one IN query.
+     * Empty rows are skipped here and reported as failed by the caller.
+     */
+    private <T> Set<String> findExisting(List<T> chunk, Function<T, String> keyOf,
+                                         Function<Set<String>, List<String>> query) {
+        Set<String> keys = chunk.stream().filter(Objects::nonNull).map(keyOf).filter(Objects::nonNull).collect(Collectors.toSet());
+        return keys.isEmpty() ? Set.of() : new HashSet<>(query.apply(keys));
+    }
+    
+    private void markFailed(List<ImportRowResult> results, DataAccessException ex) {
+        for (ImportRowResult result : results) {
+            result.setStatus("FAILED");
+            result.setMessage("Insert failed: " + ex.getMostSpecificCause().getMessage());
+        }
+    }
+    
+    private <T> String validate(T entity) {
+        Set<ConstraintViolation<T>> violations = validator.validate(entity);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; "));
+    }
+    
+    private ImportResult summarize(List<ImportRowResult> results) {
+        int created = (int) results.stream().filter(result -> "CREATED".equals(result.getStatus())).count();
+        return new ImportResult(results.size(), created, results.size() - created, results);
+    }
+    
+    private static Integer parseInteger(Map<String, String> row, String column, int rowNumber) {
+        String value = row.get(column);
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("CSV row " + rowNumber + ": " + column + " must be a number");
+        }
+    }
+    
+    private static LocalDate parseDate(Map<String, String> row, String column, int rowNumber) {
+        String value = row.get(column);
+        try {
+            return value == null ? null : LocalDate.parse(value);
+        } catch (DateTimeParseException ex) {
+            throw new BadRequestException("CSV row " + rowNumber + ": " + column + " must be a date (yyyy-MM-dd)");
+        }
+    }
+}
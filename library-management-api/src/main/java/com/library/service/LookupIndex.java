@@ -0,0 +1,166 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.exception.BadRequestException;
+import com.library.repository.BookRepository;
+import com.library.repository.MemberRepository;
+import com.library.support.AfterTransaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Typo-tolerant lookup of books by title and author and of members by name,
+ * for the front desk. Both indexes live in memory next to a small label per
+ * book and member, so a lookup never touches the database; the write paths of
+ * {@link BookService}, {@link MemberService} and {@link ImportService} keep
+ * them current. Changes are applied once the surrounding transaction commits,
+ * so a rollback never leaves a book or member behind that is not in the database.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LookupIndex {
+    
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int MAX_LIMIT = 50;
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int NAME_WEIGHT = 3;
+    
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    
+    private final FuzzyIndex books = new FuzzyIndex();
+    private final FuzzyIndex members = new FuzzyIndex();
+    private final Map<Long, Map<String, Object>> bookLabels = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, Object>> memberLabels = new ConcurrentHashMap<>();
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        books.clear();
+        bookLabels.clear();
+        PageRequest batchSize = PageRequest.of(0, REBUILD_BATCH_SIZE);
+        List<Book> bookBatch = bookRepository.findByIdGreaterThanOrderByIdAsc(0L, batchSize);
+        while (!bookBatch.isEmpty()) {
+            bookBatch.forEach(this::indexBook);
+            bookBatch = bookRepository.findByIdGreaterThanOrderByIdAsc(bookBatch.get(bookBatch.size() - 1).getId(),
+                batchSize);
+        }
+        members.clear();
+        memberLabels.clear();
+        List<Member> memberBatch = memberRepository.findByIdGreaterThanOrderByIdAsc(0L, batchSize);
+        while (!memberBatch.isEmpty()) {
+            memberBatch.forEach(this::indexMember);
+            memberBatch = memberRepository.findByIdGreaterThanOrderByIdAsc(
+                memberBatch.get(memberBatch.size() - 1).getId(), batchSize);
+        }
+        log.info("Lookup index built with {} books and {} members", books.size(), members.size());
+    }
+    
+    public void indexBook(Book book) {
+        Map<String, Object> label = new LinkedHashMap<>();
+        label.put("type", "book");
+        label.put("id", book.getId());
+        label.put("title", book.getTitle());
+        label.put("author", book.getAuthor());
+        
+        Map<String, Integer> texts = new LinkedHashMap<>();
+        texts.put(book.getTitle(), TITLE_WEIGHT);
+        texts.merge(book.getAuthor(), AUTHOR_WEIGHT, Math::max);
+        Long id = book.getId();
+        AfterTransaction.onCommit(() -> {
+            bookLabels.put(id, label);
+            books.put(id, texts);
+        });
+    }
+    
+    public void removeBook(Long bookId) {
+        AfterTransaction.onCommit(() -> {
+            books.remove(bookId);
+            bookLabels.remove(bookId);
+        });
+    }
+    
+    public void indexMember(Member member) {
+        Map<String, Object> label = new LinkedHashMap<>();
+        label.put("type", "member");
+        label.put("id", member.getId());
+        label.put("name", member.getName());
+        label.put("membershipType", member.getMembershipType());
+        Map<String, Integer> texts = Map.of(member.getName(), NAME_WEIGHT);
+        Long id = member.getId();
+        AfterTransaction.onCommit(() -> {
+            memberLabels.put(id, label);
+            members.put(id, texts);
+        });
+    }
+    
+    public void removeMember(Long memberId) {
+        AfterTransaction.onCommit(() -> {
+            members.remove(memberId);
+            memberLabels.remove(memberId);
+        });
+    }
+    
+    /**
+     * Books and members whose words are all close to the query words, best first.
+     */
+    public List<Map<String, Object>> suggest(String query, String type, int limit) {
+        return lookup(query, type, false, limit);
+    }
+    
+    /**
+     * Like {@link #suggest}, but the last query word may be unfinished.
+     */
+    public List<Map<String, Object>> autocomplete(String query, String type, int limit) {
+        return lookup(query, type, true, limit);
+    }
+    
+    private List<Map<String, Object>> lookup(String query, String type, boolean complete, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Query must not be blank");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        boolean includeBooks = type == null || "book".equals(type);
+        boolean includeMembers = type == null || "member".equals(type);
+        if (!includeBooks && !includeMembers) {
+            throw new BadRequestException("type must be book or member");
+        }
+        
+        List<Map<String, Object>> results = new ArrayList<>();
+        if (includeBooks) {
+            addResults(books.search(query, complete, limit), bookLabels, results);
+        }
+        if (includeMembers) {
+            addResults(members.search(query, complete, limit), memberLabels, results);
+        }
+        results.sort(Comparator.comparing((Map<String, Object> result) -> (Double) result.get("score")).reversed());
+        return results.size() > limit ? results.subList(0, limit) : results;
+    }
+    
+    private static void addResults(List<FuzzyIndex.Hit> hits, Map<Long, Map<String, Object>> labels,
+                                   List<Map<String, Object>> results) {
+        for (FuzzyIndex.Hit hit : hits) {
+            Map<String, Object> label = labels.get(hit.id());
+            if (label != null) {
+                Map<String, Object> result = new LinkedHashMap<>(label);
+                result.put("score", Math.round(hit.score() * 1000) / 1000.0);
+                results.add(result);
+            }
+        }
+    }
+}
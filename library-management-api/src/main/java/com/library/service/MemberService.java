@@ -1,14 +1,23 @@
 package com.library.service;
 
+import com.library.dto.CursorPage;
+import com.library.dto.HoldSummary;
 import com.library.entity.Member;
 import com.library.exception.DuplicateResourceException;
 import com.library.exception.ResourceNotFoundException;
+import com.library.repository.ArchivedTransactionRepository;
+import com.library.repository.MemberBorrowingStateRepository;
 import com.library.repository.MemberRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -16,6 +25,13 @@ import java.util.List;
 public class MemberService {
     
     private final MemberRepository memberRepository;
+    private final MemberBorrowingStateRepository borrowingStateRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final EntityCache<Member> memberCache;
+    private final LookupIndex lookupIndex;
+    private final ResourceVersions resourceVersions;
+    // Looked up on use: HoldService itself depends on this service
+    private final ObjectProvider<HoldService> holdService;
     
     public Member createMember(Member member) {
         if (memberRepository.existsByEmail(member.getEmail())) {
@@ -24,7 +40,10 @@ public class MemberService {
         if (memberRepository.existsByPhone(member.getPhone())) {
             throw new DuplicateResourceException("Member with phone " + member.getPhone() + " already exists");
         }
-        return memberRepository.save(member);
+        Member savedMember = memberRepository.save(member);
+        lookupIndex.indexMember(savedMember);
+        resourceVersions.memberChanged(savedMember.getId());
+        return savedMember;
     }
     
     @Transactional(readOnly = true)
@@ -32,20 +51,35 @@ public class MemberService {
         return memberRepository.findAll();
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<Member> getMembersAfter(String cursor, int size, boolean includeTotal) {
+        CursorCodec.validateSize(size);
+        Long afterId = cursor == null ? 0L : CursorCodec.decodeId(cursor);
+        List<Member> rows = memberRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size + 1));
+        Long totalItems = includeTotal ? memberRepository.count() : null;
+        return CursorCodec.toPage(rows, size, member -> CursorCodec.encode(member.getId()), totalItems);
+    }
+    
     @Transactional(readOnly = true)
     public Member getMemberById(Long id) {
-        return memberRepository.findById(id)
-            .orElseThrow(() -> new ResourceNotFoundException("Member not found with id: " + id));
+        Member member = memberCache.getById(id, key -> memberRepository.findById(key).orElse(null));
+        if (member == null) {
+            throw new ResourceNotFoundException("Member not found with id: " + id);
+        }
+        return member;
     }
     
     @Transactional(readOnly = true)
     public Member getMemberByEmail(String email) {
-        return memberRepository.findByEmail(email)
-            .orElseThrow(() -> new ResourceNotFoundException("Member not found with email: " + email));
+        Member member = memberCache.getByKey(email, key -> memberRepository.findByEmail(key).orElse(null));
+        if (member == null) {
+            throw new ResourceNotFoundException("Member not found with email: " + email);
+        }
+        return member;
     }
     
     public Member updateMember(Long id, Member memberDetails) {
-        Member member = getMemberById(id);
+        Member member = findMember(id);
         
         // Check if email is being changed and if the new email already exists
         if (!member.getEmail().equals(memberDetails.getEmail())) {
@@ -67,12 +101,28 @@ public class MemberService {
         member.setMembershipDate(memberDetails.getMembershipDate());
         member.setMembershipType(memberDetails.getMembershipType());
         
-        return memberRepository.save(member);
+        Member savedMember = memberRepository.save(member);
+        memberCache.invalidate(id);
+        resourceVersions.memberChanged(id);
+        lookupIndex.indexMember(savedMember);
+        return savedMember;
     }
     
+    /**
+     * Deletes the member with their loans and holds. Active holds are cancelled
+     * first, so a copy set aside for one of them goes to the next in line.
+     */
     public void deleteMember(Long id) {
-        Member member = getMemberById(id);
+        Member member = findMember(id);
+        for (HoldSummary hold : holdService.getObject().getActiveHoldsByMember(id)) {
+            holdService.getObject().cancelHold(hold.getId());
+        }
         memberRepository.delete(member);
+        borrowingStateRepository.deleteByMemberId(id);
+        archivedTransactionRepository.deleteByMemberId(id);
+        memberCache.invalidate(id);
+        resourceVersions.memberChanged(id);
+        lookupIndex.removeMember(id);
     }
     
     @Transactional(readOnly = true)
@@ -84,4 +134,23 @@ public class MemberService {
     public List<Member> getMembersByType(String membershipType) {
         return memberRepository.findByMembershipType(membershipType);
     }
+    
+    @Transactional(readOnly = true)
+    public Map<Long, Member> getMembersByIds(Collection<Long> ids) {
+        Map<Long, Member> members = new HashMap<>();
+        memberRepository.findAllById(ids).forEach(member -> members.put(member.getId(), member));
+        return members;
+    }
+    
+    public Map<String, Object> getCacheStats() {
+        return memberCache.stats();
+    }
+    
+    /**
+     * Loads the managed entity for write paths; cached instances are shared and must not be mutated.
+     */
+    private Member findMember(Long id) {
+        return memberRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Member not found with id: " + id));
+    }
 }
\ No newline at end of file
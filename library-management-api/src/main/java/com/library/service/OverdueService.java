@@ -0,0 +1,157 @@
+package com.library.service;
+
+import com.library.dto.LoanRow;
+import com.library.journal.JournalRecord;
+import com.library.journal.TransactionJournal;
+import com.library.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background job that moves ISSUED transactions past their due date to
+ * OVERDUE. Each run only looks at due dates since the previous run's
+ * watermark, in bounded batches that each commit on their own, walking the
+ * (status, due_date) index. Each batch also bumps the members' overdue counts,
+ * so the borrowing block takes effect with it, and journals the loans it
+ * marked once it commits. Fines are not written here: an open loan's fine is
+ * derived from its due date when read.
+ */
+@Service
+@Slf4j
+public class OverdueService {
+    
+    private final TransactionRepository transactionRepository;
+    private final BorrowingService borrowingService;
+    private final TransactionJournal transactionJournal;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    
+    // Due dates before the watermark have already been swept; null until the first run
+    private volatile LocalDate watermark;
+    
+    private volatile Instant lastRunStarted;
+    private volatile Instant lastRunFinished;
+    private volatile long lastRunMillis;
+    private volatile int lastRunMarked;
+    private volatile int lastRunBatches;
+    private volatile long lastBatchMillis;
+    private volatile long maxBatchMillis;
+    private final AtomicLong totalMarked = new AtomicLong();
+    private final AtomicLong totalBatches = new AtomicLong();
+    private final AtomicLong totalBatchMillis = new AtomicLong();
+    private final AtomicLong failedRuns = new AtomicLong();
+    
+    public OverdueService(TransactionRepository transactionRepository,
+                          BorrowingService borrowingService,
+                          TransactionJournal transactionJournal,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${library.overdue.batch-size:500}") int batchSize) {
+        this.transactionRepository = transactionRepository;
+        this.borrowingService = borrowingService;
+        this.transactionJournal = transactionJournal;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+    
+    @Scheduled(initialDelayString = "${library.overdue.initial-delay:PT30S}",
+               fixedDelayString = "${library.overdue.interval:PT5M}")
+    public synchronized void processOverdueTransactions() {
+        Instant started = Instant.now();
+        lastRunStarted = started;
+        LocalDate today = LocalDate.now();
+        try {
+            int marked = 0;
+            int batches = 0;
+            // No loan is due before the epoch, so it stands in for "everything" on the first run
+            LocalDate from = watermark == null ? LocalDate.EPOCH : watermark;
+            while (true) {
+                long batchStarted = System.nanoTime();
+                Integer updated = transactionTemplate.execute(status -> {
+                    List<Long> ids = transactionRepository.findIssuedIdsDueBetween(from, today, PageRequest.of(0, batchSize));
+                    if (ids.isEmpty()) {
+                        return 0;
+                    }
+                    int count = transactionRepository.markOverdue(ids);
+                    borrowingService.recordOverdue(ids);
+                    journalOverdue(ids);
+                    return count;
+                });
+                if (updated == null || updated == 0) {
+                    break;
+                }
+                recordBatch(System.nanoTime() - batchStarted);
+                marked += updated;
+                batches++;
+            }
+            watermark = today;
+            
+            lastRunMarked = marked;
+            lastRunBatches = batches;
+            totalMarked.addAndGet(marked);
+            if (marked > 0) {
+                log.info("Marked {} transactions overdue in {} batches", marked, batches);
+            }
+        } catch (RuntimeException ex) {
+            failedRuns.incrementAndGet();
+            log.error("Overdue processing failed", ex);
+        } finally {
+            lastRunFinished = Instant.now();
+            lastRunMillis = Duration.between(started, lastRunFinished).toMillis();
+        }
+    }
+    
+    public Map<String, Object> getJobStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("watermark", watermark);
+        status.put("lastRunStarted", lastRunStarted);
+        status.put("lastRunFinished", lastRunFinished);
+        status.put("lastRunMillis", lastRunMillis);
+        status.put("lastRunMarked", lastRunMarked);
+        status.put("lastRunBatches", lastRunBatches);
+        status.put("lagSeconds", lastRunFinished == null ? null
+            : Duration.between(lastRunFinished, Instant.now()).toSeconds());
+        status.put("pendingOverdue", transactionRepository.countIssuedDueBefore(LocalDate.now()));
+        status.put("lastBatchMillis", lastBatchMillis);
+        status.put("maxBatchMillis", maxBatchMillis);
+        long batches = totalBatches.get();
+        status.put("averageBatchMillis", batches == 0 ? 0.0 : (double) totalBatchMillis.get() / batches);
+        status.put("totalMarked", totalMarked.get());
+        status.put("totalBatches", batches);
+        status.put("failedRuns", failedRuns.get());
+        return status;
+    }
+    
+    private void journalOverdue(List<Long> ids) {
+        if (!transactionJournal.isEnabled()) {
+            return;
+        }
+        List<JournalRecord> records = new ArrayList<>();
+        for (LoanRow row : transactionRepository.findOverdueLoanRowsByIds(ids)) {
+            records.add(JournalRecord.of(row.getId(), row.getBookId(), row.getMemberId(), "OVERDUE",
+                row.getIssueDate(), row.getDueDate(), null, row.getFine()));
+        }
+        transactionJournal.appendAfterCommit(records);
+    }
+    
+    private void recordBatch(long nanos) {
+        long millis = nanos / 1_000_000;
+        lastBatchMillis = millis;
+        maxBatchMillis = Math.max(maxBatchMillis, millis);
+        totalBatches.incrementAndGet();
+        totalBatchMillis.addAndGet(millis);
+    }
+}
@@ -0,0 +1,113 @@
+package com.library.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.support.AfterTransaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory change counters for books and members, from which conditional GETs
+ * are answered without reading the database. Every committed change to a row
+ * takes the next value of its type's counter; a row that has not changed since
+ * it was last tracked (or ever) carries the latest value handed out, which is
+ * never older than its real last change. The collection of a type is versioned
+ * by that latest value.
+ * <p>
+ * A counter rather than a {@code @Version} column, because copies move with
+ * bulk UPDATEs and imports insert over JDBC, neither of which touch the entity.
+ * Tags carry the startup time, so none survives a restart. A tag names one
+ * representation: the CBOR body of a version is tagged apart from its JSON body.
+ */
+@Component
+public class ResourceVersions {
+    
+    public record Version(String etag, long lastModified) {
+        
+        /**
+         * This version of the body written in {@code format}; JSON, or an unknown format, keeps the plain tag.
+         */
+        public Version in(MediaType format) {
+            return MediaType.APPLICATION_CBOR.equals(format) ? new Version(etag + "-cbor", lastModified) : this;
+        }
+    }
+    
+    private record Stamp(long value, long modified) {
+    }
+    
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Tracker books;
+    private final Tracker members;
+    
+    public ResourceVersions(@Value("${library.etag.maximum-size:100000}") long maximumSize) {
+        this.books = new Tracker(maximumSize);
+        this.members = new Tracker(maximumSize);
+    }
+    
+    public Version book(Long id) {
+        return toVersion("b", books.get(id));
+    }
+    
+    public Version books() {
+        return toVersion("bs", books.latest.get());
+    }
+    
+    public Version member(Long id) {
+        return toVersion("m", members.get(id));
+    }
+    
+    public Version members() {
+        return toVersion("ms", members.latest.get());
+    }
+    
+    public void bookChanged(Long id) {
+        bumpAfterCommit(() -> books.changed(id));
+    }
+    
+    public void memberChanged(Long id) {
+        bumpAfterCommit(() -> members.changed(id));
+    }
+    
+    private Version toVersion(String kind, Stamp stamp) {
+        return new Version(epoch + "-" + kind + stamp.value(), stamp.modified());
+    }
+    
+    /**
+     * Bumps once the surrounding transaction has committed. Registered after the
+     * entity cache's own invalidation, so by the time a new version is visible a
+     * reader can no longer be served the old row from the cache under it.
+     */
+    private static void bumpAfterCommit(Runnable bump) {
+        AfterTransaction.onCommittedCompletion(bump);
+    }
+    
+    private static final class Tracker {
+        
+        private final AtomicLong counter = new AtomicLong();
+        private final AtomicReference<Stamp> latest = new AtomicReference<>(new Stamp(0, System.currentTimeMillis()));
+        // Bounded; an evicted row simply falls back to the latest stamp
+        private final Cache<Long, Stamp> stamps;
+        
+        Tracker(long maximumSize) {
+            this.stamps = Caffeine.newBuilder().maximumSize(maximumSize).build();
+        }
+        
+        Stamp get(Long id) {
+            return stamps.get(id, key -> latest.get());
+        }
+        
+        void changed(Long id) {
+            Stamp stamp = new Stamp(counter.incrementAndGet(), System.currentTimeMillis());
+            stamps.asMap().merge(id, stamp, Tracker::newer);
+            latest.accumulateAndGet(stamp, Tracker::newer);
+        }
+        
+        private static Stamp newer(Stamp current, Stamp next) {
+            return next.value() > current.value() ? next : current;
+        }
+    }
+}
@@ -1,116 +1,500 @@
 package com.library.service;
 
+import com.library.dto.BatchItemResult;
+import com.library.dto.BatchResult;
+import com.library.dto.CursorPage;
+import com.library.dto.IssueRequest;
+import com.library.dto.TransactionSummary;
 import com.library.entity.Book;
 import com.library.entity.Member;
 import com.library.entity.Transaction;
 import com.library.exception.BadRequestException;
-import com.library.exception.BookNotAvailableException;
+import com.library.exception.BorrowingBlockedException;
 import com.library.exception.ResourceNotFoundException;
+import com.library.journal.JournalRecord;
+import com.library.journal.TransactionJournal;
+import com.library.repository.ArchivedTransactionRepository;
 import com.library.repository.TransactionRepository;
+import com.library.support.AfterTransaction;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 @Transactional
 public class TransactionService {
     
     private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
     private final BookService bookService;
     private final MemberService memberService;
+    private final BorrowingService borrowingService;
+    private final HoldService holdService;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final TransactionJournal transactionJournal;
     
-    private static final double FINE_PER_DAY = 5.0;
+    private static final int LOAN_PERIOD_DAYS = 14;
+    private static final int MAX_BATCH_SIZE = 100;
+    
+    private static final String INSERT_TRANSACTION_SQL =
+        "INSERT INTO transactions (book_id, member_id, issue_date, due_date, status, fine) " +
+        "VALUES (?, ?, ?, ?, 'ISSUED', 0)";
+    
+    // Loans one member hands back in a batch return
+    private static final class ReturnedLoans {
+        private int count;
+        private int overdue;
+        private double fines;
+        
+        void add(boolean wasOverdue, double fine) {
+            count++;
+            overdue += wasOverdue ? 1 : 0;
+            fines += fine;
+        }
+    }
     
     public Transaction issueBook(Long bookId, Long memberId) {
-        Book book = bookService.getBookById(bookId);
         Member member = memberService.getMemberById(memberId);
         
-        if (book.getAvailableCopies() <= 0) {
-            throw new BookNotAvailableException("Book is not available for issuing");
+        // Loan limit and fine block are checked and the loan claimed in one UPDATE of the member's row
+        borrowingService.checkOut(member);
+        
+        // Use the copy set aside by a ready hold, otherwise claim one off the shelf; fails if none are left
+        if (!holdService.fulfill(bookId, memberId)) {
+            bookService.decreaseAvailableCopies(bookId);
         }
+        Book book = bookService.getBookById(bookId);
         
         Transaction transaction = new Transaction();
         transaction.setBook(book);
         transaction.setMember(member);
         transaction.setIssueDate(LocalDate.now());
-        transaction.setDueDate(LocalDate.now().plusDays(14));
+        transaction.setDueDate(LocalDate.now().plusDays(LOAN_PERIOD_DAYS));
         transaction.setStatus("ISSUED");
         transaction.setFine(0.0);
         
-        bookService.decreaseAvailableCopies(bookId);
-        
-        return transactionRepository.save(transaction);
+        Transaction savedTransaction = transactionRepository.save(transaction);
+        countAfterCommit("library.transactions.issued", 1);
+        transactionJournal.appendAfterCommit(List.of(JournalRecord.of(savedTransaction.getId(), bookId, memberId,
+            "ISSUED", savedTransaction.getIssueDate(), savedTransaction.getDueDate(), null, 0.0)));
+        return savedTransaction;
     }
     
     public Transaction returnBook(Long transactionId) {
-        Transaction transaction = getTransactionById(transactionId);
+        Transaction transaction = findTransaction(transactionId);
         
         if (!"ISSUED".equals(transaction.getStatus()) && !"OVERDUE".equals(transaction.getStatus())) {
             throw new BadRequestException("Book has already been returned");
         }
         
-        transaction.setReturnDate(LocalDate.now());
-        transaction.setStatus("RETURNED");
+        LocalDate returnDate = LocalDate.now();
+        double fine = Transaction.fineFor(transaction.getDueDate(), returnDate);
         
-        // Calculate fine if overdue
-        if (transaction.getReturnDate().isAfter(transaction.getDueDate())) {
-            long daysOverdue = ChronoUnit.DAYS.between(transaction.getDueDate(), transaction.getReturnDate());
-            double fine = daysOverdue * FINE_PER_DAY;
-            transaction.setFine(fine);
+        String returnedFrom = markReturned(transaction, returnDate, fine);
+        if (returnedFrom == null) {
+            throw new BadRequestException("Book has already been returned");
+        }
+        
+        borrowingService.checkIn(transaction.getMember().getId(), 1, "OVERDUE".equals(returnedFrom) ? 1 : 0, fine);
+        holdService.releaseCopies(transaction.getBook().getId(), 1);
+        countAfterCommit("library.transactions.returned", 1);
+        transactionJournal.appendAfterCommit(List.of(returnedRecord(transaction, returnDate, fine)));
+        
+        return getTransactionById(transactionId);
+    }
+    
+    /**
+     * Issues a desk's stack of books in one database transaction. Books and
+     * members are loaded with one query each, loans and copies are claimed with
+     * one guarded UPDATE per distinct member and book (plus one per ready hold
+     * picked up), and the transactions are inserted as one JDBC batch. Items
+     * that cannot be issued are reported without failing the rest.
+     */
+    public BatchResult issueBooks(List<IssueRequest> requests) {
+        validateBatchSize(requests.size());
+        
+        Set<Long> bookIds = new HashSet<>();
+        Set<Long> memberIds = new HashSet<>();
+        for (IssueRequest request : requests) {
+            if (request != null && request.getBookId() != null && request.getMemberId() != null) {
+                bookIds.add(request.getBookId());
+                memberIds.add(request.getMemberId());
+            }
+        }
+        Map<Long, Book> books = bookService.getBooksByIds(bookIds);
+        Map<Long, Member> members = memberService.getMembersByIds(memberIds);
+        
+        List<BatchItemResult> results = new ArrayList<>(requests.size());
+        Map<Long, List<BatchItemResult>> pendingByMember = new TreeMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            IssueRequest request = requests.get(i);
+            BatchItemResult result = new BatchItemResult(i + 1);
+            results.add(result);
+            if (request == null || request.getBookId() == null || request.getMemberId() == null) {
+                fail(result, "bookId and memberId are required");
+                continue;
+            }
+            result.setBookId(request.getBookId());
+            result.setMemberId(request.getMemberId());
+            if (!books.containsKey(request.getBookId())) {
+                fail(result, "Book not found with id: " + request.getBookId());
+            } else if (!members.containsKey(request.getMemberId())) {
+                fail(result, "Member not found with id: " + request.getMemberId());
+            } else {
+                pendingByMember.computeIfAbsent(request.getMemberId(), id -> new ArrayList<>()).add(result);
+            }
         }
         
-        bookService.increaseAvailableCopies(transaction.getBook().getId());
+        // Members are locked in id order so two concurrent batches cannot deadlock on each other
+        Map<Long, List<BatchItemResult>> pendingByBook = new HashMap<>();
+        pendingByMember.forEach((memberId, pending) -> {
+            int claimed = 0;
+            String refusal = null;
+            try {
+                claimed = borrowingService.checkOut(members.get(memberId), pending.size());
+            } catch (BorrowingBlockedException ex) {
+                refusal = ex.getMessage();
+            }
+            for (int i = 0; i < pending.size(); i++) {
+                BatchItemResult result = pending.get(i);
+                if (i < claimed) {
+                    pendingByBook.computeIfAbsent(result.getBookId(), id -> new ArrayList<>()).add(result);
+                } else {
+                    fail(result, refusal != null ? refusal
+                        : "Member has reached the loan limit of " + borrowingService.loanLimit(members.get(memberId)));
+                }
+            }
+        });
         
-        return transactionRepository.save(transaction);
+        List<BatchItemResult> granted = new ArrayList<>();
+        Map<Long, Integer> unusedLoans = new TreeMap<>();
+        Map<Long, Set<Long>> readyHolders = holdService.findReadyMembersByBook(pendingByBook.keySet());
+        pendingByBook.forEach((bookId, pending) -> {
+            List<BatchItemResult> fromShelf = new ArrayList<>();
+            for (BatchItemResult result : pending) {
+                if (readyHolders.getOrDefault(bookId, Set.of()).contains(result.getMemberId())
+                        && holdService.fulfill(bookId, result.getMemberId())) {
+                    granted.add(result);
+                } else {
+                    fromShelf.add(result);
+                }
+            }
+            int taken = fromShelf.isEmpty() ? 0 : bookService.takeAvailableCopies(bookId, fromShelf.size());
+            for (int i = 0; i < fromShelf.size(); i++) {
+                if (i < taken) {
+                    granted.add(fromShelf.get(i));
+                } else {
+                    fail(fromShelf.get(i), "Book is not available for issuing");
+                    unusedLoans.merge(fromShelf.get(i).getMemberId(), 1, Integer::sum);
+                }
+            }
+        });
+        unusedLoans.forEach((memberId, count) -> borrowingService.checkIn(memberId, count, 0, 0.0));
+        
+        insertIssuedTransactions(granted);
+        countAfterCommit("library.transactions.issued", granted.size());
+        List<JournalRecord> records = new ArrayList<>(granted.size());
+        for (BatchItemResult result : granted) {
+            records.add(JournalRecord.of(result.getTransactionId(), result.getBookId(), result.getMemberId(),
+                "ISSUED", result.getIssueDate(), result.getDueDate(), null, 0.0));
+        }
+        transactionJournal.appendAfterCommit(records);
+        return summarize(results);
+    }
+    
+    /**
+     * Returns many transactions at once: one query loads them, each is marked
+     * returned with its guarded UPDATE, and loans and copies go back with one
+     * UPDATE per distinct member and book; copies go to waiting holds first.
+     * A book whose total leaves no room for its copies fails its own items
+     * without failing the rest.
+     */
+    public BatchResult returnBooks(List<Long> transactionIds) {
+        validateBatchSize(transactionIds.size());
+        
+        Map<Long, Transaction> transactions = transactionRepository
+            .findAllByIdWithBookAndMember(transactionIds.stream().filter(Objects::nonNull).collect(Collectors.toSet()))
+            .stream()
+            .collect(Collectors.toMap(Transaction::getId, transaction -> transaction));
+        
+        // Checked before anything changes, so a failed book leaves its loans open
+        Map<Long, Integer> openLoansByBook = new HashMap<>();
+        Map<Long, Integer> copiesOffShelf = new HashMap<>();
+        for (Transaction transaction : transactions.values()) {
+            if ("ISSUED".equals(transaction.getStatus()) || "OVERDUE".equals(transaction.getStatus())) {
+                Book book = transaction.getBook();
+                openLoansByBook.merge(book.getId(), 1, Integer::sum);
+                copiesOffShelf.put(book.getId(), book.getTotalCopies() - book.getAvailableCopies());
+            }
+        }
+        Set<Long> booksWithoutRoom = new HashSet<>();
+        openLoansByBook.forEach((bookId, loans) -> {
+            if (copiesOffShelf.get(bookId) < loans) {
+                booksWithoutRoom.add(bookId);
+            }
+        });
+        
+        LocalDate returnDate = LocalDate.now();
+        List<BatchItemResult> results = new ArrayList<>(transactionIds.size());
+        Map<Long, Integer> returnedCopies = new HashMap<>();
+        Map<Long, ReturnedLoans> returnedLoans = new TreeMap<>();
+        List<JournalRecord> records = new ArrayList<>();
+        for (int i = 0; i < transactionIds.size(); i++) {
+            Long transactionId = transactionIds.get(i);
+            BatchItemResult result = new BatchItemResult(i + 1);
+            result.setTransactionId(transactionId);
+            results.add(result);
+            
+            Transaction transaction = transactionId == null ? null : transactions.get(transactionId);
+            if (transaction == null) {
+                fail(result, "Transaction not found with id: " + transactionId);
+                continue;
+            }
+            result.setBookId(transaction.getBook().getId());
+            result.setMemberId(transaction.getMember().getId());
+            if (booksWithoutRoom.contains(transaction.getBook().getId())) {
+                fail(result, "All copies of this book are already available");
+                continue;
+            }
+            
+            double fine = Transaction.fineFor(transaction.getDueDate(), returnDate);
+            String returnedFrom = markReturned(transaction, returnDate, fine);
+            if (returnedFrom == null) {
+                fail(result, "Book has already been returned");
+                continue;
+            }
+            result.setStatus("RETURNED");
+            result.setFine(fine);
+            returnedCopies.merge(transaction.getBook().getId(), 1, Integer::sum);
+            returnedLoans.computeIfAbsent(transaction.getMember().getId(), id -> new ReturnedLoans())
+                .add("OVERDUE".equals(returnedFrom), fine);
+            records.add(returnedRecord(transaction, returnDate, fine));
+        }
+        
+        returnedLoans.forEach((memberId, loans) ->
+            borrowingService.checkIn(memberId, loans.count, loans.overdue, loans.fines));
+        returnedCopies.forEach((bookId, copies) -> {
+            // Only a concurrent change to the book's copy counts gets here
+            int unshelved = holdService.releaseCopiesWithinTotal(bookId, copies);
+            if (unshelved > 0) {
+                log.warn("No room on the shelf for {} returned copies of book {}", unshelved, bookId);
+            }
+        });
+        countAfterCommit("library.transactions.returned",
+            returnedCopies.values().stream().mapToInt(Integer::intValue).sum());
+        transactionJournal.appendAfterCommit(records);
+        return summarize(results);
     }
     
     @Transactional(readOnly = true)
-    public List<Transaction> getAllTransactions() {
-        return transactionRepository.findAll();
+    public List<TransactionSummary> getAllTransactions() {
+        return transactionRepository.findAllSummaries();
     }
     
+    /**
+     * Pages through all transactions ordered by due date, then id. The page is
+     * found on the (due_date, id) index first and only its rows are joined to
+     * book and member, so the join never decides how the table is read.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionSummary> getTransactionsAfter(String cursor, int size, boolean includeTotal) {
+        CursorCodec.validateSize(size);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Long> ids;
+        if (cursor == null) {
+            ids = transactionRepository.findIdsOrderByDueDate(limit);
+        } else {
+            String[] keys = CursorCodec.decode(cursor, 2);
+            try {
+                ids = transactionRepository.findIdPageAfter(LocalDate.parse(keys[0]), Long.valueOf(keys[1]), limit);
+            } catch (DateTimeParseException | NumberFormatException ex) {
+                throw new BadRequestException("Invalid page cursor");
+            }
+        }
+        List<TransactionSummary> rows = ids.isEmpty() ? List.of()
+            : transactionRepository.findSummariesByIdsOrderByDueDate(ids);
+        Long totalItems = includeTotal ? transactionRepository.count() : null;
+        return CursorCodec.toPage(rows, size,
+            transaction -> CursorCodec.encode(transaction.getDueDate(), transaction.getId()), totalItems);
+    }
+    
+    /**
+     * Loads the transaction with its book and member in one query, for responses that carry the full graph.
+     */
     @Transactional(readOnly = true)
     public Transaction getTransactionById(Long id) {
-        return transactionRepository.findById(id)
+        return transactionRepository.findWithBookAndMemberById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id: " + id));
     }
     
+    /**
+     * The member's loans in the live table, plus the archived ones when {@code includeArchived} is set.
+     */
     @Transactional(readOnly = true)
-    public List<Transaction> getTransactionsByMemberId(Long memberId) {
-        return transactionRepository.findByMemberId(memberId);
+    public List<TransactionSummary> getTransactionsByMemberId(Long memberId, boolean includeArchived) {
+        List<TransactionSummary> live = transactionRepository.findSummariesByMemberId(memberId);
+        return includeArchived ? withArchived(live, archivedTransactionRepository.findSummariesByMemberId(memberId))
+            : live;
     }
     
     @Transactional(readOnly = true)
-    public List<Transaction> getTransactionsByBookId(Long bookId) {
-        return transactionRepository.findByBookId(bookId);
+    public List<TransactionSummary> getTransactionsByBookId(Long bookId, boolean includeArchived) {
+        List<TransactionSummary> live = transactionRepository.findSummariesByBookId(bookId);
+        return includeArchived ? withArchived(live, archivedTransactionRepository.findSummariesByBookId(bookId))
+            : live;
     }
     
+    /**
+     * Status changes and fines are persisted by {@link OverdueService}; this is a plain indexed read
+     * that also covers loans which fell due since the job last ran.
+     */
     @Transactional(readOnly = true)
-    public List<Transaction> getOverdueTransactions() {
-        List<Transaction> overdueTransactions = transactionRepository.findOverdueTransactions(LocalDate.now());
-        
-        // Update status to OVERDUE
-        overdueTransactions.forEach(transaction -> {
-            if ("ISSUED".equals(transaction.getStatus())) {
-                transaction.setStatus("OVERDUE");
-            }
-        });
-        
-        return overdueTransactions;
+    public List<TransactionSummary> getOverdueTransactions() {
+        return transactionRepository.findOverdueSummaries(LocalDate.now());
     }
     
     @Transactional(readOnly = true)
-    public List<Transaction> getActiveTransactionsByMember(Long memberId) {
-        return transactionRepository.findActiveTransactionsByMember(memberId);
+    public List<TransactionSummary> getActiveTransactionsByMember(Long memberId) {
+        List<Long> ids = transactionRepository.findActiveIdsByMember(memberId);
+        return ids.isEmpty() ? List.of() : transactionRepository.findSummariesByIds(ids);
     }
     
     @Transactional(readOnly = true)
-    public List<Transaction> getTransactionsByStatus(String status) {
-        return transactionRepository.findByStatus(status);
+    public List<TransactionSummary> getTransactionsByStatus(String status, boolean includeArchived) {
+        List<TransactionSummary> live = transactionRepository.findSummariesByStatus(status);
+        return includeArchived ? withArchived(live, archivedTransactionRepository.findSummariesByStatus(status))
+            : live;
+    }
+    
+    /**
+     * Merges archived loans into the live ones in id order; a loan archived
+     * between the two reads is listed once.
+     */
+    private static List<TransactionSummary> withArchived(List<TransactionSummary> live,
+                                                         List<TransactionSummary> archived) {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        Map<Long, TransactionSummary> byId = new TreeMap<>();
+        archived.forEach(summary -> byId.put(summary.getId(), summary));
+        live.forEach(summary -> byId.put(summary.getId(), summary));
+        return new ArrayList<>(byId.values());
+    }
+    
+    /**
+     * Loads the transaction alone; book and member stay unloaded references.
+     */
+    private Transaction findTransaction(Long id) {
+        return transactionRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id: " + id));
+    }
+    
+    /**
+     * Marks the loan returned from the status it was read with, or from OVERDUE if
+     * the overdue job moved it since, and returns that status; null when the loan
+     * was already returned. Knowing the prior status keeps the overdue count exact.
+     */
+    private String markReturned(Transaction transaction, LocalDate returnDate, double fine) {
+        String status = transaction.getStatus();
+        if (!"ISSUED".equals(status) && !"OVERDUE".equals(status)) {
+            return null;
+        }
+        if (transactionRepository.markReturned(transaction.getId(), status, returnDate, fine) > 0) {
+            return status;
+        }
+        if ("ISSUED".equals(status)
+                && transactionRepository.markReturned(transaction.getId(), "OVERDUE", returnDate, fine) > 0) {
+            return "OVERDUE";
+        }
+        return null;
+    }
+    
+    private JournalRecord returnedRecord(Transaction transaction, LocalDate returnDate, double fine) {
+        return JournalRecord.of(transaction.getId(), transaction.getBook().getId(), transaction.getMember().getId(),
+            "RETURNED", transaction.getIssueDate(), transaction.getDueDate(), returnDate, fine);
+    }
+    
+    /**
+     * Counts committed transactions only, so a rolled-back checkout or return never shows up in the metrics.
+     */
+    private void countAfterCommit(String counter, int count) {
+        AfterTransaction.onCommit(() -> meterRegistry.counter(counter).increment(count));
+    }
+    
+    private void insertIssuedTransactions(List<BatchItemResult> granted) {
+        if (granted.isEmpty()) {
+            return;
+        }
+        LocalDate issueDate = LocalDate.now();
+        LocalDate dueDate = issueDate.plusDays(LOAN_PERIOD_DAYS);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+            connection -> connection.prepareStatement(INSERT_TRANSACTION_SQL, Statement.RETURN_GENERATED_KEYS),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, granted.get(i).getBookId());
+                    ps.setLong(2, granted.get(i).getMemberId());
+                    ps.setDate(3, Date.valueOf(issueDate));
+                    ps.setDate(4, Date.valueOf(dueDate));
+                }
+                
+                @Override
+                public int getBatchSize() {
+                    return granted.size();
+                }
+            },
+            keyHolder);
+        
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < granted.size(); i++) {
+            BatchItemResult result = granted.get(i);
+            result.setTransactionId(((Number) keys.get(i).values().iterator().next()).longValue());
+            result.setStatus("ISSUED");
+            result.setIssueDate(issueDate);
+            result.setDueDate(dueDate);
+        }
+    }
+    
+    private void validateBatchSize(int size) {
+        if (size < 1 || size > MAX_BATCH_SIZE) {
+            throw new BadRequestException("Batch must contain between 1 and " + MAX_BATCH_SIZE + " items");
+        }
+    }
+    
+    private void fail(BatchItemResult result, String message) {
+        result.setStatus("FAILED");
+        result.setMessage(message);
+    }
+    
+    private BatchResult summarize(List<BatchItemResult> results) {
+        int failed = (int) results.stream().filter(result -> "FAILED".equals(result.getStatus())).count();
+        return new BatchResult(results.size(), results.size() - failed, failed, results);
     }
 }
\ No newline at end of file
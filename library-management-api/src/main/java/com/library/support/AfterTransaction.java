@@ -0,0 +1,67 @@
+package com.library.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers side effects outside the database (in-memory indexes, caches, the
+ * journal, notifications) until the surrounding transaction has finished, so a
+ * rollback never leaves them ahead of the database. Without an active
+ * transaction the action runs at once.
+ * <p>
+ * Within one transaction, {@code afterCommit} actions run before any
+ * {@code afterCompletion} action, and actions of the same kind run in the
+ * order they were registered.
+ */
+public final class AfterTransaction {
+    
+    private AfterTransaction() {
+    }
+    
+    /**
+     * Runs the action once the surrounding transaction commits; a rollback discards it.
+     */
+    public static void onCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    /**
+     * Runs the action in the completion phase of a committed transaction, after
+     * every {@code afterCommit} action and after completion actions registered earlier.
+     */
+    public static void onCommittedCompletion(Runnable action) {
+        register(action, true);
+    }
+    
+    /**
+     * Runs the action once the surrounding transaction completes, whether it
+     * committed or rolled back.
+     */
+    public static void onCompletion(Runnable action) {
+        register(action, false);
+    }
+    
+    private static void register(Runnable action, boolean committedOnly) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (!committedOnly || status == STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.library.support;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The body formats the API writes, and which of them a request gets. Resolved
+ * the way the message converters resolve it, so a handler can tag the response
+ * for its format before the body is written.
+ */
+public final class Representations {
+    
+    // In converter order: JSON wins a tie, such as */* or an empty Accept
+    public static final List<MediaType> FORMATS = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR);
+    
+    private Representations() {
+    }
+    
+    /**
+     * The format a response to a request with these {@code Accept} types is
+     * written in, or null when neither is acceptable.
+     */
+    public static MediaType negotiate(List<MediaType> accept) {
+        if (accept.isEmpty()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> preferred = new ArrayList<>(accept);
+        MimeTypeUtils.sortBySpecificity(preferred);
+        for (MediaType type : preferred) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType format : FORMATS) {
+                if (type.includes(format)) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,77 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Holds, per-member borrowing state and the overdue scan index, which were
+ * added while the schema was still created by {@code ddl-auto=update}. A
+ * database baselined at version 1 may already have any of them, so every
+ * object is created only if it is missing. MySQL has no
+ * {@code CREATE INDEX IF NOT EXISTS}, hence a Java migration that looks the
+ * indexes up first.
+ */
+public class V2__Circulation_schema extends BaseJavaMigration {
+    
+    private static final String CREATE_HOLDS =
+        "CREATE TABLE IF NOT EXISTS holds (" +
+        "id BIGINT NOT NULL AUTO_INCREMENT, " +
+        "book_id BIGINT NOT NULL, " +
+        "member_id BIGINT NOT NULL, " +
+        "status VARCHAR(20) NOT NULL, " +
+        "created_at DATETIME(6) NOT NULL, " +
+        "ready_at DATETIME(6), " +
+        "expires_at DATETIME(6) NOT NULL, " +
+        "PRIMARY KEY (id), " +
+        "CONSTRAINT fk_holds_book FOREIGN KEY (book_id) REFERENCES books (id), " +
+        "CONSTRAINT fk_holds_member FOREIGN KEY (member_id) REFERENCES members (id))";
+    
+    private static final String CREATE_BORROWING_STATE =
+        "CREATE TABLE IF NOT EXISTS member_borrowing_state (" +
+        "member_id BIGINT NOT NULL, " +
+        "active_loans INT NOT NULL, " +
+        "overdue_loans INT NOT NULL, " +
+        "fines_owed DOUBLE NOT NULL, " +
+        "PRIMARY KEY (member_id))";
+    
+    // Index name to table and columns, as the entities declare them
+    private static final Map<String, String[]> INDEXES = Map.of(
+        "idx_transactions_status_due_date", new String[] {"transactions", "status, due_date"},
+        "idx_holds_book_status", new String[] {"holds", "book_id, status, id"},
+        "idx_holds_status_expires_at", new String[] {"holds", "status, expires_at"},
+        "idx_holds_member_status", new String[] {"holds", "member_id, status"});
+    
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_HOLDS);
+            statement.execute(CREATE_BORROWING_STATE);
+            for (Map.Entry<String, String[]> index : INDEXES.entrySet()) {
+                String table = index.getValue()[0];
+                if (!indexExists(connection, table, index.getKey())) {
+                    statement.execute("CREATE INDEX " + index.getKey() + " ON " + table +
+                        " (" + index.getValue()[1] + ")");
+                }
+            }
+        }
+    }
+    
+    private static boolean indexExists(Connection connection, String table, String name) throws SQLException {
+        try (ResultSet indexes = connection.getMetaData()
+                .getIndexInfo(connection.getCatalog(), connection.getSchema(), table, false, true)) {
+            while (indexes.next()) {
+                if (name.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
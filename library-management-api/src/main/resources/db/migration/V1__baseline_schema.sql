@@ -0,0 +1,42 @@
+-- Schema as Hibernate created it with ddl-auto=update before the schema moved to
+-- Flyway. Databases created that way are baselined at this version and only pick
+-- up the migrations after it.
+
+CREATE TABLE books (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(200) NOT NULL,
+    author VARCHAR(100) NOT NULL,
+    isbn VARCHAR(20) NOT NULL,
+    publisher VARCHAR(100),
+    published_year INT,
+    total_copies INT NOT NULL,
+    available_copies INT NOT NULL,
+    category VARCHAR(50),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_books_isbn UNIQUE (isbn)
+);
+
+CREATE TABLE members (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(100) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    phone VARCHAR(10) NOT NULL,
+    membership_date DATE NOT NULL,
+    membership_type VARCHAR(20) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_members_email UNIQUE (email)
+);
+
+CREATE TABLE transactions (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    book_id BIGINT NOT NULL,
+    member_id BIGINT NOT NULL,
+    issue_date DATE NOT NULL,
+    due_date DATE NOT NULL,
+    return_date DATE,
+    status VARCHAR(20) NOT NULL,
+    fine DOUBLE NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_transactions_book FOREIGN KEY (book_id) REFERENCES books (id),
+    CONSTRAINT fk_transactions_member FOREIGN KEY (member_id) REFERENCES members (id)
+);
@@ -0,0 +1,20 @@
+-- One index per finder pattern of the book, member and transaction repositories.
+-- InnoDB appends the primary key to every secondary index, so a finder that
+-- selects ids, or orders the matching rows by id, is answered from the index alone.
+
+-- A member's or a book's open loans (status ISSUED/OVERDUE); all of them in id
+-- order come straight from the foreign key indexes.
+CREATE INDEX idx_transactions_member_status ON transactions (member_id, status, id);
+CREATE INDEX idx_transactions_book_status ON transactions (book_id, status, id);
+
+-- Keyset pages of all loans in due date order, read as ids before the join
+CREATE INDEX idx_transactions_due_date_id ON transactions (due_date, id);
+
+CREATE INDEX idx_books_category ON books (category);
+
+-- Phone numbers are checked for duplicates on every registration and import
+CREATE INDEX idx_members_phone ON members (phone);
+
+-- Deliberately not indexed: available_copies > 0 and membership_type match too
+-- large a share of their tables for an index to beat a scan, and the
+-- title/author/name searches use LIKE '%...%', which no B-tree index can serve.
@@ -0,0 +1,21 @@
+-- Returned transactions past library.archive.min-age, moved out of the live
+-- table by ArchiveService. Rows keep their transaction id. There are no foreign
+-- keys, so archiving never waits on book or member rows; deleting a book or
+-- member removes its archived rows along with the live ones.
+
+CREATE TABLE transactions_archive (
+    id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    member_id BIGINT NOT NULL,
+    issue_date DATE NOT NULL,
+    due_date DATE NOT NULL,
+    return_date DATE,
+    status VARCHAR(20) NOT NULL,
+    fine DOUBLE NOT NULL,
+    archived_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- A member's or a book's history when it is asked for
+CREATE INDEX idx_transactions_archive_member ON transactions_archive (member_id, id);
+CREATE INDEX idx_transactions_archive_book ON transactions_archive (book_id, id);
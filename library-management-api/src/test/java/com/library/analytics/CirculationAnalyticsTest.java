@@ -0,0 +1,178 @@
+package com.library.analytics;
+
+import com.library.dto.LoanRow;
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.exception.BadRequestException;
+import com.library.journal.JournalRecord;
+import com.library.journal.TransactionJournal;
+import com.library.repository.ArchivedTransactionRepository;
+import com.library.repository.BookRepository;
+import com.library.repository.MemberRepository;
+import com.library.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CirculationAnalyticsTest {
+
+    private static final LocalDate JAN = LocalDate.of(2024, 1, 10);
+    private static final LocalDate FEB = LocalDate.of(2024, 2, 10);
+
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final MemberRepository memberRepository = mock(MemberRepository.class);
+    private final TransactionJournal transactionJournal = mock(TransactionJournal.class);
+    private final List<JournalRecord> journal = new ArrayList<>();
+
+    private final CirculationAnalytics analytics = new CirculationAnalytics(transactionRepository,
+        mock(ArchivedTransactionRepository.class), bookRepository, memberRepository, transactionJournal);
+
+    private final List<LoanRow> rows = new ArrayList<>();
+
+    @BeforeEach
+    void stubRepositories() {
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(List.of(
+            book(1L, "Dune", "Fiction"), book(2L, "Emma", "Fiction"), book(3L, "Ulysses", "Fiction"),
+            book(4L, "Cosmos", "Science")));
+        when(memberRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(List.of(
+            member(1L, "Ada", "PREMIUM"), member(2L, "Alan", "STUDENT"), member(3L, "Grace", "STUDENT")));
+        when(transactionRepository.findLoanRowsAfter(eq(0L), any())).thenReturn(rows);
+        when(transactionJournal.isEnabled()).thenReturn(true);
+        doAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            Consumer<JournalRecord> consumer = invocation.getArgument(1);
+            journal.stream().filter(record -> record.sequence() > after).forEach(consumer);
+            return null;
+        }).when(transactionJournal).scanAfter(anyLong(), any());
+    }
+
+    @Test
+    void topBooksAreRankedPerCategoryWithTiesToTheLowerId() {
+        // Dune 3 loans, Emma and Ulysses 2 each, Cosmos 1
+        loan(1, 1, 1, JAN);
+        loan(2, 1, 2, JAN);
+        loan(3, 1, 3, JAN);
+        loan(4, 3, 1, JAN);
+        loan(5, 3, 2, JAN);
+        loan(6, 2, 1, JAN);
+        loan(7, 2, 2, JAN);
+        loan(8, 4, 3, JAN);
+        analytics.rebuild();
+
+        Map<String, Object> report = analytics.getTopBooksByCategory(null, null, null, 2);
+
+        assertThat(report).containsOnlyKeys("Fiction", "Science");
+        assertThat(bookIds(report.get("Fiction"))).containsExactly(1L, 2L);
+        assertThat(bookIds(report.get("Science"))).containsExactly(4L);
+        assertThat(analytics.getTopBooksByCategory("Science", null, null, 5)).containsOnlyKeys("Science");
+        assertThat(bookIds(analytics.getTopBooksByCategory("Fiction", null, null, 5).get("Fiction")))
+            .containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void busiestMembersCountOnlyLoansIssuedInTheRange() {
+        loan(1, 1, 1, JAN);
+        loan(2, 2, 2, FEB);
+        loan(3, 3, 2, FEB);
+        loan(4, 4, 3, FEB);
+        analytics.rebuild();
+
+        List<Map<String, Object>> members = analytics.getBusiestMembers(FEB.withDayOfMonth(1), null, 10);
+
+        assertThat(members).extracting(member -> member.get("memberId")).containsExactly(2L, 3L);
+        assertThat(members.get(0)).containsEntry("loans", 2L).containsEntry("membershipType", "STUDENT");
+    }
+
+    @Test
+    void finesAndLoanLengthsAreGroupedByReturn() {
+        returned(1, 1, 1, JAN, JAN.plusDays(10), 1.5);
+        returned(2, 2, 2, JAN, JAN.plusDays(30), 4.0);
+        returned(3, 3, 3, JAN, JAN.plusDays(20), 0.5);
+        loan(4, 4, 1, FEB);
+        analytics.rebuild();
+
+        assertThat(analytics.getFinesByMonth(null, null)).containsExactly(
+            Map.of("month", "2024-01", "returns", 2L, "fines", 2.0),
+            Map.of("month", "2024-02", "returns", 1L, "fines", 4.0));
+        assertThat(analytics.getLoanLengthByMembershipType(null, null)).containsExactly(
+            Map.entry("PREMIUM", Map.of("returnedLoans", 1L, "averageDays", 10.0)),
+            Map.entry("STUDENT", Map.of("returnedLoans", 2L, "averageDays", 25.0)));
+        assertThat(analytics.getFinesByMonth(FEB.plusMonths(1), null)).isEmpty();
+    }
+
+    @Test
+    void journalReplayIgnoresALateImageOfAReturnedLoan() {
+        analytics.rebuild();
+        when(bookRepository.findAllById(any())).thenReturn(List.of(book(1L, "Dune", "Fiction")));
+        when(memberRepository.findAllById(any())).thenReturn(List.of(member(1L, "Ada", "PREMIUM")));
+        journal.add(record(1, "ISSUED", null, 0.0));
+        journal.add(record(2, "RETURNED", JAN.plusDays(20), 2.0));
+        journal.add(record(3, "OVERDUE", null, 0.0));
+
+        analytics.refresh();
+
+        assertThat(analytics.status()).containsEntry("loans", 1).containsEntry("onLoan", 0L)
+            .containsEntry("journalSequence", 3L);
+        assertThat(analytics.getFinesByMonth(null, null)).containsExactly(
+            Map.of("month", "2024-01", "returns", 1L, "fines", 2.0));
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        analytics.rebuild();
+
+        assertThatThrownBy(() -> analytics.getBusiestMembers(FEB, JAN, 10)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> analytics.getBusiestMembers(null, null, 0)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> analytics.getTopBooksByCategory(null, null, null, 101))
+            .isInstanceOf(BadRequestException.class);
+    }
+
+    private void loan(long id, long bookId, long memberId, LocalDate issued) {
+        rows.add(new LoanRow(id, bookId, memberId, issued, issued.plusDays(14), null, "ISSUED", 0.0));
+    }
+
+    private void returned(long id, long bookId, long memberId, LocalDate issued, LocalDate returned, double fine) {
+        rows.add(new LoanRow(id, bookId, memberId, issued, issued.plusDays(14), returned, "RETURNED", fine));
+    }
+
+    private static JournalRecord record(long sequence, String status, LocalDate returned, double fine) {
+        return new JournalRecord(sequence, Instant.now(), 100, 1, 1, status, JAN, JAN.plusDays(14), returned, fine);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> bookIds(Object books) {
+        return ((List<Map<String, Object>>) books).stream().map(book -> book.get("bookId")).toList();
+    }
+
+    private static Book book(Long id, String title, String category) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setCategory(category);
+        return book;
+    }
+
+    private static Member member(Long id, String name, String membershipType) {
+        Member member = new Member();
+        member.setId(id);
+        member.setName(name);
+        member.setMembershipType(membershipType);
+        return member;
+    }
+}
@@ -0,0 +1,169 @@
+package com.library.analytics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CirculationStoreTest {
+
+    private static final int BOOKS = 50;
+    private static final int MEMBERS = 30;
+    private static final String[] TYPES = {"STANDARD", "PREMIUM", "STUDENT"};
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    // Below and above the size at which scans go parallel
+    @ParameterizedTest
+    @ValueSource(ints = {500, 25_000})
+    void aggregationsMatchAPlainScan(int loanCount) {
+        Loans loans = new Loans(loanCount);
+        CirculationStore store = loans.load();
+        int fromDay = CirculationStore.toDay(START.plusDays(60));
+        int toDay = CirculationStore.toDay(START.plusDays(300));
+
+        long[] perBook = new long[BOOKS];
+        long[] perMember = new long[MEMBERS];
+        long[] loanDays = new long[TYPES.length * 2];
+        long[] open = new long[2];
+        int today = CirculationStore.toDay(START.plusDays(200));
+        int firstReturn = Integer.MAX_VALUE;
+        int lastReturn = Integer.MIN_VALUE;
+        for (int i = 0; i < loanCount; i++) {
+            if (loans.issue[i] >= fromDay && loans.issue[i] <= toDay) {
+                perBook[loans.book[i]]++;
+                perMember[loans.member[i]]++;
+            }
+            int returned = loans.returned[i];
+            if (returned == CirculationStore.NO_DATE) {
+                open[0]++;
+                open[1] += loans.issue[i] + 14 < today ? 1 : 0;
+            } else if (returned >= fromDay && returned <= toDay) {
+                int type = loans.member[i] % TYPES.length;
+                loanDays[type * 2]++;
+                loanDays[type * 2 + 1] += returned - loans.issue[i];
+                firstReturn = Math.min(firstReturn, returned);
+                lastReturn = Math.max(lastReturn, returned);
+            }
+        }
+
+        assertThat(store.loanCount()).isEqualTo(loanCount);
+        assertThat(store.loansPerBook(fromDay, toDay)).containsExactly(perBook);
+        assertThat(store.loansPerMember(fromDay, toDay)).containsExactly(perMember);
+        assertThat(store.loanDaysPerMembershipType(fromDay, toDay)).containsExactly(loanDays);
+        assertThat(store.openLoans(today)).containsExactly(open);
+        assertThat(store.returnDayRange(fromDay, toDay)).containsExactly(firstReturn, lastReturn);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {500, 25_000})
+    void finesAreSummedPerMonth(int loanCount) {
+        Loans loans = new Loans(loanCount);
+        CirculationStore store = loans.load();
+        int fromDay = CirculationStore.toDay(START);
+        int toDay = CirculationStore.toDay(START.plusDays(500));
+        int firstMonth = CirculationStore.monthOf(fromDay);
+        int lastMonth = CirculationStore.monthOf(toDay);
+
+        double[] expected = new double[(lastMonth - firstMonth + 1) * 2];
+        for (int i = 0; i < loanCount; i++) {
+            if (loans.returned[i] != CirculationStore.NO_DATE) {
+                int month = CirculationStore.monthOf(loans.returned[i]) - firstMonth;
+                expected[month * 2]++;
+                expected[month * 2 + 1] += loans.fine[i];
+            }
+        }
+
+        assertThat(store.finesPerMonth(fromDay, toDay, firstMonth, lastMonth)).containsExactly(expected, within(1e-6));
+    }
+
+    @Test
+    void lateImageOfAReturnedLoanIsIgnored() {
+        CirculationStore store = new CirculationStore(0, 0, 0);
+        store.putLoan(1, 10, 20, START, START.plusDays(14), null, "ISSUED", 0.0);
+        store.putLoan(1, 10, 20, START, START.plusDays(14), START.plusDays(20), "RETURNED", 3.0);
+        store.putLoan(1, 10, 20, START, START.plusDays(14), null, "OVERDUE", 0.0);
+
+        assertThat(store.loanCount()).isEqualTo(1);
+        assertThat(store.openLoans(CirculationStore.toDay(START.plusDays(30)))).containsExactly(0L, 0L);
+        assertThat(store.returnDayRange(Integer.MIN_VALUE + 1, Integer.MAX_VALUE))
+            .containsExactly(CirculationStore.toDay(START.plusDays(20)), CirculationStore.toDay(START.plusDays(20)));
+    }
+
+    @Test
+    void loanOfAnUnseenBookOrMemberGetsAPlaceholder() {
+        CirculationStore store = new CirculationStore(0, 0, 0);
+        store.putLoan(1, 10, 20, START, START.plusDays(14), null, "ISSUED", 0.0);
+
+        assertThat(store.bookCount()).isEqualTo(1);
+        assertThat(store.bookId(0)).isEqualTo(10);
+        assertThat(store.categories().decode(store.bookCategory(0))).isEqualTo(CirculationStore.UNKNOWN);
+        assertThat(store.memberId(0)).isEqualTo(20);
+        assertThat(store.membershipTypes().decode(store.memberType(0))).isEqualTo(CirculationStore.UNKNOWN);
+
+        store.putBook(10, "Dune", "Fiction");
+        assertThat(store.bookCount()).isEqualTo(1);
+        assertThat(store.bookTitle(0)).isEqualTo("Dune");
+    }
+
+    @Test
+    void nothingReturnedInTheRangeHasNoReturnDays() {
+        CirculationStore store = new CirculationStore(0, 0, 0);
+        store.putLoan(1, 10, 20, START, START.plusDays(14), START.plusDays(5), "RETURNED", 0.0);
+
+        int day = CirculationStore.toDay(START.plusDays(6));
+        assertThat(store.returnDayRange(day, day + 100)).isNull();
+    }
+
+    /**
+     * Random loans with the columns kept alongside, so every report can be checked by a plain loop.
+     */
+    private static final class Loans {
+
+        final int[] book;
+        final int[] member;
+        final int[] issue;
+        final int[] returned;
+        final double[] fine;
+
+        Loans(int count) {
+            Random random = new Random(42);
+            book = new int[count];
+            member = new int[count];
+            issue = new int[count];
+            returned = new int[count];
+            fine = new double[count];
+            for (int i = 0; i < count; i++) {
+                book[i] = random.nextInt(BOOKS);
+                member[i] = random.nextInt(MEMBERS);
+                issue[i] = CirculationStore.toDay(START.plusDays(random.nextInt(400)));
+                boolean isReturned = random.nextInt(10) < 7;
+                returned[i] = isReturned ? issue[i] + random.nextInt(40) : CirculationStore.NO_DATE;
+                fine[i] = isReturned ? random.nextInt(20) * 0.5 : 0.0;
+            }
+        }
+
+        // Starts empty, so the columns and id maps grow as the loans arrive
+        CirculationStore load() {
+            CirculationStore store = new CirculationStore(0, 0, 0);
+            for (int slot = 0; slot < BOOKS; slot++) {
+                store.putBook(1000 + slot, "Book " + slot, slot % 2 == 0 ? "Fiction" : null);
+            }
+            for (int slot = 0; slot < MEMBERS; slot++) {
+                store.putMember(2000 + slot, "Member " + slot, TYPES[slot % TYPES.length]);
+            }
+            for (int i = 0; i < book.length; i++) {
+                LocalDate issueDate = LocalDate.ofEpochDay(issue[i]);
+                boolean isReturned = returned[i] != CirculationStore.NO_DATE;
+                store.putLoan(i + 1, 1000 + book[i], 2000 + member[i], issueDate, issueDate.plusDays(14),
+                    isReturned ? LocalDate.ofEpochDay(returned[i]) : null, isReturned ? "RETURNED" : "ISSUED",
+                    fine[i]);
+            }
+            return store;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.library.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongIntMapTest {
+
+    @Test
+    void missingKeysAreMinusOne() {
+        LongIntMap map = new LongIntMap(4);
+        map.put(7, 70);
+
+        assertThat(map.get(7)).isEqualTo(70);
+        assertThat(map.get(8)).isEqualTo(-1);
+        assertThat(map.get(0)).isEqualTo(-1);
+    }
+
+    @Test
+    void putReplacesTheValueOfAnExistingKey() {
+        LongIntMap map = new LongIntMap(4);
+        map.put(7, 70);
+        map.put(7, 71);
+
+        assertThat(map.get(7)).isEqualTo(71);
+    }
+
+    @Test
+    void growsPastItsExpectedSizeAndKeepsEveryKey() {
+        LongIntMap map = new LongIntMap(1);
+        int count = 20_000;
+        for (int i = 0; i < count; i++) {
+            map.put(key(i), i);
+        }
+        map.put(Long.MIN_VALUE, count);
+        map.put(Long.MAX_VALUE, count + 1);
+
+        for (int i = 0; i < count; i++) {
+            assertThat(map.get(key(i))).as("key %d", key(i)).isEqualTo(i);
+        }
+        assertThat(map.get(Long.MIN_VALUE)).isEqualTo(count);
+        assertThat(map.get(Long.MAX_VALUE)).isEqualTo(count + 1);
+        assertThat(map.get(key(count))).isEqualTo(-1);
+    }
+
+    // Zero, negatives and keys equal in their low 32 bits, which a weak hash would pile into one slot
+    private static long key(int i) {
+        return i % 2 == 0 ? (long) i << 32 : -i;
+    }
+}
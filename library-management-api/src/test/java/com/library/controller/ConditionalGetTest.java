@@ -0,0 +1,157 @@
+package com.library.controller;
+
+import com.library.repository.BookRepository;
+import com.library.repository.MemberBorrowingStateRepository;
+import com.library.repository.MemberRepository;
+import com.library.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A book collection changes its tag as soon as a book changes
+@SpringBootTest(properties = "library.snapshots.max-staleness=PT0S")
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+
+    private static final String BOOK = "{\"title\":\"Clean Code\",\"author\":\"Robert C. Martin\"," +
+        "\"isbn\":\"978-0132350884\",\"totalCopies\":2,\"availableCopies\":2}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MemberBorrowingStateRepository borrowingStateRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    private long bookId;
+    private long memberId;
+
+    @BeforeEach
+    void createBookAndMember() throws Exception {
+        bookId = idOf(mockMvc.perform(post("/api/books").contentType(MediaType.APPLICATION_JSON).content(BOOK))
+            .andExpect(status().isCreated()).andReturn());
+        memberId = idOf(mockMvc.perform(post("/api/members").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"John Doe\",\"email\":\"john.doe@example.com\",\"phone\":\"9876543210\"," +
+                    "\"membershipDate\":\"2024-01-15\",\"membershipType\":\"PREMIUM\"}"))
+            .andExpect(status().isCreated()).andReturn());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll();
+        borrowingStateRepository.deleteAll();
+        bookRepository.deleteAll();
+        memberRepository.deleteAll();
+    }
+
+    @Test
+    void matchingIfNoneMatchGetsNotModifiedWithoutABody() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/books/{id}", bookId))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+            .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/books/{id}", bookId).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    void updateChangesTheTag() throws Exception {
+        String etag = etagOf("/api/books/" + bookId);
+
+        mockMvc.perform(put("/api/books/{id}", bookId).contentType(MediaType.APPLICATION_JSON)
+                .content(BOOK.replace("Clean Code", "Clean Code, 2nd Edition")))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/books/{id}", bookId).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    void ifModifiedSinceIsAnsweredFromTheLastChange() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/members/{id}", memberId)).andExpect(status().isOk()).andReturn();
+        String lastModified = first.getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+
+        mockMvc.perform(get("/api/members/{id}", memberId).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/members/{id}", memberId)
+                .header(HttpHeaders.IF_MODIFIED_SINCE, "Mon, 01 Jan 2001 00:00:00 GMT"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void issuingChangesTheBookButNotTheMember() throws Exception {
+        String book = etagOf("/api/books/" + bookId);
+        String books = etagOf("/api/books/available");
+        String member = etagOf("/api/members/" + memberId);
+
+        mockMvc.perform(post("/api/transactions/issue").param("bookId", Long.toString(bookId))
+                .param("memberId", Long.toString(memberId)))
+            .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/books/{id}", bookId).header(HttpHeaders.IF_NONE_MATCH, book))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/books/available").header(HttpHeaders.IF_NONE_MATCH, books))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/members/{id}", memberId).header(HttpHeaders.IF_NONE_MATCH, member))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void jsonAndCborBodiesCarryTheirOwnTags() throws Exception {
+        for (String url : new String[] {"/api/books/" + bookId, "/api/members/" + memberId, "/api/books",
+                                        "/api/members"}) {
+            String json = etagOf(url);
+            String cbor = mockMvc.perform(get(url).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+            assertThat(cbor).isNotEqualTo(json);
+            mockMvc.perform(get(url).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk());
+            mockMvc.perform(get(url).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cbor))
+                .andExpect(status().isNotModified());
+            mockMvc.perform(get(url).accept(MediaType.ALL).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isNotModified());
+        }
+    }
+
+    private String etagOf(String url) throws Exception {
+        return mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private static long idOf(MvcResult result) throws Exception {
+        String body = result.getResponse().getContentAsString();
+        return Long.parseLong(body.replaceAll("^\\{\"id\":(\\d+).*$", "$1"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.library.controller;
+
+import com.library.repository.BookRepository;
+import com.library.repository.MemberBorrowingStateRepository;
+import com.library.repository.MemberRepository;
+import com.library.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotentRequestTest {
+
+    private static final String REPLAYED = "Idempotent-Replayed";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MemberBorrowingStateRepository borrowingStateRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    private long bookId;
+    private long memberId;
+
+    @BeforeEach
+    void createBookAndMember() throws Exception {
+        bookId = idOf(mockMvc.perform(post("/api/books").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Clean Code\",\"author\":\"Robert C. Martin\"," +
+                    "\"isbn\":\"978-0132350884\",\"totalCopies\":2,\"availableCopies\":2}"))
+            .andExpect(status().isCreated()).andReturn());
+        memberId = idOf(mockMvc.perform(post("/api/members").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"John Doe\",\"email\":\"john.doe@example.com\",\"phone\":\"9876543210\"," +
+                    "\"membershipDate\":\"2024-01-15\",\"membershipType\":\"PREMIUM\"}"))
+            .andExpect(status().isCreated()).andReturn());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll();
+        borrowingStateRepository.deleteAll();
+        bookRepository.deleteAll();
+        memberRepository.deleteAll();
+    }
+
+    @Test
+    void retryWithTheSameKeyIsMarkedAsReplayed() throws Exception {
+        long transactionId = idOf(mockMvc.perform(issue().header("Idempotency-Key", "checkout-1"))
+            .andExpect(status().isCreated())
+            .andExpect(header().string(REPLAYED, "false"))
+            .andReturn());
+
+        long replayedId = idOf(mockMvc.perform(issue().header("Idempotency-Key", "checkout-1"))
+            .andExpect(status().isCreated())
+            .andExpect(header().string(REPLAYED, "true"))
+            .andReturn());
+
+        assertThat(replayedId).isEqualTo(transactionId);
+        assertThat(transactionRepository.count()).isEqualTo(1);
+        mockMvc.perform(put("/api/transactions/{id}/return", transactionId).header("Idempotency-Key", "return-1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(REPLAYED, "false"));
+    }
+
+    @Test
+    void requestsWithoutAKeyCarryNoReplayHeader() throws Exception {
+        long transactionId = idOf(mockMvc.perform(issue())
+            .andExpect(status().isCreated())
+            .andExpect(header().doesNotExist(REPLAYED))
+            .andReturn());
+
+        mockMvc.perform(put("/api/transactions/{id}/return", transactionId))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(REPLAYED));
+    }
+
+    private MockHttpServletRequestBuilder issue() {
+        return post("/api/transactions/issue")
+            .param("bookId", String.valueOf(bookId))
+            .param("memberId", String.valueOf(memberId));
+    }
+
+    private static long idOf(MvcResult result) throws Exception {
+        String body = result.getResponse().getContentAsString();
+        return Long.parseLong(body.replaceAll("^\\{\"id\":(\\d+).*$", "$1"));
+    }
+}
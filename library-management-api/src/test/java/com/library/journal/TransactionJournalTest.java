@@ -0,0 +1,186 @@
+package com.library.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionJournalTest {
+
+    private static final String FIRST_SEGMENT = "journal-00000000000000000001.seg";
+
+    @TempDir
+    Path directory;
+
+    private TransactionJournal journal;
+
+    @AfterEach
+    void stop() throws Exception {
+        if (journal != null) {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void rollsOverIntoNewSegmentsAndReadsAcrossThem() throws Exception {
+        journal = start(4);
+        append(1, 10);
+
+        assertThat(segmentFiles()).hasSize(3);
+        assertThat(sequences(all())).containsExactlyElementsOf(range(1, 10));
+        assertThat(all()).extracting(JournalRecord::transactionId).containsExactlyElementsOf(range(1, 10));
+    }
+
+    @Test
+    void scanAfterStartsRightAfterTheSequence() throws Exception {
+        journal = start(4);
+        append(1, 10);
+
+        assertThat(sequences(after(0))).containsExactlyElementsOf(range(1, 10));
+        assertThat(sequences(after(3))).containsExactlyElementsOf(range(4, 10));
+        assertThat(sequences(after(4))).containsExactlyElementsOf(range(5, 10));
+        assertThat(after(10)).isEmpty();
+    }
+
+    @Test
+    void scanReturnsTheRecordsInTheTimeRange() throws Exception {
+        journal = start(4);
+        append(1, 3);
+        Thread.sleep(20);
+        append(4, 6);
+        Thread.sleep(20);
+        append(7, 9);
+        List<JournalRecord> records = all();
+        Instant from = records.get(3).timestamp();
+        Instant to = records.get(6).timestamp();
+
+        List<JournalRecord> scanned = new ArrayList<>();
+        journal.scan(from, to, scanned::add);
+
+        assertThat(sequences(scanned)).containsExactly(4L, 5L, 6L);
+        assertThat(journal.rebuild(to)).containsOnlyKeys(range(1, 6));
+    }
+
+    @Test
+    void recoveryCutsOffATornFrameAndWritesOverIt() throws Exception {
+        journal = start(16);
+        append(1, 5);
+        journal.stop();
+        // The second half of the last frame never reached the disk
+        overwrite(FIRST_SEGMENT, 4L * JournalSegment.FRAME_SIZE + JournalSegment.FRAME_SIZE / 2,
+            new byte[JournalSegment.FRAME_SIZE / 2]);
+
+        journal = start(16);
+
+        assertThat(journal.flushedSequence()).isEqualTo(4);
+        append(50, 50);
+        assertThat(all()).extracting(JournalRecord::transactionId).containsExactly(1L, 2L, 3L, 4L, 50L);
+        assertThat(sequences(all())).containsExactlyElementsOf(range(1, 5));
+    }
+
+    @Test
+    void recoveryStopsAtAFrameWhoseChecksumDoesNotMatch() throws Exception {
+        journal = start(16);
+        append(1, 5);
+        journal.stop();
+        // One flipped byte in the transaction id of the third record
+        overwrite(FIRST_SEGMENT, 2L * JournalSegment.FRAME_SIZE + 8 + 16, new byte[] {(byte) 0xFF});
+
+        journal = start(16);
+
+        assertThat(journal.flushedSequence()).isEqualTo(2);
+        assertThat(all()).extracting(JournalRecord::transactionId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void failedWriteIsRetriedWithoutLosingRecords() throws Exception {
+        journal = start(4);
+        append(1, 4);
+        // Takes the name of the next segment, so the rollover fails until it is gone
+        Path blocker = Files.createDirectory(directory.resolve("journal-00000000000000000005.seg"));
+
+        journal.appendAfterCommit(records(5, 7));
+        await(journal::isFailing);
+        assertThat(journal.status()).containsEntry("failing", true);
+        Files.delete(blocker);
+        await(() -> journal.flushedSequence() == 7);
+
+        assertThat(journal.isFailing()).isFalse();
+        assertThat(all()).extracting(JournalRecord::transactionId).containsExactlyElementsOf(range(1, 7));
+        assertThat(sequences(all())).containsExactlyElementsOf(range(1, 7));
+    }
+
+    private TransactionJournal start(int framesPerSegment) throws IOException {
+        TransactionJournal started = new TransactionJournal(new SimpleMeterRegistry(), true, directory,
+            DataSize.ofBytes((long) framesPerSegment * JournalSegment.FRAME_SIZE), 1024, 64);
+        started.start();
+        return started;
+    }
+
+    private void append(long firstId, long lastId) throws InterruptedException {
+        long expected = journal.flushedSequence() + lastId - firstId + 1;
+        journal.appendAfterCommit(records(firstId, lastId));
+        await(() -> journal.flushedSequence() == expected);
+    }
+
+    private static List<JournalRecord> records(long firstId, long lastId) {
+        return LongStream.rangeClosed(firstId, lastId)
+            .mapToObj(id -> JournalRecord.of(id, 100 + id, 200 + id, "ISSUED",
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 15), null, 0.0))
+            .toList();
+    }
+
+    private List<JournalRecord> all() {
+        return after(0);
+    }
+
+    private List<JournalRecord> after(long sequence) {
+        List<JournalRecord> records = new ArrayList<>();
+        journal.scanAfter(sequence, records::add);
+        return records;
+    }
+
+    private static List<Long> sequences(List<JournalRecord> records) {
+        return records.stream().map(JournalRecord::sequence).toList();
+    }
+
+    private static List<Long> range(long first, long last) {
+        return LongStream.rangeClosed(first, last).boxed().toList();
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".seg")).toList();
+        }
+    }
+
+    private void overwrite(String segment, long offset, byte[] bytes) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve(segment).toFile(), "rw")) {
+            file.seek(offset);
+            file.write(bytes);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("waited for the journal writer").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.library.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Loads a spread of rows into a database of its own, calls each repository
+ * finder, and checks with EXPLAIN that the SQL Hibernate emitted for it is
+ * planned on the index meant for it rather than on a table scan.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:index_plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.library.repository.RepositoryIndexTest$CapturedSql"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RepositoryIndexTest {
+
+    private static final int BOOKS = 500;
+    private static final int MEMBERS = 1000;
+    private static final int LOANS = 20_000;
+    private static final LocalDate DAY = LocalDate.of(2023, 6, 1);
+
+    /**
+     * Keeps every statement Hibernate prepares, with its parameters still as placeholders.
+     */
+    public static class CapturedSql implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void load() {
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO books (id, title, author, isbn, total_copies, available_copies, category) " +
+            "VALUES (?, ?, ?, ?, 5, 3, ?)",
+            IntStream.range(0, BOOKS).mapToObj(i -> new Object[] {
+                i + 1, "Title " + i, "Author " + i % 97, String.format("978%010d", i), "Category " + i % 20
+            }).toList());
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO members (id, name, email, phone, membership_date, membership_type) " +
+            "VALUES (?, ?, ?, ?, DATE '2024-01-01', ?)",
+            IntStream.range(0, MEMBERS).mapToObj(i -> new Object[] {
+                i + 1, "Member " + i, "member" + i + "@example.com", String.format("9%09d", i),
+                i % 3 == 0 ? "PREMIUM" : "STANDARD"
+            }).toList());
+        // Most loans are long returned; a few percent are open and fewer overdue
+        LocalDate start = LocalDate.of(2023, 1, 1);
+        List<Object[]> loans = new ArrayList<>();
+        for (int i = 0; i < LOANS; i++) {
+            LocalDate issued = start.plusDays(i * 500L / LOANS);
+            String status = i % 50 == 0 ? "OVERDUE" : i % 20 == 0 ? "ISSUED" : "RETURNED";
+            loans.add(new Object[] {
+                i % BOOKS + 1, i * 7L % MEMBERS + 1, Date.valueOf(issued), Date.valueOf(issued.plusDays(14)),
+                "RETURNED".equals(status) ? Date.valueOf(issued.plusDays(10)) : null, status
+            });
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO transactions (book_id, member_id, issue_date, due_date, return_date, status, fine) " +
+            "VALUES (?, ?, ?, ?, ?, ?, 0)", loans);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterAll
+    void clear() {
+        jdbcTemplate.update("DELETE FROM transactions");
+        jdbcTemplate.update("DELETE FROM member_borrowing_state");
+        jdbcTemplate.update("DELETE FROM books");
+        jdbcTemplate.update("DELETE FROM members");
+    }
+
+    Stream<Arguments> finders() {
+        return Stream.of(
+            // TransactionRepository
+            finder("findSummariesByMemberId", () -> transactionRepository.findSummariesByMemberId(7L),
+                "fk_transactions_member"),
+            finder("findActiveIdsByMember", () -> transactionRepository.findActiveIdsByMember(7L),
+                "idx_transactions_member_status"),
+            finder("findSummariesByBookId", () -> transactionRepository.findSummariesByBookId(7L),
+                "fk_transactions_book"),
+            finder("findActiveTransactionsByBook", () -> transactionRepository.findActiveTransactionsByBook(7L),
+                "idx_transactions_book_status"),
+            finder("findSummariesByStatus", () -> transactionRepository.findSummariesByStatus("OVERDUE"),
+                "idx_transactions_status_due_date"),
+            finder("findOverdueSummaries", () -> transactionRepository.findOverdueSummaries(DAY.plusMonths(9)),
+                "idx_transactions_status_due_date"),
+            finder("findIssuedIdsDueBetween",
+                () -> transactionRepository.findIssuedIdsDueBetween(DAY, DAY.plusDays(1), PageRequest.ofSize(500)),
+                "idx_transactions_status_due_date"),
+            finder("countIssuedDueBefore", () -> transactionRepository.countIssuedDueBefore(DAY),
+                "idx_transactions_status_due_date"),
+            finder("findReturnedIdsBefore",
+                () -> transactionRepository.findReturnedIdsBefore(DAY.minusMonths(3), PageRequest.ofSize(1000)),
+                "idx_transactions_status_due_date"),
+            finder("findIdsOrderByDueDate", () -> transactionRepository.findIdsOrderByDueDate(PageRequest.ofSize(21)),
+                "idx_transactions_due_date_id"),
+            finder("findIdPageAfter",
+                () -> transactionRepository.findIdPageAfter(DAY, 6000L, PageRequest.ofSize(21)),
+                "idx_transactions_due_date_id"),
+            // ArchivedTransactionRepository
+            finder("archived findSummariesByMemberId", () -> archivedTransactionRepository.findSummariesByMemberId(7L),
+                "idx_transactions_archive_member"),
+            finder("archived findSummariesByBookId", () -> archivedTransactionRepository.findSummariesByBookId(7L),
+                "idx_transactions_archive_book"),
+            // BookRepository
+            finder("findByIsbn", () -> bookRepository.findByIsbn("9780000000042"),
+                "uk_books_isbn"),
+            finder("findExistingIsbns", () -> bookRepository.findExistingIsbns(List.of("9780000000042", "9780000000043")),
+                "uk_books_isbn"),
+            finder("findByCategory", () -> bookRepository.findByCategory("Category 3"),
+                "idx_books_category"),
+            // MemberRepository
+            finder("findByEmail", () -> memberRepository.findByEmail("member42@example.com"),
+                "uk_members_email"),
+            finder("existsByPhone", () -> memberRepository.existsByPhone("9000000042"),
+                "idx_members_phone"),
+            finder("findExistingPhones", () -> memberRepository.findExistingPhones(List.of("9000000042", "9000000043")),
+                "idx_members_phone")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("finders")
+    void finderUsesItsIndex(String finder, Runnable call, String index) {
+        assertThat(explain(emittedSql(call))).as(finder).contains("public." + index);
+    }
+
+    private static Arguments finder(String name, Runnable call, String index) {
+        return Arguments.of(name, call, index);
+    }
+
+    private String emittedSql(Runnable call) {
+        CapturedSql.STATEMENTS.clear();
+        call.run();
+        assertThat(CapturedSql.STATEMENTS).hasSize(1);
+        return CapturedSql.STATEMENTS.get(0);
+    }
+
+    // H2 plans a statement with its parameters unbound
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class)).toLowerCase();
+    }
+}
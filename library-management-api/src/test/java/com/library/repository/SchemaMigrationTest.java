@@ -0,0 +1,80 @@
+package com.library.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A database that ddl-auto=update created before the schema moved to Flyway is
+ * baselined at version 1 and must take the later migrations, whether or not it
+ * already has the circulation tables and indexes.
+ */
+class SchemaMigrationTest {
+
+    @Test
+    void emptyDatabaseMigratesToTheLatestVersion() throws SQLException {
+        String url = "jdbc:h2:mem:schema_empty;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        Flyway.configure().dataSource(url, "sa", "").load().migrate();
+
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            assertThat(indexCount(connection, "holds", "idx_holds_book_status")).isEqualTo(1);
+            assertThat(indexCount(connection, "transactions", "idx_transactions_status_due_date")).isEqualTo(1);
+            assertThat(indexCount(connection, "transactions_archive", "idx_transactions_archive_member")).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void baselinedDatabaseKeepsObjectsThatAlreadyExist() throws SQLException {
+        String url = "jdbc:h2:mem:schema_baselined;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        // The pre-Flyway schema, plus what ddl-auto=update added for holds and the overdue scan
+        Flyway.configure().dataSource(url, "sa", "").target("1").load().migrate();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE \"flyway_schema_history\"");
+            statement.execute("CREATE TABLE holds (id BIGINT NOT NULL AUTO_INCREMENT, book_id BIGINT NOT NULL, " +
+                              "member_id BIGINT NOT NULL, status VARCHAR(20) NOT NULL, " +
+                              "created_at DATETIME(6) NOT NULL, ready_at DATETIME(6), " +
+                              "expires_at DATETIME(6) NOT NULL, PRIMARY KEY (id))");
+            statement.execute("CREATE INDEX idx_holds_book_status ON holds (book_id, status, id)");
+            statement.execute("CREATE INDEX idx_transactions_status_due_date ON transactions (status, due_date)");
+            statement.execute("INSERT INTO holds (book_id, member_id, status, created_at, expires_at) " +
+                              "VALUES (1, 1, 'WAITING', NOW(), NOW())");
+        }
+
+        Flyway.configure().dataSource(url, "sa", "").baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet counts = statement.executeQuery(
+                 "SELECT (SELECT COUNT(*) FROM holds), (SELECT COUNT(*) FROM member_borrowing_state)")) {
+            counts.next();
+            assertThat(counts.getInt(1)).isEqualTo(1);
+            assertThat(counts.getInt(2)).isZero();
+            assertThat(indexCount(connection, "holds", "idx_holds_book_status")).isEqualTo(1);
+            assertThat(indexCount(connection, "holds", "idx_holds_member_status")).isEqualTo(1);
+            assertThat(indexCount(connection, "transactions", "idx_transactions_status_due_date")).isEqualTo(1);
+            assertThat(indexCount(connection, "transactions_archive", "idx_transactions_archive_book")).isEqualTo(1);
+        }
+    }
+
+    private static int indexCount(Connection connection, String table, String name) throws SQLException {
+        int count = 0;
+        try (ResultSet indexes = connection.getMetaData()
+                .getIndexInfo(connection.getCatalog(), connection.getSchema(), table, false, true)) {
+            while (indexes.next()) {
+                String index = indexes.getString("INDEX_NAME");
+                if (index != null && index.toLowerCase().startsWith(name) && indexes.getInt("ORDINAL_POSITION") == 1) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,185 @@
+package com.library.service;
+
+import com.library.dto.TransactionSummary;
+import com.library.entity.ArchivedTransaction;
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.entity.Transaction;
+import com.library.repository.ArchivedTransactionRepository;
+import com.library.repository.BookRepository;
+import com.library.repository.MemberRepository;
+import com.library.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+// Two rows per batch, so a run takes several batches; the scheduled run stays off
+@SpringBootTest(properties = {"library.archive.enabled=false", "library.archive.batch-size=2"})
+class ArchiveServiceTest {
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final LocalDate cutoff = LocalDate.now().minusYears(1);
+    private Book book;
+    private Member member;
+
+    @BeforeEach
+    void createBookAndMember() {
+        book = bookRepository.save(newBook());
+        member = memberRepository.save(newMember());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        archivedTransactionRepository.deleteAll();
+        transactionRepository.deleteAll();
+        bookRepository.deleteAll();
+        memberRepository.deleteAll();
+    }
+
+    @Test
+    void onlyLoansDueAndReturnedBeforeTheCutoffAreMoved() {
+        List<Transaction> old = List.of(
+            returned(cutoff.minusDays(60), cutoff.minusDays(50)),
+            returned(cutoff.minusDays(30), cutoff.minusDays(20)),
+            returned(cutoff.minusDays(10), cutoff.minusDays(1)));
+        Transaction returnedOnTheCutoff = returned(cutoff.minusDays(10), cutoff);
+        Transaction returnedLate = returned(cutoff.minusDays(10), cutoff.plusDays(5));
+        Transaction recent = returned(LocalDate.now().minusDays(3), LocalDate.now().minusDays(1));
+        Transaction openPastCutoff = open(cutoff.minusDays(30));
+
+        int archived = archiveService.archiveReturnedTransactions();
+
+        assertThat(archived).isEqualTo(3);
+        assertThat(archivedTransactionRepository.findAll()).extracting(ArchivedTransaction::getId)
+            .containsExactlyInAnyOrderElementsOf(ids(old));
+        assertThat(transactionRepository.findAll()).extracting(Transaction::getId).containsExactlyInAnyOrder(
+            returnedOnTheCutoff.getId(), returnedLate.getId(), recent.getId(), openPastCutoff.getId());
+        assertThat(archiveService.getJobStatus())
+            .containsEntry("lastCutoff", cutoff)
+            .containsEntry("lastRunArchived", 3)
+            .containsEntry("archivedRows", 3L);
+        assertThat(archiveService.archiveReturnedTransactions()).isZero();
+    }
+
+    @Test
+    void historyReadsStillListArchivedLoans() {
+        Transaction archived = returned(cutoff.minusDays(30), cutoff.minusDays(20));
+        Transaction live = returned(LocalDate.now().minusDays(3), LocalDate.now().minusDays(1));
+        Transaction open = open(LocalDate.now().plusDays(7));
+        archiveService.archiveReturnedTransactions();
+
+        assertThat(transactionService.getTransactionsByMemberId(member.getId(), false))
+            .extracting(TransactionSummary::getId).containsExactly(live.getId(), open.getId());
+        assertThat(transactionService.getTransactionsByMemberId(member.getId(), true))
+            .extracting(TransactionSummary::getId).containsExactly(archived.getId(), live.getId(), open.getId());
+        assertThat(transactionService.getTransactionsByBookId(book.getId(), true))
+            .extracting(TransactionSummary::getId).containsExactly(archived.getId(), live.getId(), open.getId());
+        List<TransactionSummary> returned = transactionService.getTransactionsByStatus("RETURNED", true);
+        assertThat(returned).extracting(TransactionSummary::getId).containsExactly(archived.getId(), live.getId());
+        assertThat(returned.get(0).getReturnDate()).isEqualTo(cutoff.minusDays(20));
+        assertThat(returned.get(0).getBookTitle()).isEqualTo(book.getTitle());
+    }
+
+    @Test
+    void batchWhoseCopyAndDeleteCountsDifferIsRolledBack() {
+        List<Transaction> old = List.of(
+            returned(cutoff.minusDays(30), cutoff.minusDays(20)),
+            returned(cutoff.minusDays(20), cutoff.minusDays(10)));
+        // Copies the rows but reports one more, as if a row vanished between the copy and the delete
+        ArchivedTransactionRepository miscounting = mock(ArchivedTransactionRepository.class,
+            delegatesTo(archivedTransactionRepository));
+        doAnswer(invocation -> archivedTransactionRepository.copyReturned(
+            invocation.<Collection<Long>>getArgument(0), invocation.getArgument(1)) + 1)
+            .when(miscounting).copyReturned(any(), any(LocalDateTime.class));
+        ArchiveService service = new ArchiveService(transactionRepository, miscounting, transactionManager,
+            true, Period.ofYears(1), 2, 50);
+
+        assertThat(service.archiveReturnedTransactions()).isZero();
+
+        assertThat(service.getJobStatus()).containsEntry("failedRuns", 1L).containsEntry("lastRunArchived", 0);
+        assertThat(archivedTransactionRepository.count()).isZero();
+        assertThat(transactionRepository.findAll()).extracting(Transaction::getId)
+            .containsExactlyInAnyOrderElementsOf(ids(old));
+    }
+
+    private Transaction returned(LocalDate dueDate, LocalDate returnDate) {
+        Transaction loan = loan(dueDate);
+        loan.setReturnDate(returnDate);
+        loan.setStatus("RETURNED");
+        return transactionRepository.save(loan);
+    }
+
+    private Transaction open(LocalDate dueDate) {
+        Transaction loan = loan(dueDate);
+        loan.setStatus(dueDate.isBefore(LocalDate.now()) ? "OVERDUE" : "ISSUED");
+        return transactionRepository.save(loan);
+    }
+
+    private Transaction loan(LocalDate dueDate) {
+        Transaction loan = new Transaction();
+        loan.setBook(book);
+        loan.setMember(member);
+        loan.setIssueDate(dueDate.minusDays(14));
+        loan.setDueDate(dueDate);
+        return loan;
+    }
+
+    private static List<Long> ids(List<Transaction> loans) {
+        return loans.stream().map(Transaction::getId).toList();
+    }
+
+    private static Book newBook() {
+        Book book = new Book();
+        book.setTitle("Clean Code");
+        book.setAuthor("Robert C. Martin");
+        book.setIsbn("978-0000000001");
+        book.setTotalCopies(10);
+        book.setAvailableCopies(10);
+        return book;
+    }
+
+    private static Member newMember() {
+        Member member = new Member();
+        member.setName("John Doe");
+        member.setEmail("john.doe@example.com");
+        member.setPhone("9876543210");
+        member.setMembershipDate(LocalDate.now());
+        member.setMembershipType("PREMIUM");
+        return member;
+    }
+}
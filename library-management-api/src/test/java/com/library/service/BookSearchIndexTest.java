@@ -0,0 +1,159 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.exception.BadRequestException;
+import com.library.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class BookSearchIndexTest {
+
+    private final BookSearchIndex index = new BookSearchIndex(mock(BookRepository.class));
+
+    @BeforeEach
+    void indexBooks() {
+        index.index(book(1L, "Crime and Punishment", "Fyodor Dostoevsky", "978-0143058144", "Fiction"));
+        index.index(book(2L, "Clean Code", "Robert C. Martin", "978-0132350884", "Programming"));
+        index.index(book(3L, "The Clean Coder", "Robert C. Martin", "978-0137081073", "Programming"));
+        index.index(book(4L, "Code Complete", "Steve McConnell", "978-0735619678", "Programming"));
+        index.index(book(5L, "Coding Crimes", "Anonymous", "978-1111111111", "Clean code"));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void tokenizeFoldsCaseAndSplitsOnPunctuation() {
+        assertThat(BookSearchIndex.tokenize("Crime-and PUNISHMENT, Vol. 2", BookSearchIndex.Field.TITLE))
+            .containsExactlyInAnyOrder("crime", "and", "punishment", "vol", "2");
+        assertThat(BookSearchIndex.tokenize("  ", BookSearchIndex.Field.TITLE)).isEmpty();
+        assertThat(BookSearchIndex.tokenize(null, BookSearchIndex.Field.AUTHOR)).isEmpty();
+    }
+
+    @Test
+    void isbnIsAlsoIndexedWithoutHyphens() {
+        assertThat(BookSearchIndex.tokenize("978-0-13-235088-4", BookSearchIndex.Field.ISBN))
+            .contains("978", "0", "13", "9780132350884");
+        assertThat(index.search("9780132350884", 0, 10)).containsExactly(2L);
+        assertThat(index.search("978-0132350884", 0, 10)).containsExactly(2L);
+    }
+
+    @Test
+    void queryTokenMatchesTermsItIsAPrefixOf() {
+        assertThat(index.search(null, "dosto", 0, 10)).containsExactly(1L);
+        assertThat(index.search("punish", null, 0, 10)).containsExactly(1L);
+        assertThat(index.search(null, "dostoyevsky", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void exactMatchesAndHeavierFieldsRankFirst() {
+        // "clean" is an exact title term for 2 and 3 and only a category term for 5
+        assertThat(index.search("clean", 0, 10)).containsExactly(2L, 3L, 5L);
+        // "code" is exact in 2 and 4, only a prefix of "coder" in 3
+        assertThat(index.search("code", null, 0, 10)).containsExactly(2L, 4L, 3L);
+    }
+
+    @Test
+    void everyClauseMustMatch() {
+        assertThat(index.search("clean", "martin", 0, 10)).containsExactly(2L, 3L);
+        assertThat(index.search("clean", "mcconnell", 0, 10)).isEmpty();
+        assertThat(index.search("clean code", 0, 10)).containsExactly(2L, 3L, 5L);
+    }
+
+    @Test
+    void pagesThroughTheRanking() {
+        // Equal scores are ranked by id
+        assertThat(index.search("programming", 0, 2)).containsExactly(2L, 3L);
+        assertThat(index.search("programming", 1, 2)).containsExactly(4L);
+        assertThat(index.search("programming", 2, 2)).isEmpty();
+        assertThatThrownBy(() -> index.search("programming", -1, 2)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> index.search("programming", 0, 0)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> index.search("programming", 0, CursorCodec.MAX_PAGE_SIZE + 1))
+            .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void eachPageOfTheRankingMatchesTheWholeRanking() {
+        assertThat(index.search("code", null, 0, 10)).containsExactly(2L, 4L, 3L);
+        assertThat(index.search("code", null, 0, 1)).containsExactly(2L);
+        assertThat(index.search("code", null, 1, 1)).containsExactly(4L);
+        assertThat(index.search("code", null, 2, 1)).containsExactly(3L);
+        assertThat(index.search("code", null, 1, 2)).containsExactly(3L);
+        assertThat(index.search("code", null, Integer.MAX_VALUE, CursorCodec.MAX_PAGE_SIZE)).isEmpty();
+    }
+
+    @Test
+    void shortTokensOnlyMatchWholeTerms() {
+        assertThat(index.search(null, "c", 0, 10)).containsExactly(2L, 3L);
+        assertThat(index.search("co", 0, 10)).isEmpty();
+        assertThat(index.search("cod", 0, 10)).containsExactly(2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void noCriteriaListsEveryBookInIdOrder() {
+        assertThat(index.search(null, null, 0, 3)).containsExactly(1L, 2L, 3L);
+        assertThat(index.search(" ", "", 1, 3)).containsExactly(4L, 5L);
+        assertThat(index.search("", 0, 10)).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void reindexReplacesTheOldTermsAndRemoveDropsTheBook() {
+        index.index(book(2L, "Refactoring", "Martin Fowler", "978-0132350884", "Programming"));
+        index.remove(4L);
+
+        assertThat(index.search("clean", null, 0, 10)).containsExactly(3L);
+        assertThat(index.search("refactoring", 0, 10)).containsExactly(2L);
+        assertThat(index.search("complete", 0, 10)).isEmpty();
+    }
+
+    @Test
+    void changesWaitForTheCommitAndRollbackDiscardsThem() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.index(book(2L, "Rejected Title", "Robert C. Martin", "978-0132350884", "Programming"));
+        index.remove(1L);
+
+        assertThat(index.search("rejected", 0, 10)).isEmpty();
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(index.search("rejected", 0, 10)).isEmpty();
+        assertThat(index.search("clean", null, 0, 10)).containsExactly(2L, 3L);
+        assertThat(index.search("crime", null, 0, 10)).containsExactly(1L, 5L);
+    }
+
+    @Test
+    void committedChangesAreApplied() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.index(book(6L, "Domain-Driven Design", "Eric Evans", "978-0321125217", "Programming"));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+
+        assertThat(index.search("domain", 0, 10)).containsExactly(6L);
+    }
+
+    private static Book book(Long id, String title, String author, String isbn, String category) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setIsbn(isbn);
+        book.setTotalCopies(1);
+        book.setAvailableCopies(1);
+        book.setCategory(category);
+        return book;
+    }
+}
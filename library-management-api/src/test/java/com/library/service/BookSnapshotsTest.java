@@ -0,0 +1,183 @@
+package com.library.service;
+
+import com.library.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Snapshots are only rebuilt when a test calls refresh()
+@SpringBootTest(properties = {"library.snapshots.refresh-interval=PT1H", "library.snapshots.max-staleness=PT0.5S"})
+@AutoConfigureMockMvc
+class BookSnapshotsTest {
+
+    private static final String BOOK = "{\"title\":\"Clean Code\",\"author\":\"Robert C. Martin\"," +
+        "\"isbn\":\"978-0132350884\",\"totalCopies\":2,\"availableCopies\":2}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookSnapshots bookSnapshots;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private String bookId;
+
+    @BeforeEach
+    void createBook() throws Exception {
+        String body = mockMvc.perform(post("/api/books").contentType(MediaType.APPLICATION_JSON).content(BOOK))
+            .andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+        bookId = body.replaceAll("^\\{\"id\":(\\d+).*$", "$1");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        bookSnapshots.clear();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    void missTakesTheRegularPathAndOnlyRequestedCollectionsAreBuilt() throws Exception {
+        MockHttpServletResponse miss = getBooks("/api/books", MediaType.APPLICATION_JSON, "gzip");
+
+        assertThat(miss.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(miss.getContentAsString()).contains("Clean Code");
+
+        bookSnapshots.refresh();
+
+        MockHttpServletResponse hit = getBooks("/api/books", MediaType.APPLICATION_JSON, "gzip");
+        assertThat(hit.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gunzip(hit.getContentAsByteArray())).isEqualTo(miss.getContentAsString());
+        assertThat(getBooks("/api/books/available", MediaType.APPLICATION_JSON, "gzip")
+            .getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+    }
+
+    @Test
+    void eachFormatAndCodingHasItsOwnTag() throws Exception {
+        getBooks("/api/books", MediaType.APPLICATION_JSON, null);
+        bookSnapshots.refresh();
+
+        MockHttpServletResponse json = getBooks("/api/books", MediaType.APPLICATION_JSON, null);
+        MockHttpServletResponse jsonGzip = getBooks("/api/books", MediaType.APPLICATION_JSON, "gzip, br");
+        MockHttpServletResponse cbor = getBooks("/api/books", MediaType.APPLICATION_CBOR, null);
+        MockHttpServletResponse cborGzip = getBooks("/api/books", MediaType.APPLICATION_CBOR, "deflate, gzip");
+
+        assertThat(json.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(cbor.getContentType()).isEqualTo(MediaType.APPLICATION_CBOR_VALUE);
+        assertThat(cborGzip.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(jsonGzip.getHeader(HttpHeaders.ETAG)).isEqualTo(etag(json).replaceAll("\"$", "-gz\""));
+        assertThat(cbor.getHeader(HttpHeaders.ETAG)).endsWith("-cbor\"");
+        assertThat(cborGzip.getHeader(HttpHeaders.ETAG)).endsWith("-cbor-gz\"");
+        assertThat(Set.of(etag(json), etag(jsonGzip), etag(cbor), etag(cborGzip))).hasSize(4);
+        assertThat(json.getHeader(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT);
+        assertThat(json.getHeaderValues(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    @Test
+    void negotiationFollowsAcceptAndAcceptEncoding() throws Exception {
+        getBooks("/api/books", MediaType.APPLICATION_JSON, null);
+        bookSnapshots.refresh();
+
+        assertThat(getBooks("/api/books", MediaType.ALL, null).getContentType())
+            .isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(mockMvc.perform(get("/api/books")
+                .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor"))
+            .andReturn().getResponse().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR_VALUE);
+        assertThat(getBooks("/api/books", MediaType.APPLICATION_JSON, "gzip;q=0")
+            .getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(getBooks("/api/books", MediaType.APPLICATION_JSON, "GZIP;q=0.5")
+            .getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        mockMvc.perform(get("/api/books").accept(MediaType.APPLICATION_XML))
+            .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void snapshotAnswersConditionalRequestsForItsOwnTag() throws Exception {
+        getBooks("/api/books", MediaType.APPLICATION_JSON, null);
+        bookSnapshots.refresh();
+        String gzipTag = etag(getBooks("/api/books", MediaType.APPLICATION_JSON, "gzip"));
+
+        mockMvc.perform(get("/api/books").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, gzipTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+        mockMvc.perform(get("/api/books").header(HttpHeaders.IF_NONE_MATCH, gzipTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, gzipTag.replace("-gz", "")));
+    }
+
+    @Test
+    void changedBookIsServedFromTheDirtySnapshotUntilItIsTooStale() throws Exception {
+        getBooks("/api/books", MediaType.APPLICATION_JSON, null);
+        bookSnapshots.refresh();
+        String before = etag(getBooks("/api/books", MediaType.APPLICATION_JSON, "gzip"));
+
+        mockMvc.perform(put("/api/books/{id}", bookId).contentType(MediaType.APPLICATION_JSON)
+                .content(BOOK.replace("Clean Code", "Clean Architecture")))
+            .andExpect(status().isOk());
+
+        MockHttpServletResponse dirty = getBooks("/api/books", MediaType.APPLICATION_JSON, "gzip");
+        assertThat(dirty.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gunzip(dirty.getContentAsByteArray())).contains("Clean Code");
+        assertThat(etag(dirty)).isEqualTo(before);
+        mockMvc.perform(get("/api/books").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, before))
+            .andExpect(status().isNotModified());
+
+        Thread.sleep(600);
+
+        MockHttpServletResponse tooStale = getBooks("/api/books", MediaType.APPLICATION_JSON, "gzip");
+        assertThat(tooStale.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(tooStale.getContentAsString()).contains("Clean Architecture");
+        assertThat(etag(tooStale)).isNotEqualTo(before.replace("-gz", ""));
+
+        bookSnapshots.refresh();
+
+        MockHttpServletResponse rebuilt = getBooks("/api/books", MediaType.APPLICATION_JSON, "gzip");
+        assertThat(rebuilt.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gunzip(rebuilt.getContentAsByteArray())).contains("Clean Architecture");
+        assertThat(etag(rebuilt)).isEqualTo(etag(tooStale).replaceAll("\"$", "-gz\""));
+    }
+
+    private MockHttpServletResponse getBooks(String url, MediaType accept, String acceptEncoding) throws Exception {
+        var request = get(url).accept(accept);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+        return result.getResponse();
+    }
+
+    private static String etag(MockHttpServletResponse response) {
+        return response.getHeader(HttpHeaders.ETAG);
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.entity.MemberBorrowingState;
+import com.library.entity.Transaction;
+import com.library.exception.BadRequestException;
+import com.library.exception.BorrowingBlockedException;
+import com.library.repository.BookRepository;
+import com.library.repository.MemberBorrowingStateRepository;
+import com.library.repository.MemberRepository;
+import com.library.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class BorrowingServiceTest {
+
+    @Autowired
+    private BorrowingService borrowingService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MemberBorrowingStateRepository borrowingStateRepository;
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll();
+        borrowingStateRepository.deleteAll();
+        bookRepository.deleteAll();
+        memberRepository.deleteAll();
+    }
+
+    @Test
+    void checkoutStopsAtTheMembershipLoanLimit() {
+        Book book = bookRepository.save(newBook("978-0000000001", 10));
+        Member student = memberRepository.save(newMember("student@example.com", "STUDENT"));
+
+        for (int i = 0; i < 3; i++) {
+            transactionService.issueBook(book.getId(), student.getId());
+        }
+
+        assertThatThrownBy(() -> transactionService.issueBook(book.getId(), student.getId()))
+            .isInstanceOf(BorrowingBlockedException.class)
+            .hasMessageContaining("loan limit of 3");
+        assertThat(state(student).getActiveLoans()).isEqualTo(3);
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies()).isEqualTo(7);
+    }
+
+    @Test
+    void checkoutOfSeveralLoansIsCappedByTheRoomLeft() {
+        Member student = memberRepository.save(newMember("student@example.com", "STUDENT"));
+        borrowingStateRepository.save(new MemberBorrowingState(student.getId(), 1, 0, 0.0));
+
+        assertThat(borrowingService.checkOut(student, 5)).isEqualTo(2);
+        assertThatThrownBy(() -> borrowingService.checkOut(student, 1))
+            .isInstanceOf(BorrowingBlockedException.class);
+    }
+
+    @Test
+    void overdueLoanBlocksBorrowing() {
+        Book book = bookRepository.save(newBook("978-0000000001", 10));
+        Member member = memberRepository.save(newMember("member@example.com", "STANDARD"));
+        borrowingStateRepository.save(new MemberBorrowingState(member.getId(), 1, 1, 0.0));
+
+        assertThatThrownBy(() -> transactionService.issueBook(book.getId(), member.getId()))
+            .isInstanceOf(BorrowingBlockedException.class)
+            .hasMessageContaining("1 overdue loans");
+        assertThat(borrowingService.getBorrowingState(member.getId()))
+            .containsEntry("canBorrow", false)
+            .containsEntry("activeLoans", 1);
+    }
+
+    @Test
+    void unpaidFinesBlockBorrowingUntilPaidBelowTheLimit() {
+        Book book = bookRepository.save(newBook("978-0000000001", 10));
+        Member member = memberRepository.save(newMember("member@example.com", "STANDARD"));
+        borrowingStateRepository.save(new MemberBorrowingState(member.getId(), 0, 0, 60.0));
+
+        assertThatThrownBy(() -> transactionService.issueBook(book.getId(), member.getId()))
+            .isInstanceOf(BorrowingBlockedException.class)
+            .hasMessageContaining("owes 60.0 in fines");
+
+        Map<String, Object> paid = borrowingService.payFines(member.getId(), 20.0);
+
+        assertThat(paid).containsEntry("finesOwed", 40.0).containsEntry("canBorrow", true);
+        transactionService.issueBook(book.getId(), member.getId());
+        assertThat(state(member).getActiveLoans()).isEqualTo(1);
+    }
+
+    @Test
+    void paymentMustBePositiveAndAtMostWhatIsOwed() {
+        Member member = memberRepository.save(newMember("member@example.com", "STANDARD"));
+        borrowingStateRepository.save(new MemberBorrowingState(member.getId(), 0, 0, 15.0));
+
+        assertThatThrownBy(() -> borrowingService.payFines(member.getId(), 0))
+            .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> borrowingService.payFines(member.getId(), 15.5))
+            .isInstanceOf(BadRequestException.class)
+            .hasMessageContaining("exceeds the fines owed");
+        assertThat(borrowingService.payFines(member.getId(), 15.0)).containsEntry("finesOwed", 0.0);
+    }
+
+    @Test
+    void memberWithoutStateGetsItDerivedFromTheirLoans() {
+        Member member = memberRepository.save(newMember("member@example.com", "PREMIUM"));
+
+        assertThat(borrowingService.getBorrowingState(member.getId()))
+            .containsEntry("activeLoans", 0)
+            .containsEntry("loanLimit", 10)
+            .containsEntry("canBorrow", true);
+        assertThat(borrowingStateRepository.findById(member.getId())).isPresent();
+    }
+
+    @Test
+    void deletingABookReleasesItsOpenLoans() {
+        Book book = bookRepository.save(newBook("978-0000000001", 10));
+        Book other = bookRepository.save(newBook("978-0000000002", 10));
+        Member member = memberRepository.save(newMember("member@example.com", "STANDARD"));
+        Transaction overdue = transactionService.issueBook(book.getId(), member.getId());
+        transactionService.issueBook(book.getId(), member.getId());
+        transactionService.issueBook(other.getId(), member.getId());
+        overdue.setStatus("OVERDUE");
+        transactionRepository.save(overdue);
+        borrowingService.recordOverdue(List.of(overdue.getId()));
+
+        bookService.deleteBook(book.getId());
+
+        MemberBorrowingState state = state(member);
+        assertThat(state.getActiveLoans()).isEqualTo(1);
+        assertThat(state.getOverdueLoans()).isZero();
+        assertThat(state.getFinesOwed()).isZero();
+    }
+
+    private MemberBorrowingState state(Member member) {
+        return borrowingStateRepository.findById(member.getId()).orElseThrow();
+    }
+
+    private static Book newBook(String isbn, int copies) {
+        Book book = new Book();
+        book.setTitle("Clean Code");
+        book.setAuthor("Robert C. Martin");
+        book.setIsbn(isbn);
+        book.setTotalCopies(copies);
+        book.setAvailableCopies(copies);
+        book.setCategory("Programming");
+        return book;
+    }
+
+    private static Member newMember(String email, String membershipType) {
+        Member member = new Member();
+        member.setName("John Doe");
+        member.setEmail(email);
+        member.setPhone("9876543210");
+        member.setMembershipDate(LocalDate.now());
+        member.setMembershipType(membershipType);
+        return member;
+    }
+}
@@ -0,0 +1,71 @@
+package com.library.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityCacheTest {
+
+    private record Row(Long id, String key, int version) {
+    }
+
+    private final EntityCache<Row> cache = new EntityCache<>(1000, Duration.ofMinutes(1), Row::id, Row::key);
+    private final Map<String, Row> table = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void rowInvalidatedWhileLoadingByKeyIsNotCached() {
+        table.put("isbn-1", new Row(1L, "isbn-1", 1));
+
+        // A concurrent change commits and invalidates after the row was read
+        Row loaded = cache.getByKey("isbn-1", key -> {
+            Row row = load(key);
+            table.put(key, new Row(1L, key, 2));
+            cache.invalidate(1L);
+            return row;
+        });
+
+        assertThat(loaded.version()).isEqualTo(1);
+        assertThat(cache.peek(1L)).isNull();
+        assertThat(cache.getByKey("isbn-1", this::load).version()).isEqualTo(2);
+        assertThat(cache.getById(1L, id -> null).version()).isEqualTo(2);
+    }
+
+    @Test
+    void knownKeyIsLoadedOnceThroughItsId() {
+        table.put("isbn-1", new Row(1L, "isbn-1", 1));
+
+        cache.getByKey("isbn-1", this::load);
+        cache.getByKey("isbn-1", this::load);
+        cache.getByKey("isbn-1", this::load);
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.peek(1L)).isEqualTo(new Row(1L, "isbn-1", 1));
+    }
+
+    @Test
+    void keyMovedToAnotherRowIsLookedUpAgain() {
+        table.put("isbn-1", new Row(1L, "isbn-1", 1));
+        cache.getByKey("isbn-1", this::load);
+        cache.getByKey("isbn-1", this::load);
+
+        // Row 1 took another key and row 2 took its old one
+        table.put("isbn-1", new Row(2L, "isbn-1", 1));
+        cache.invalidate(1L);
+
+        assertThat(cache.getByKey("isbn-1", this::load).id()).isEqualTo(2L);
+        assertThat(cache.peek(1L)).isNull();
+        assertThat(cache.getByKey("isbn-1", this::load).id()).isEqualTo(2L);
+        assertThat(cache.peek(2L)).isNotNull();
+    }
+
+    private Row load(String key) {
+        loads.incrementAndGet();
+        return table.get(key);
+    }
+}
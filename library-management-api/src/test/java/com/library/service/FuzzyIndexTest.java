@@ -0,0 +1,113 @@
+package com.library.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FuzzyIndexTest {
+
+    private final FuzzyIndex index = new FuzzyIndex();
+
+    @BeforeEach
+    void indexAuthors() {
+        index.put(1L, Map.of("Fyodor Dostoevsky", 1));
+        index.put(2L, Map.of("Charles Dickens", 1));
+        index.put(3L, Map.of("Leo Tolstoy", 1));
+        index.put(4L, Map.of("Dostoevsky Studies", 3, "Anna Berman", 1));
+    }
+
+    @Test
+    void distanceCountsInsertionsDeletionsSubstitutionsAndSwaps() {
+        assertThat(FuzzyIndex.distance("tolstoy", "tolstoy", 2)).isZero();
+        assertThat(FuzzyIndex.distance("tolstoy", "tolstoi", 2)).isEqualTo(1);
+        assertThat(FuzzyIndex.distance("dostoyevsky", "dostoevsky", 2)).isEqualTo(1);
+        assertThat(FuzzyIndex.distance("dickens", "dikcens", 2)).isEqualTo(1);
+        assertThat(FuzzyIndex.distance("dickens", "dikcesn", 2)).isEqualTo(2);
+        assertThat(FuzzyIndex.distance("", "abc", 3)).isEqualTo(3);
+    }
+
+    @Test
+    void distanceGivesUpPastTheLimit() {
+        assertThat(FuzzyIndex.distance("dickens", "tolstoy", 2)).isEqualTo(3);
+        assertThat(FuzzyIndex.distance("leo", "dostoevsky", 2)).isEqualTo(3);
+    }
+
+    @Test
+    void allowedEditsGrowWithWordLength() {
+        assertThat(FuzzyIndex.maxEdits(3)).isZero();
+        assertThat(FuzzyIndex.maxEdits(4)).isEqualTo(1);
+        assertThat(FuzzyIndex.maxEdits(7)).isEqualTo(1);
+        assertThat(FuzzyIndex.maxEdits(8)).isEqualTo(2);
+    }
+
+    @Test
+    void wordsAreLowerCasedAndSplitOnPunctuation() {
+        assertThat(FuzzyIndex.words("Dostoevsky, Fyodor M.")).containsExactly("dostoevsky", "fyodor", "m");
+        assertThat(FuzzyIndex.words(null)).isEmpty();
+    }
+
+    @Test
+    void trigramsArePaddedUnlessTheWordIsOpen() {
+        assertThat(FuzzyIndex.trigrams("leo", false)).containsExactly("\0\0l", "\0le", "leo", "eo\0");
+        assertThat(FuzzyIndex.trigrams("leo", true)).containsExactly("\0\0l", "\0le", "leo");
+    }
+
+    @Test
+    void exactWordScoresAboveTypos() {
+        List<FuzzyIndex.Hit> hits = index.search("dostoevsky", false, 10);
+
+        assertThat(hits).extracting(FuzzyIndex.Hit::id).containsExactly(4L, 1L);
+        assertThat(hits.get(1).score()).isEqualTo(1.0);
+        assertThat(index.search("dostoyevsky", false, 10).get(1).score()).isLessThan(1.0);
+    }
+
+    @Test
+    void transliterationAndSwappedLettersStayWithinTheCandidateBound() {
+        // One letter more, and two letters swapped: both change several trigrams at once
+        assertThat(index.search("dostoyevsky", false, 10)).extracting(FuzzyIndex.Hit::id).containsExactly(4L, 1L);
+        assertThat(index.search("dostoevksy", false, 10)).extracting(FuzzyIndex.Hit::id).containsExactly(4L, 1L);
+        assertThat(index.search("tolstoi", false, 10)).extracting(FuzzyIndex.Hit::id).containsExactly(3L);
+    }
+
+    @Test
+    void wordsTooFarOffOrTooShortDoNotMatch() {
+        assertThat(index.search("dostoyevskiy", false, 10)).extracting(FuzzyIndex.Hit::id).containsExactly(4L, 1L);
+        assertThat(index.search("dastayevskiy", false, 10)).isEmpty();
+        assertThat(index.search("lea", false, 10)).isEmpty();
+        assertThat(index.search("leo", false, 10)).extracting(FuzzyIndex.Hit::id).containsExactly(3L);
+    }
+
+    @Test
+    void documentsMatchingEveryQueryWordRankFirst() {
+        assertThat(index.search("fyodor dostoevsky", false, 10)).extracting(FuzzyIndex.Hit::id)
+            .containsExactly(1L, 4L);
+    }
+
+    @Test
+    void lastWordIsCompletedAsAPrefix() {
+        assertThat(index.search("dick", false, 10)).isEmpty();
+        assertThat(index.search("dick", true, 10)).extracting(FuzzyIndex.Hit::id).containsExactly(2L);
+        assertThat(index.search("charles dic", true, 10)).extracting(FuzzyIndex.Hit::id).containsExactly(2L);
+        // A typo in the part typed so far is still tolerated
+        assertThat(index.search("dostoy", true, 10)).extracting(FuzzyIndex.Hit::id).containsExactly(4L, 1L);
+    }
+
+    @Test
+    void limitKeepsTheBestHits() {
+        assertThat(index.search("dostoevsky", false, 1)).extracting(FuzzyIndex.Hit::id).containsExactly(4L);
+    }
+
+    @Test
+    void removedAndReplacedDocumentsLeaveNoWordsBehind() {
+        index.remove(1L);
+        index.put(4L, Map.of("Anna Berman", 1));
+
+        assertThat(index.search("dostoevsky", false, 10)).isEmpty();
+        assertThat(index.search("berman", false, 10)).extracting(FuzzyIndex.Hit::id).containsExactly(4L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+}
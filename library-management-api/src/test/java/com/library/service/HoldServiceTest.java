@@ -0,0 +1,223 @@
+package com.library.service;
+
+import com.library.dto.HoldSummary;
+import com.library.entity.Book;
+import com.library.entity.Hold;
+import com.library.entity.Member;
+import com.library.entity.Transaction;
+import com.library.exception.BadRequestException;
+import com.library.exception.DuplicateResourceException;
+import com.library.repository.BookRepository;
+import com.library.repository.HoldRepository;
+import com.library.repository.MemberBorrowingStateRepository;
+import com.library.repository.MemberRepository;
+import com.library.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class HoldServiceTest {
+
+    @Autowired
+    private HoldService holdService;
+
+    @Autowired
+    private HoldExpiryService holdExpiryService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private HoldRepository holdRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MemberBorrowingStateRepository borrowingStateRepository;
+
+    private Book book;
+    private Member borrower;
+    private Transaction loan;
+
+    @BeforeEach
+    void lendTheOnlyCopy() {
+        book = bookRepository.save(newBook());
+        borrower = memberRepository.save(newMember(0));
+        loan = transactionService.issueBook(book.getId(), borrower.getId());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        holdRepository.deleteAll();
+        transactionRepository.deleteAll();
+        borrowingStateRepository.deleteAll();
+        bookRepository.deleteAll();
+        memberRepository.deleteAll();
+    }
+
+    @Test
+    void holdsQueueInTheOrderTheyWerePlaced() {
+        HoldSummary first = holdService.placeHold(book.getId(), memberRepository.save(newMember(1)).getId());
+        HoldSummary second = holdService.placeHold(book.getId(), memberRepository.save(newMember(2)).getId());
+        HoldSummary third = holdService.placeHold(book.getId(), memberRepository.save(newMember(3)).getId());
+
+        assertThat(first.getPosition()).isEqualTo(1);
+        assertThat(second.getPosition()).isEqualTo(2);
+        assertThat(third.getPosition()).isEqualTo(3);
+        assertThat(holdService.getQueue(book.getId(), null, 10, true).getItems())
+            .extracting(HoldSummary::getId).containsExactly(first.getId(), second.getId(), third.getId());
+
+        holdService.cancelHold(first.getId());
+
+        assertThat(holdService.getHold(third.getId()).getPosition()).isEqualTo(2);
+    }
+
+    @Test
+    void holdIsOnlyPlacedWhenNoCopyIsOnTheShelf() {
+        Member member = memberRepository.save(newMember(1));
+        holdService.placeHold(book.getId(), member.getId());
+
+        assertThatThrownBy(() -> holdService.placeHold(book.getId(), member.getId()))
+            .isInstanceOf(DuplicateResourceException.class);
+        assertThatThrownBy(() -> holdService.placeHold(shelvedBook().getId(), member.getId()))
+            .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void returnedCopyIsSetAsideForTheHeadOfTheQueue() {
+        Member first = memberRepository.save(newMember(1));
+        Member second = memberRepository.save(newMember(2));
+        HoldSummary firstHold = holdService.placeHold(book.getId(), first.getId());
+        HoldSummary secondHold = holdService.placeHold(book.getId(), second.getId());
+
+        transactionService.returnBook(loan.getId());
+
+        assertThat(status(firstHold)).isEqualTo("READY");
+        assertThat(status(secondHold)).isEqualTo("WAITING");
+        assertThat(availableCopies()).isZero();
+        // The copy set aside goes to the holder even though the shelf is empty
+        transactionService.issueBook(book.getId(), first.getId());
+        assertThat(status(firstHold)).isEqualTo("FULFILLED");
+        assertThat(availableCopies()).isZero();
+    }
+
+    @Test
+    void expiredReadyHoldPassesItsCopyToTheNextHold() {
+        HoldSummary firstHold = holdService.placeHold(book.getId(), memberRepository.save(newMember(1)).getId());
+        HoldSummary secondHold = holdService.placeHold(book.getId(), memberRepository.save(newMember(2)).getId());
+        transactionService.returnBook(loan.getId());
+        expireNow(firstHold);
+
+        holdExpiryService.sweep();
+
+        assertThat(status(firstHold)).isEqualTo("EXPIRED");
+        assertThat(status(secondHold)).isEqualTo("READY");
+        assertThat(availableCopies()).isZero();
+    }
+
+    @Test
+    void expiredLastHoldPutsItsCopyBackOnTheShelf() {
+        HoldSummary hold = holdService.placeHold(book.getId(), memberRepository.save(newMember(1)).getId());
+        transactionService.returnBook(loan.getId());
+        expireNow(hold);
+
+        holdExpiryService.sweep();
+
+        assertThat(status(hold)).isEqualTo("EXPIRED");
+        assertThat(availableCopies()).isEqualTo(1);
+    }
+
+    @Test
+    void sweepHandsShelvedCopiesToWaitingHolds() {
+        HoldSummary firstHold = holdService.placeHold(book.getId(), memberRepository.save(newMember(1)).getId());
+        HoldSummary secondHold = holdService.placeHold(book.getId(), memberRepository.save(newMember(2)).getId());
+        HoldSummary thirdHold = holdService.placeHold(book.getId(), memberRepository.save(newMember(3)).getId());
+        // Copies added by a catalog update go to the shelf, not to the queue
+        book = bookRepository.findById(book.getId()).orElseThrow();
+        book.setTotalCopies(3);
+        book.setAvailableCopies(2);
+        bookRepository.save(book);
+
+        holdExpiryService.sweep();
+
+        assertThat(status(firstHold)).isEqualTo("READY");
+        assertThat(status(secondHold)).isEqualTo("READY");
+        assertThat(status(thirdHold)).isEqualTo("WAITING");
+        assertThat(availableCopies()).isZero();
+        assertThat(holdService.rebalance(book.getId())).isZero();
+    }
+
+    @Test
+    void deletingAMemberPassesTheirSetAsideCopyOn() {
+        Member first = memberRepository.save(newMember(1));
+        HoldSummary firstHold = holdService.placeHold(book.getId(), first.getId());
+        HoldSummary secondHold = holdService.placeHold(book.getId(), memberRepository.save(newMember(2)).getId());
+        transactionService.returnBook(loan.getId());
+
+        memberService.deleteMember(first.getId());
+
+        assertThat(holdRepository.findById(firstHold.getId())).isEmpty();
+        assertThat(status(secondHold)).isEqualTo("READY");
+        assertThat(availableCopies()).isZero();
+    }
+
+    private String status(HoldSummary hold) {
+        return holdRepository.findById(hold.getId()).orElseThrow().getStatus();
+    }
+
+    private int availableCopies() {
+        return bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies();
+    }
+
+    private void expireNow(HoldSummary summary) {
+        Hold hold = holdRepository.findById(summary.getId()).orElseThrow();
+        hold.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        holdRepository.save(hold);
+    }
+
+    private Book shelvedBook() {
+        Book shelved = newBook();
+        shelved.setIsbn("978-0137081073");
+        return bookRepository.save(shelved);
+    }
+
+    private static Book newBook() {
+        Book book = new Book();
+        book.setTitle("Clean Code");
+        book.setAuthor("Robert C. Martin");
+        book.setIsbn("978-0132350884");
+        book.setTotalCopies(1);
+        book.setAvailableCopies(1);
+        book.setCategory("Programming");
+        return book;
+    }
+
+    private static Member newMember(int number) {
+        Member member = new Member();
+        member.setName("Member " + number);
+        member.setEmail("member" + number + "@example.com");
+        member.setPhone(String.format("98765432%02d", number));
+        member.setMembershipDate(LocalDate.now());
+        member.setMembershipType("STANDARD");
+        return member;
+    }
+}
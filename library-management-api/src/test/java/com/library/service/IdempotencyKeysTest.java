@@ -0,0 +1,136 @@
+package com.library.service;
+
+import com.library.exception.BadRequestException;
+import com.library.exception.DuplicateResourceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyKeysTest {
+
+    private final IdempotencyKeys keys = new IdempotencyKeys(100, Duration.ofHours(1), Duration.ofMillis(300));
+    private final AtomicInteger runs = new AtomicInteger();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void retryWithTheSameKeyGetsTheFirstResultBack() {
+        IdempotencyKeys.Result<Integer> first = keys.execute("key-1", "issue 1 2", runs::incrementAndGet);
+        IdempotencyKeys.Result<Integer> retry = keys.execute("key-1", "issue 1 2", runs::incrementAndGet);
+
+        assertThat(first).isEqualTo(new IdempotencyKeys.Result<>(1, false));
+        assertThat(retry).isEqualTo(new IdempotencyKeys.Result<>(1, true));
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void requestsWithoutAKeyAlwaysRun() {
+        keys.execute(null, "issue 1 2", runs::incrementAndGet);
+        IdempotencyKeys.Result<Integer> second = keys.execute(null, "issue 1 2", runs::incrementAndGet);
+
+        assertThat(second).isEqualTo(new IdempotencyKeys.Result<>(2, false));
+    }
+
+    @Test
+    void keyReusedForADifferentRequestIsRejected() {
+        keys.execute("key-1", "issue 1 2", runs::incrementAndGet);
+
+        assertThatThrownBy(() -> keys.execute("key-1", "issue 1 3", runs::incrementAndGet))
+            .isInstanceOf(BadRequestException.class)
+            .hasMessageContaining("different request");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void blankOrOverlongKeysAreRejected() {
+        assertThatThrownBy(() -> keys.execute(" ", "issue 1 2", runs::incrementAndGet))
+            .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> keys.execute("k".repeat(256), "issue 1 2", runs::incrementAndGet))
+            .isInstanceOf(BadRequestException.class);
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void retryWaitsForTheAttemptStillRunning() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Integer> outcome = new CompletableFuture<>();
+        Future<IdempotencyKeys.Result<Integer>> first = executor.submit(() -> keys.execute("key-1", "return 7", () -> {
+            started.countDown();
+            return outcome.join();
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.execute(() -> {
+            sleep(100);
+            outcome.complete(42);
+        });
+
+        IdempotencyKeys.Result<Integer> retry = keys.execute("key-1", "return 7", runs::incrementAndGet);
+
+        assertThat(retry).isEqualTo(new IdempotencyKeys.Result<>(42, true));
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(new IdempotencyKeys.Result<>(42, false));
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void retryGivesUpOnAnAttemptRunningTooLong() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<IdempotencyKeys.Result<Integer>> first = executor.submit(() -> keys.execute("key-1", "return 7", () -> {
+            started.countDown();
+            await(release);
+            return 42;
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> keys.execute("key-1", "return 7", runs::incrementAndGet))
+            .isInstanceOf(DuplicateResourceException.class)
+            .hasMessageContaining("still in progress");
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).value()).isEqualTo(42);
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    void failedAttemptIsNotRememberedSoARetryRunsAgain() {
+        assertThatThrownBy(() -> keys.execute("key-1", "issue 1 2", () -> {
+            runs.incrementAndGet();
+            throw new BadRequestException("Book is not available for issuing");
+        })).isInstanceOf(BadRequestException.class);
+
+        IdempotencyKeys.Result<Integer> retry = keys.execute("key-1", "issue 1 2", runs::incrementAndGet);
+
+        assertThat(retry).isEqualTo(new IdempotencyKeys.Result<>(2, false));
+        assertThat(keys.execute("key-1", "issue 1 2", runs::incrementAndGet).replayed()).isTrue();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.library.service;
+
+import com.library.dto.ImportResult;
+import com.library.dto.ImportRowResult;
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.repository.BookRepository;
+import com.library.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "library.import.chunk-size=3")
+class ImportServiceTest {
+
+    // Passes the ISBN pattern but is longer than the 20 characters the column holds
+    private static final String ISBN_TOO_LONG = "978-0-0-0-0-0-0-0-0-0-9";
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @AfterEach
+    void cleanUp() {
+        bookRepository.deleteAll();
+        memberRepository.deleteAll();
+    }
+
+    @Test
+    void importsBooksAcrossChunks() {
+        ImportResult result = importService.importBooks(List.of(
+            newBook("978-0000000001"), newBook("978-0000000002"), newBook("978-0000000003"),
+            newBook("978-0000000004"), newBook("978-0000000005")));
+
+        assertThat(result.getCreated()).isEqualTo(5);
+        assertThat(result.getRows()).extracting(ImportRowResult::getRow).containsExactly(1, 2, 3, 4, 5);
+        assertThat(result.getRows()).allSatisfy(row -> {
+            assertThat(row.getStatus()).isEqualTo("CREATED");
+            assertThat(bookRepository.findByIsbn(row.getKey()).orElseThrow().getId()).isEqualTo(row.getId());
+        });
+    }
+
+    @Test
+    void rejectsBooksDuplicatedInTheFileOrTheDatabase() {
+        bookRepository.save(newBook("978-0000000001"));
+
+        ImportResult result = importService.importBooks(List.of(
+            newBook("978-0000000001"), newBook("978-0000000002"), newBook("978-0000000003"),
+            newBook("978-0000000002")));
+
+        assertThat(result.getRows()).extracting(ImportRowResult::getStatus)
+            .containsExactly("FAILED", "CREATED", "CREATED", "FAILED");
+        assertThat(result.getRows().get(0).getMessage()).contains("already exists");
+        assertThat(result.getRows().get(3).getMessage()).contains("already exists");
+        assertThat(bookRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void rowRejectedByTheDatabaseFailsAlone() {
+        ImportResult result = importService.importBooks(List.of(
+            newBook("978-0000000001"), newBook(ISBN_TOO_LONG), newBook("978-0000000003")));
+
+        assertThat(result.getRows()).extracting(ImportRowResult::getStatus)
+            .containsExactly("CREATED", "FAILED", "CREATED");
+        assertThat(result.getRows().get(1).getMessage()).startsWith("Insert failed");
+        assertThat(result.getRows().get(0).getId()).isNotNull();
+        assertThat(result.getRows().get(2).getId()).isNotNull();
+        assertThat(bookRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void nullRowsFailOnTheirOwn() {
+        ImportResult books = importService.importBooks(Arrays.asList(
+            newBook("978-0000000001"), null, newBook("978-0000000003"), null));
+        ImportResult members = importService.importMembers(Arrays.asList(null, newMember(2)));
+
+        assertThat(books.getRows()).extracting(ImportRowResult::getStatus)
+            .containsExactly("CREATED", "FAILED", "CREATED", "FAILED");
+        assertThat(books.getRows().get(1).getMessage()).isEqualTo("Row is empty");
+        assertThat(books.getFailed()).isEqualTo(2);
+        assertThat(members.getRows()).extracting(ImportRowResult::getStatus).containsExactly("FAILED", "CREATED");
+        assertThat(bookRepository.count()).isEqualTo(2);
+        assertThat(memberRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void importsBooksFromCsv() throws IOException {
+        String csv = """
+            title,author,isbn,publisher,publishedYear,totalCopies,availableCopies,category
+            Dune,Frank Herbert,978-0000000001,Chilton,1965,3,3,Fiction
+            "Dune, Messiah",Frank Herbert,978-0000000002,,1969,2,1,Fiction
+            Dune Again,Frank Herbert,978-0000000001,,1969,2,1,Fiction
+            """;
+
+        ImportResult result = importService.importBooksCsv(stream(csv));
+
+        assertThat(result.getRows()).extracting(ImportRowResult::getStatus)
+            .containsExactly("CREATED", "CREATED", "FAILED");
+        Book messiah = bookRepository.findByIsbn("978-0000000002").orElseThrow();
+        assertThat(messiah.getTitle()).isEqualTo("Dune, Messiah");
+        assertThat(messiah.getAvailableCopies()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsMembersDuplicatedInTheFileOrTheDatabase() {
+        memberRepository.save(newMember(1));
+        Member samePhone = newMember(4);
+        samePhone.setPhone(newMember(2).getPhone());
+
+        ImportResult result = importService.importMembers(List.of(
+            newMember(1), newMember(2), newMember(3), samePhone, newMember(2)));
+
+        assertThat(result.getRows()).extracting(ImportRowResult::getStatus)
+            .containsExactly("FAILED", "CREATED", "CREATED", "FAILED", "FAILED");
+        assertThat(result.getRows().get(3).getMessage()).contains("phone");
+        assertThat(result.getRows().get(4).getMessage()).contains("email");
+        assertThat(memberRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void importsMembersFromCsv() throws IOException {
+        String csv = """
+            name,email,phone,membershipDate,membershipType
+            Ada Lovelace,ada@example.com,5550000001,2024-01-15,PREMIUM
+            Alan Turing,alan@example.com,5550000002,2024-02-01,STUDENT
+            Grace Hopper,ada@example.com,5550000003,2024-03-01,STANDARD
+            """;
+
+        ImportResult result = importService.importMembersCsv(stream(csv));
+
+        assertThat(result.getRows()).extracting(ImportRowResult::getStatus)
+            .containsExactly("CREATED", "CREATED", "FAILED");
+        assertThat(result.getRows().get(0).getId()).isNotNull();
+        assertThat(memberRepository.findAll()).extracting(Member::getMembershipDate)
+            .containsExactlyInAnyOrder(LocalDate.of(2024, 1, 15), LocalDate.of(2024, 2, 1));
+    }
+
+    private static ByteArrayInputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Book newBook(String isbn) {
+        Book book = new Book();
+        book.setTitle("Book " + isbn);
+        book.setAuthor("Author");
+        book.setIsbn(isbn);
+        book.setTotalCopies(2);
+        book.setAvailableCopies(2);
+        return book;
+    }
+
+    private static Member newMember(int n) {
+        Member member = new Member();
+        member.setName("Member " + n);
+        member.setEmail("member" + n + "@example.com");
+        member.setPhone(String.format("555%07d", n));
+        member.setMembershipDate(LocalDate.of(2024, 1, 1));
+        member.setMembershipType("STANDARD");
+        return member;
+    }
+}
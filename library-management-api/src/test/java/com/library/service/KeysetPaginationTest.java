@@ -0,0 +1,178 @@
+package com.library.service;
+
+import com.library.dto.CursorPage;
+import com.library.dto.TransactionSummary;
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.entity.Transaction;
+import com.library.exception.BadRequestException;
+import com.library.repository.BookRepository;
+import com.library.repository.MemberRepository;
+import com.library.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class KeysetPaginationTest {
+
+    private static final LocalDate DUE = LocalDate.of(2024, 3, 1);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private final List<Book> books = new ArrayList<>();
+    private Member member;
+
+    @BeforeEach
+    void createBooksAndMember() {
+        for (int i = 1; i <= 7; i++) {
+            books.add(bookRepository.save(newBook(i)));
+        }
+        member = memberRepository.save(newMember());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll();
+        bookRepository.deleteAll();
+        memberRepository.deleteAll();
+    }
+
+    @Test
+    void transactionPagesWalkDueDateTiesWithoutGapsOrRepeats() {
+        // Ids do not follow due dates, and most loans share one with another
+        List<Transaction> loans = new ArrayList<>();
+        for (int plusDays : new int[] {2, 0, 2, 1, 0, 2, 0, 1, 2}) {
+            loans.add(loanDue(DUE.plusDays(plusDays)));
+        }
+        List<Long> expected = loans.stream()
+            .sorted(Comparator.comparing(Transaction::getDueDate).thenComparing(Transaction::getId))
+            .map(Transaction::getId).toList();
+
+        List<CursorPage<TransactionSummary>> pages =
+            walk(cursor -> transactionService.getTransactionsAfter(cursor, 2, cursor == null));
+
+        assertThat(pages).hasSize(5);
+        assertThat(pages.stream().flatMap(page -> page.getItems().stream()).map(TransactionSummary::getId))
+            .containsExactlyElementsOf(expected);
+        assertThat(pages.get(0).getTotalItems()).isEqualTo(9L);
+        assertThat(pages.get(1).getTotalItems()).isNull();
+        assertLastPage(pages, 1);
+    }
+
+    @Test
+    void bookPagesEndOnAFullLastPage() {
+        List<CursorPage<Book>> pages = walk(cursor -> bookService.getBooksAfter(cursor, 7, false));
+        assertThat(pages).hasSize(1);
+        assertLastPage(pages, 7);
+
+        pages = walk(cursor -> bookService.getBooksAfter(cursor, 3, false));
+
+        assertThat(pages).extracting(page -> page.getItems().size()).containsExactly(3, 3, 1);
+        assertThat(pages.stream().flatMap(page -> page.getItems().stream()).map(Book::getId))
+            .containsExactlyElementsOf(books.stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void cursorRoundTripsItsKeys() {
+        String cursor = CursorCodec.encode(DUE, 42L);
+
+        assertThat(cursor).doesNotContain("|", "=");
+        assertThat(CursorCodec.decode(cursor, 2)).containsExactly("2024-03-01", "42");
+        assertThat(CursorCodec.decodeId(CursorCodec.encode(7L))).isEqualTo(7L);
+    }
+
+    @Test
+    void malformedOrWrongArityCursorsAreRejected() {
+        List<String> transactionCursors = List.of("not a cursor!", CursorCodec.encode(5L),
+            CursorCodec.encode(DUE, 5L, 6L), CursorCodec.encode("yesterday", 5L), CursorCodec.encode(DUE, "x"));
+        List<String> bookCursors = List.of("not a cursor!", CursorCodec.encode(DUE, 5L), CursorCodec.encode("x"),
+            CursorCodec.encode(""));
+
+        assertThat(transactionCursors).allSatisfy(cursor ->
+            assertThatThrownBy(() -> transactionService.getTransactionsAfter(cursor, 2, false))
+                .isInstanceOf(BadRequestException.class).hasMessage("Invalid page cursor"));
+        assertThat(bookCursors).allSatisfy(cursor ->
+            assertThatThrownBy(() -> bookService.getBooksAfter(cursor, 2, false))
+                .isInstanceOf(BadRequestException.class).hasMessage("Invalid page cursor"));
+        assertThatThrownBy(() -> bookService.getBooksAfter(null, 0, false)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> bookService.getBooksAfter(null, CursorCodec.MAX_PAGE_SIZE + 1, false))
+            .isInstanceOf(BadRequestException.class);
+    }
+
+    // Follows next cursors from the first page until a page says there is no next one
+    private static <T> List<CursorPage<T>> walk(Function<String, CursorPage<T>> fetch) {
+        List<CursorPage<T>> pages = new ArrayList<>();
+        CursorPage<T> page = fetch.apply(null);
+        pages.add(page);
+        while (page.isHasNext()) {
+            assertThat(pages).hasSizeLessThan(100);
+            page = fetch.apply(page.getNextCursor());
+            pages.add(page);
+        }
+        return pages;
+    }
+
+    private static void assertLastPage(List<? extends CursorPage<?>> pages, int size) {
+        CursorPage<?> last = pages.get(pages.size() - 1);
+        assertThat(last.getItems()).hasSize(size);
+        assertThat(last.isHasNext()).isFalse();
+        assertThat(last.getNextCursor()).isNull();
+        pages.subList(0, pages.size() - 1).forEach(page -> assertThat(page.getNextCursor()).isNotNull());
+    }
+
+    private Transaction loanDue(LocalDate dueDate) {
+        Transaction loan = new Transaction();
+        loan.setBook(books.get(0));
+        loan.setMember(member);
+        loan.setIssueDate(dueDate.minusDays(14));
+        loan.setDueDate(dueDate);
+        loan.setReturnDate(dueDate);
+        loan.setStatus("RETURNED");
+        return transactionRepository.save(loan);
+    }
+
+    private static Book newBook(int n) {
+        Book book = new Book();
+        book.setTitle("Book " + n);
+        book.setAuthor("Author");
+        book.setIsbn(String.format("978-%010d", n));
+        book.setTotalCopies(2);
+        book.setAvailableCopies(2);
+        return book;
+    }
+
+    private static Member newMember() {
+        Member member = new Member();
+        member.setName("John Doe");
+        member.setEmail("john.doe@example.com");
+        member.setPhone("9876543210");
+        member.setMembershipDate(LocalDate.now());
+        member.setMembershipType("PREMIUM");
+        return member;
+    }
+}
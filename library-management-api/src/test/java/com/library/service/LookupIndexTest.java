@@ -0,0 +1,111 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.exception.BadRequestException;
+import com.library.repository.BookRepository;
+import com.library.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class LookupIndexTest {
+
+    private final LookupIndex index = new LookupIndex(mock(BookRepository.class), mock(MemberRepository.class));
+
+    @BeforeEach
+    void indexBooksAndMembers() {
+        index.indexBook(book(1L, "Crime and Punishment", "Fyodor Dostoevsky"));
+        index.indexBook(book(2L, "Bleak House", "Charles Dickens"));
+        index.indexMember(member(1L, "Charlotte Dickinson"));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void suggestToleratesTyposAndLabelsResults() {
+        List<Map<String, Object>> results = index.suggest("Dostoyevsky", null, 10);
+
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0)).containsEntry("type", "book").containsEntry("id", 1L)
+            .containsEntry("title", "Crime and Punishment");
+    }
+
+    @Test
+    void autocompleteMatchesBooksAndMembersByPrefix() {
+        assertThat(index.autocomplete("dick", null, 10)).extracting(result -> result.get("type"))
+            .containsExactlyInAnyOrder("book", "member");
+        assertThat(index.autocomplete("dick", "member", 10)).extracting(result -> result.get("id"))
+            .containsExactly(1L);
+        assertThat(index.autocomplete("crime and pun", "book", 10)).extracting(result -> result.get("id"))
+            .containsExactly(1L);
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        assertThatThrownBy(() -> index.suggest(" ", null, 10)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> index.suggest("dickens", null, 0)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> index.suggest("dickens", "author", 10)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void changesWaitForTheTransactionToCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.indexBook(book(3L, "Great Expectations", "Charles Dickens"));
+        index.removeMember(1L);
+
+        assertThat(index.suggest("expectations", null, 10)).isEmpty();
+        assertThat(index.suggest("dickinson", null, 10)).hasSize(1);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+
+        assertThat(index.suggest("expectations", null, 10)).extracting(result -> result.get("id"))
+            .containsExactly(3L);
+        assertThat(index.suggest("dickinson", null, 10)).isEmpty();
+    }
+
+    @Test
+    void rolledBackChangesAreNeverApplied() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.indexBook(book(3L, "Great Expectations", "Charles Dickens"));
+        index.removeBook(1L);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(index.suggest("expectations", null, 10)).isEmpty();
+        assertThat(index.suggest("punishment", null, 10)).hasSize(1);
+    }
+
+    private static Book book(Long id, String title, String author) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor(author);
+        return book;
+    }
+
+    private static Member member(Long id, String name) {
+        Member member = new Member();
+        member.setId(id);
+        member.setName(name);
+        member.setMembershipType("STANDARD");
+        return member;
+    }
+}
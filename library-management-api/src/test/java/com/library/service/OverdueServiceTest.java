@@ -0,0 +1,179 @@
+package com.library.service;
+
+import com.library.dto.TransactionSummary;
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.entity.Transaction;
+import com.library.journal.JournalRecord;
+import com.library.journal.TransactionJournal;
+import com.library.repository.BookRepository;
+import com.library.repository.MemberBorrowingStateRepository;
+import com.library.repository.MemberRepository;
+import com.library.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The job only runs when a test calls it
+@SpringBootTest(properties = {"library.overdue.batch-size=2", "library.overdue.initial-delay=PT1H"})
+class OverdueServiceTest {
+
+    @Autowired
+    private OverdueService overdueService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MemberBorrowingStateRepository borrowingStateRepository;
+
+    @Autowired
+    private TransactionJournal transactionJournal;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final LocalDate today = LocalDate.now();
+    private Book book;
+    private Member member;
+
+    @BeforeEach
+    void createBookAndMember() {
+        book = bookRepository.save(newBook());
+        member = memberRepository.save(newMember("john.doe@example.com"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll();
+        borrowingStateRepository.deleteAll();
+        bookRepository.deleteAll();
+        memberRepository.deleteAll();
+    }
+
+    @Test
+    void loansPastDueAreMarkedInBatchesAndLaterRunsStartAtTheWatermark() throws InterruptedException {
+        List<Transaction> pastDue = new ArrayList<>();
+        for (int days = 1; days <= 5; days++) {
+            pastDue.add(loanDue(today.minusDays(days)));
+        }
+        Transaction dueToday = loanDue(today);
+        Transaction returned = loanDue(today.minusDays(3));
+        transactionService.returnBook(returned.getId());
+
+        overdueService.processOverdueTransactions();
+
+        assertThat(overdueService.getJobStatus())
+            .containsEntry("watermark", today)
+            .containsEntry("lastRunMarked", 5)
+            .containsEntry("lastRunBatches", 3)
+            .containsEntry("pendingOverdue", 0L);
+        assertThat(pastDue).allSatisfy(loan -> assertThat(status(loan)).isEqualTo("OVERDUE"));
+        assertThat(status(dueToday)).isEqualTo("ISSUED");
+        assertThat(status(returned)).isEqualTo("RETURNED");
+        assertThat(borrowingStateRepository.findById(member.getId()).orElseThrow().getOverdueLoans()).isEqualTo(5);
+        Map<Long, JournalRecord> images = journaledAsOverdue(pastDue);
+        assertThat(pastDue).allSatisfy(loan -> assertThat(images.get(loan.getId()).fine()).isZero());
+        assertThat(images.get(dueToday.getId()).status()).isEqualTo("ISSUED");
+
+        // Due dates before the watermark were swept already and are not scanned again
+        member = memberRepository.save(newMember("jane.doe@example.com"));
+        Transaction behindWatermark = loanDue(today.minusDays(1));
+        overdueService.processOverdueTransactions();
+
+        assertThat(overdueService.getJobStatus())
+            .containsEntry("lastRunMarked", 0)
+            .containsEntry("lastRunBatches", 0)
+            .containsEntry("pendingOverdue", 1L);
+        assertThat(status(behindWatermark)).isEqualTo("ISSUED");
+    }
+
+    @Test
+    void openLoanFineIsDerivedFromItsDueDateAndOnlyStoredAtReturn() {
+        Transaction loan = loanDue(today.minusDays(4));
+        loan.setStatus("OVERDUE");
+        transactionRepository.save(loan);
+
+        assertThat(transactionService.getOverdueTransactions()).extracting(TransactionSummary::getFine)
+            .containsExactly(20.0);
+        assertThat(transactionService.getTransactionById(loan.getId()).getFine()).isEqualTo(20.0);
+        assertThat(storedFine(loan)).isZero();
+
+        transactionService.returnBook(loan.getId());
+
+        assertThat(storedFine(loan)).isEqualTo(20.0);
+        assertThat(transactionService.getTransactionById(loan.getId()).getFine()).isEqualTo(20.0);
+    }
+
+    private Transaction loanDue(LocalDate dueDate) {
+        Transaction loan = transactionService.issueBook(book.getId(), member.getId());
+        loan.setIssueDate(dueDate.minusDays(14));
+        loan.setDueDate(dueDate);
+        return transactionRepository.save(loan);
+    }
+
+    // The journal is written after commit by a background writer
+    private Map<Long, JournalRecord> journaledAsOverdue(List<Transaction> loans) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        Map<Long, JournalRecord> images = transactionJournal.rebuild(null);
+        while (!allOverdue(images, loans) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            images = transactionJournal.rebuild(null);
+        }
+        assertThat(allOverdue(images, loans)).isTrue();
+        return images;
+    }
+
+    private static boolean allOverdue(Map<Long, JournalRecord> images, List<Transaction> loans) {
+        return loans.stream().map(loan -> images.get(loan.getId()))
+            .allMatch(image -> image != null && image.status().equals("OVERDUE"));
+    }
+
+    private String status(Transaction loan) {
+        return transactionRepository.findById(loan.getId()).orElseThrow().getStatus();
+    }
+
+    private double storedFine(Transaction loan) {
+        return jdbcTemplate.queryForObject("SELECT fine FROM transactions WHERE id = ?", Double.class, loan.getId());
+    }
+
+    private static Book newBook() {
+        Book book = new Book();
+        book.setTitle("Clean Code");
+        book.setAuthor("Robert C. Martin");
+        book.setIsbn("978-0000000001");
+        book.setTotalCopies(10);
+        book.setAvailableCopies(10);
+        book.setCategory("Programming");
+        return book;
+    }
+
+    private static Member newMember(String email) {
+        Member member = new Member();
+        member.setName("John Doe");
+        member.setEmail(email);
+        member.setPhone("9876543210");
+        member.setMembershipDate(LocalDate.now());
+        member.setMembershipType("PREMIUM");
+        return member;
+    }
+}
@@ -0,0 +1,98 @@
+package com.library.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResourceVersionsTest {
+
+    private final ResourceVersions versions = new ResourceVersions(1000);
+    private final EntityCache<String> cache = new EntityCache<>(1000, Duration.ofMinutes(1), value -> 1L, value -> value);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void changeOutsideATransactionBumpsAtOnce() {
+        String before = versions.book(1L).etag();
+
+        versions.bookChanged(1L);
+
+        assertThat(versions.book(1L).etag()).isNotEqualTo(before);
+        assertThat(versions.books().etag()).isEqualTo(versions.book(1L).etag().replace("-b", "-bs"));
+    }
+
+    @Test
+    void unchangedRowsKeepTheirTag() {
+        String other = versions.book(2L).etag();
+        String member = versions.member(1L).etag();
+
+        versions.bookChanged(1L);
+
+        assertThat(versions.book(2L).etag()).isEqualTo(other);
+        assertThat(versions.member(1L).etag()).isEqualTo(member);
+    }
+
+    @Test
+    void cborBodyIsTaggedApartFromJson() {
+        ResourceVersions.Version version = versions.book(1L);
+
+        assertThat(version.in(MediaType.APPLICATION_JSON)).isEqualTo(version);
+        assertThat(version.in(null)).isEqualTo(version);
+        assertThat(version.in(MediaType.APPLICATION_CBOR).etag()).isEqualTo(version.etag() + "-cbor");
+        assertThat(version.in(MediaType.APPLICATION_CBOR).lastModified()).isEqualTo(version.lastModified());
+    }
+
+    @Test
+    void rolledBackChangeKeepsTheTag() {
+        String before = versions.book(1L).etag();
+        TransactionSynchronizationManager.initSynchronization();
+
+        versions.bookChanged(1L);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(versions.book(1L).etag()).isEqualTo(before);
+        assertThat(versions.books().etag()).doesNotContain("-bs1");
+    }
+
+    @Test
+    void newTagIsOnlyVisibleOnceTheCacheDroppedTheOldRow() {
+        String before = versions.book(1L).etag();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Same order as BookService: invalidate the cached row, then record the change
+        cache.invalidate(1L);
+        versions.bookChanged(1L);
+        // A reader caches the row as it was before the commit
+        cache.getById(1L, id -> "before commit");
+        assertThat(versions.book(1L).etag()).isEqualTo(before);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+            assertThat(versions.book(1L).etag()).isEqualTo(before);
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            if (!versions.book(1L).etag().equals(before)) {
+                assertThat(cache.peek(1L)).isNull();
+            }
+        }
+        assertThat(versions.book(1L).etag()).isNotEqualTo(before);
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.library.service;
+
+import com.library.dto.BatchItemResult;
+import com.library.dto.BatchResult;
+import com.library.dto.IssueRequest;
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.entity.MemberBorrowingState;
+import com.library.entity.Transaction;
+import com.library.repository.BookRepository;
+import com.library.repository.MemberBorrowingStateRepository;
+import com.library.repository.MemberRepository;
+import com.library.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class TransactionBatchTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MemberBorrowingStateRepository borrowingStateRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Book plenty;
+    private Book single;
+    private Member standard;
+    private Member student;
+
+    @BeforeEach
+    void createBooksAndMembers() {
+        plenty = bookRepository.save(newBook("978-0000000001", 10));
+        single = bookRepository.save(newBook("978-0000000002", 1));
+        standard = memberRepository.save(newMember(1, "STANDARD"));
+        student = memberRepository.save(newMember(2, "STUDENT"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll();
+        borrowingStateRepository.deleteAll();
+        bookRepository.deleteAll();
+        memberRepository.deleteAll();
+    }
+
+    @Test
+    void issueBatchReportsEachFailureAndIssuesTheRest() {
+        BatchResult result = transactionService.issueBooks(Arrays.asList(
+            new IssueRequest(plenty.getId(), standard.getId()),
+            new IssueRequest(single.getId(), standard.getId()),
+            new IssueRequest(single.getId(), student.getId()),
+            new IssueRequest(-1L, standard.getId()),
+            new IssueRequest(plenty.getId(), null),
+            null,
+            new IssueRequest(plenty.getId(), student.getId()),
+            new IssueRequest(plenty.getId(), student.getId()),
+            new IssueRequest(plenty.getId(), student.getId())));
+
+        assertThat(result.getTotal()).isEqualTo(9);
+        assertThat(result.getSucceeded()).isEqualTo(4);
+        assertThat(result.getItems()).extracting(BatchItemResult::getStatus).containsExactly(
+            "ISSUED", "ISSUED", "FAILED", "FAILED", "FAILED", "FAILED", "ISSUED", "ISSUED", "FAILED");
+        assertThat(result.getItems().get(2).getMessage()).isEqualTo("Book is not available for issuing");
+        assertThat(result.getItems().get(3).getMessage()).startsWith("Book not found");
+        assertThat(result.getItems().get(4).getMessage()).isEqualTo("bookId and memberId are required");
+        assertThat(result.getItems().get(8).getMessage()).contains("loan limit of 3");
+        BatchItemResult issued = result.getItems().get(0);
+        Transaction stored = transactionRepository.findById(issued.getTransactionId()).orElseThrow();
+        assertThat(issued.getIssueDate()).isEqualTo(stored.getIssueDate());
+        assertThat(issued.getDueDate()).isEqualTo(stored.getDueDate());
+
+        assertThat(availableCopies(plenty)).isEqualTo(7);
+        assertThat(availableCopies(single)).isZero();
+        // The loan claimed for the copy that was not there is given back
+        assertThat(borrowingStateRepository.findById(student.getId()).orElseThrow().getActiveLoans()).isEqualTo(2);
+        assertThat(borrowingStateRepository.findById(standard.getId()).orElseThrow().getActiveLoans()).isEqualTo(2);
+        assertThat(transactionRepository.count()).isEqualTo(4);
+    }
+
+    @Test
+    void memberAtTheLoanLimitFailsOnlyTheirOwnItems() {
+        for (int i = 0; i < 3; i++) {
+            transactionService.issueBook(plenty.getId(), student.getId());
+        }
+
+        BatchResult result = transactionService.issueBooks(List.of(
+            new IssueRequest(plenty.getId(), student.getId()),
+            new IssueRequest(single.getId(), standard.getId()),
+            new IssueRequest(plenty.getId(), student.getId())));
+
+        assertThat(result.getItems()).extracting(BatchItemResult::getStatus).containsExactly(
+            "FAILED", "ISSUED", "FAILED");
+        assertThat(result.getItems().get(0).getMessage()).isEqualTo("Member has reached the loan limit of 3");
+        assertThat(transactionRepository.count()).isEqualTo(4);
+        assertThat(availableCopies(single)).isZero();
+        assertThat(borrowingStateRepository.findById(student.getId()).orElseThrow().getActiveLoans()).isEqualTo(3);
+    }
+
+    @Test
+    void memberBlockedByFinesFailsOnlyTheirOwnItems() {
+        borrowingStateRepository.save(new MemberBorrowingState(standard.getId(), 0, 0, 60.0));
+
+        BatchResult result = transactionService.issueBooks(List.of(
+            new IssueRequest(plenty.getId(), standard.getId()),
+            new IssueRequest(single.getId(), student.getId())));
+
+        assertThat(result.getItems()).extracting(BatchItemResult::getStatus).containsExactly("FAILED", "ISSUED");
+        assertThat(result.getItems().get(0).getMessage()).contains("fines");
+        assertThat(transactionRepository.count()).isEqualTo(1);
+        assertThat(availableCopies(plenty)).isEqualTo(10);
+        assertThat(borrowingStateRepository.findById(standard.getId()).orElseThrow().getActiveLoans()).isZero();
+    }
+
+    @Test
+    void returnBatchReportsEachFailureAndReturnsTheRest() {
+        Transaction first = transactionService.issueBook(plenty.getId(), standard.getId());
+        Transaction second = transactionService.issueBook(plenty.getId(), student.getId());
+        Transaction returned = transactionService.issueBook(single.getId(), standard.getId());
+        transactionService.returnBook(returned.getId());
+
+        BatchResult result = transactionService.returnBooks(Arrays.asList(
+            first.getId(), -1L, returned.getId(), null, second.getId(), first.getId()));
+
+        assertThat(result.getSucceeded()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getItems()).extracting(BatchItemResult::getMessage).containsExactly(
+            null, "Transaction not found with id: -1", "Book has already been returned",
+            "Transaction not found with id: null", null, "Book has already been returned");
+        assertThat(availableCopies(plenty)).isEqualTo(10);
+        assertThat(borrowingStateRepository.findById(standard.getId()).orElseThrow().getActiveLoans()).isZero();
+        assertThat(borrowingStateRepository.findById(student.getId()).orElseThrow().getActiveLoans()).isZero();
+    }
+
+    @Test
+    void bookWithoutRoomForItsCopiesFailsOnlyItsOwnItems() {
+        Transaction kept = transactionService.issueBook(single.getId(), standard.getId());
+        Transaction other = transactionService.issueBook(plenty.getId(), student.getId());
+        // The catalog was corrected while the copy was out: every copy is on the shelf again
+        Book corrected = bookRepository.findById(single.getId()).orElseThrow();
+        corrected.setAvailableCopies(1);
+        bookRepository.save(corrected);
+
+        BatchResult result = transactionService.returnBooks(List.of(kept.getId(), other.getId()));
+
+        assertThat(result.getItems()).extracting(BatchItemResult::getStatus).containsExactly("FAILED", "RETURNED");
+        assertThat(result.getItems().get(0).getMessage()).isEqualTo("All copies of this book are already available");
+        assertThat(transactionRepository.findById(kept.getId()).orElseThrow().getStatus()).isEqualTo("ISSUED");
+        assertThat(transactionRepository.findById(other.getId()).orElseThrow().getStatus()).isEqualTo("RETURNED");
+        assertThat(borrowingStateRepository.findById(standard.getId()).orElseThrow().getActiveLoans()).isEqualTo(1);
+        assertThat(availableCopies(plenty)).isEqualTo(10);
+    }
+
+    @Test
+    void onlyCommittedTransactionsAreCounted() {
+        double issued = meterRegistry.counter("library.transactions.issued").count();
+        double returned = meterRegistry.counter("library.transactions.returned").count();
+        Transaction loan = transactionService.issueBook(plenty.getId(), standard.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            transactionService.issueBooks(List.of(new IssueRequest(plenty.getId(), student.getId())));
+            transactionService.returnBooks(List.of(loan.getId()));
+            status.setRollbackOnly();
+        });
+
+        assertThat(meterRegistry.counter("library.transactions.issued").count()).isEqualTo(issued + 1);
+        assertThat(meterRegistry.counter("library.transactions.returned").count()).isEqualTo(returned);
+        transactionService.returnBook(loan.getId());
+        assertThat(meterRegistry.counter("library.transactions.returned").count()).isEqualTo(returned + 1);
+    }
+
+    private int availableCopies(Book book) {
+        return bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies();
+    }
+
+    private static Book newBook(String isbn, int copies) {
+        Book book = new Book();
+        book.setTitle("Clean Code");
+        book.setAuthor("Robert C. Martin");
+        book.setIsbn(isbn);
+        book.setTotalCopies(copies);
+        book.setAvailableCopies(copies);
+        book.setCategory("Programming");
+        return book;
+    }
+
+    private static Member newMember(int number, String membershipType) {
+        Member member = new Member();
+        member.setName("Member " + number);
+        member.setEmail("member" + number + "@example.com");
+        member.setPhone(String.format("98765432%02d", number));
+        member.setMembershipDate(LocalDate.now());
+        member.setMembershipType(membershipType);
+        return member;
+    }
+}
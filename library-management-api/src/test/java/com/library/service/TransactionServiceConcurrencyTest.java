@@ -0,0 +1,125 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.entity.Member;
+import com.library.exception.BookNotAvailableException;
+import com.library.repository.BookRepository;
+import com.library.repository.MemberBorrowingStateRepository;
+import com.library.repository.MemberRepository;
+import com.library.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "library.loans.limit.premium=" + TransactionServiceConcurrencyTest.ISSUE_ATTEMPTS)
+@Slf4j
+class TransactionServiceConcurrencyTest {
+
+    private static final int TOTAL_COPIES = 250;
+    static final int ISSUE_ATTEMPTS = 2000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MemberBorrowingStateRepository borrowingStateRepository;
+
+    @AfterEach
+    void cleanUp() {
+        transactionRepository.deleteAll();
+        borrowingStateRepository.deleteAll();
+        bookRepository.deleteAll();
+        memberRepository.deleteAll();
+    }
+
+    @Test
+    void parallelIssueNeverOversellsCopies() throws Exception {
+        Book book = bookRepository.save(newBook(TOTAL_COPIES));
+        Member member = memberRepository.save(newMember());
+
+        AtomicInteger issued = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < ISSUE_ATTEMPTS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    transactionService.issueBook(book.getId(), member.getId());
+                    issued.incrementAndGet();
+                } catch (BookNotAvailableException ex) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        long throughput = Math.round(ISSUE_ATTEMPTS / (elapsedNanos / 1_000_000_000.0));
+        log.info("issueBook: {} attempts on {} threads in {} ms ({} ops/s), {} issued, {} rejected",
+            ISSUE_ATTEMPTS, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), throughput,
+            issued.get(), rejected.get());
+
+        assertThat(issued.get()).isEqualTo(TOTAL_COPIES);
+        assertThat(rejected.get()).isEqualTo(ISSUE_ATTEMPTS - TOTAL_COPIES);
+        assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies()).isZero();
+        assertThat(transactionRepository.findActiveTransactionsByBook(book.getId())).hasSize(TOTAL_COPIES);
+        assertThat(borrowingStateRepository.findById(member.getId()).orElseThrow().getActiveLoans())
+            .isEqualTo(TOTAL_COPIES);
+    }
+
+    private Book newBook(int copies) {
+        Book book = new Book();
+        book.setTitle("Clean Code");
+        book.setAuthor("Robert C. Martin");
+        book.setIsbn("978-0132350884");
+        book.setTotalCopies(copies);
+        book.setAvailableCopies(copies);
+        book.setCategory("Programming");
+        return book;
+    }
+
+    private Member newMember() {
+        Member member = new Member();
+        member.setName("John Doe");
+        member.setEmail("john.doe@example.com");
+        member.setPhone("9876543210");
+        member.setMembershipDate(LocalDate.now());
+        member.setMembershipType("PREMIUM");
+        return member;
+    }
+}